@@ -0,0 +1,135 @@
+package cz.muni.fi.pv168.rent.benchmark;
+
+import cz.muni.fi.pv168.rent.Customer;
+import cz.muni.fi.pv168.rent.Reservation;
+import cz.muni.fi.pv168.rent.Vehicle;
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operations of the rental managers measured against the seeded database of
+ * {@link RentalState}, the subclasses choose the number of threads calling
+ * them. Every trial runs in its own fork, so the rows added by the create
+ * benchmarks do not leak into the other measurements. The forks log only
+ * warnings, the debug logging of the managers would be measured as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=" + AbstractRentalBenchmark.LOGBACK_CONFIGURATION)
+public abstract class AbstractRentalBenchmark {
+
+    public static final String LOGBACK_CONFIGURATION = "logback-benchmark.xml";
+
+    private static final int PAGE_SIZE = 100;
+    private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(1500);
+
+    @Benchmark
+    public Vehicle createVehicle(RentalState state) {
+        Vehicle vehicle = RentalState.newVehicle(Vehicle.Brand.SKODA, BigDecimal.valueOf(1000));
+        state.getVehicleManager().createVehicle(vehicle);
+        return vehicle;
+    }
+
+    @Benchmark
+    public Customer createCustomer(RentalState state) {
+        Customer customer = state.nextCustomer();
+        state.getCustomerManager().createCustomer(customer);
+        return customer;
+    }
+
+    @Benchmark
+    public Reservation createReservation(RentalState state) {
+        Reservation reservation = state.nextFreeReservation();
+        state.getReservationManager().createReservation(reservation);
+        return reservation;
+    }
+
+    @Benchmark
+    public Vehicle getVehicleById(RentalState state) {
+        return state.getVehicleManager().getVehicleById(state.randomVehicleId());
+    }
+
+    @Benchmark
+    public Customer getCustomerById(RentalState state) {
+        return state.getCustomerManager().getCustomerById(state.randomCustomerId());
+    }
+
+    @Benchmark
+    public Reservation getReservationById(RentalState state) {
+        return state.getReservationManager().getReservationById(state.randomReservationId());
+    }
+
+    @Benchmark
+    public Collection<Vehicle> getAllVehicles(RentalState state) {
+        return state.getVehicleManager().getAllVehicles();
+    }
+
+    @Benchmark
+    public List<Vehicle> getVehiclesPage(RentalState state) {
+        return state.getVehicleManager().getVehiclesPage(state.randomVehicleId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Collection<Reservation> getReservationsByVehicle(RentalState state) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(state.randomVehicleId());
+        return state.getReservationManager().getReservationsByVehicle(vehicle);
+    }
+
+    /**
+     * Tries to book a vehicle for a slot it is already booked for, measures
+     * the locking and the overlap query rejecting the reservation.
+     */
+    @Benchmark
+    public boolean overlapCheck(RentalState state) {
+        Reservation reservation = state.nextCollidingReservation();
+        try {
+            state.getReservationManager().createReservation(reservation);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        throw new IllegalStateException("Overlapping reservation was created : " + reservation);
+    }
+
+    @Benchmark
+    public List<Vehicle> findAvailableVehicles(RentalState state) {
+        long slot = state.randomSlot();
+        return state.getReservationManager()
+                .findAvailableVehicles(slotMiddle(slot), RentalState.slotEnd(slot), null, null);
+    }
+
+    @Benchmark
+    public List<Vehicle> findAvailableVehiclesByBrandAndPrice(RentalState state) {
+        long slot = state.randomSlot();
+        return state.getReservationManager()
+                .findAvailableVehicles(slotMiddle(slot), RentalState.slotEnd(slot), Vehicle.Brand.AUDI, MAX_PRICE);
+    }
+
+    @Benchmark
+    public boolean isAvailableInIndex(RentalState state) {
+        long slot = state.randomSlot();
+        return state.getIndex().isAvailable(state.randomVehicleId(), slotMiddle(slot), RentalState.slotEnd(slot));
+    }
+
+    /**
+     * Middle of the booked part of the slot, only the vehicles not booked
+     * for the slot are available then.
+     */
+    private static Calendar slotMiddle(long slot) {
+        Calendar middle = RentalState.slotStart(slot);
+        middle.add(Calendar.DAY_OF_MONTH, RentalState.RESERVATION_DAYS / 2);
+        return middle;
+    }
+}
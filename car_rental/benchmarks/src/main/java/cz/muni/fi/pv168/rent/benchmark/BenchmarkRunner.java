@@ -0,0 +1,39 @@
+package cz.muni.fi.pv168.rent.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the benchmarks with the JMH command line, the results are written in
+ * JSON to {@link #DEFAULT_RESULT_FILE} unless another format or file is given
+ * by <code>-rf</code> or <code>-rff</code>. Build the <code>rent</code>
+ * module with <code>mvn install</code> first, then e.g.
+ * <pre>
+ * mvn package
+ * java -jar target/benchmarks.jar RentalBenchmark -p vehicles=1000
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    public static final String DEFAULT_RESULT_FORMAT = "json";
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add(DEFAULT_RESULT_FORMAT);
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add("-rff");
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+        Main.main(arguments.toArray(new String[arguments.size()]));
+    }
+}
@@ -0,0 +1,14 @@
+package cz.muni.fi.pv168.rent.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Rental manager operations called from {@link #THREADS} threads sharing one
+ * database and connection pool, the results show the contention on the pool
+ * and on the locked vehicle rows.
+ */
+@Threads(ConcurrentRentalBenchmark.THREADS)
+public class ConcurrentRentalBenchmark extends AbstractRentalBenchmark {
+    
+    public static final int THREADS = 4;
+}
@@ -0,0 +1,10 @@
+package cz.muni.fi.pv168.rent.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Rental manager operations called from a single thread.
+ */
+@Threads(1)
+public class RentalBenchmark extends AbstractRentalBenchmark {
+}
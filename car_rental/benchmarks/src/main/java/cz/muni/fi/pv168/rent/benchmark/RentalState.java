@@ -0,0 +1,240 @@
+package cz.muni.fi.pv168.rent.benchmark;
+
+import cz.muni.fi.pv168.rent.AvailabilityIndex;
+import cz.muni.fi.pv168.rent.Customer;
+import cz.muni.fi.pv168.rent.CustomerManager;
+import cz.muni.fi.pv168.rent.CustomerManagerImpl;
+import cz.muni.fi.pv168.rent.DBUtils;
+import cz.muni.fi.pv168.rent.Reservation;
+import cz.muni.fi.pv168.rent.ReservationManager;
+import cz.muni.fi.pv168.rent.ReservationManagerImpl;
+import cz.muni.fi.pv168.rent.SchemaMigrator;
+import cz.muni.fi.pv168.rent.Vehicle;
+import cz.muni.fi.pv168.rent.VehicleManager;
+import cz.muni.fi.pv168.rent.VehicleManagerImpl;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Embedded in-memory Derby database shared by all benchmark threads, seeded
+ * with <code>vehicles</code> vehicles and customers. The time from
+ * {@link #BASE_DATE} on is split into one week slots, every vehicle is booked
+ * for {@link #RESERVATION_DAYS} days of each of the first
+ * {@link #SEEDED_SLOTS} slots with probability {@link #BOOKED_PERCENT}%.
+ * The slots after the seeded ones are always free. The schema is migrated
+ * to <code>schemaVersion</code>, e.g. <code>-p schemaVersion=0,latest</code>
+ * measures the operations without and with the indexes of the migrations.
+ */
+@State(Scope.Benchmark)
+public class RentalState {
+
+    public static final int SEEDED_SLOTS = 10;
+    public static final int BOOKED_PERCENT = 80;
+    public static final int RESERVATION_DAYS = 5;
+    public static final int SLOT_DAYS = 7;
+    public static final Calendar BASE_DATE = new GregorianCalendar(2020, Calendar.JANUARY, 6);
+
+    private static final long SEED = 168L;
+    private static final int INDEX_FETCH_SIZE = 1000;
+
+    public static final String LATEST_SCHEMA_VERSION = "latest";
+
+    @Param({"100", "1000", "10000"})
+    public int vehicles;
+
+    @Param({LATEST_SCHEMA_VERSION})
+    public String schemaVersion;
+
+    private DataSource dataSource;
+    private VehicleManager vehicleManager;
+    private CustomerManager customerManager;
+    private ReservationManager reservationManager;
+    private AvailabilityIndex index;
+
+    private long[] vehicleIds;
+    private long[] customerIds;
+    private long[] reservationIds;
+    private long[] bookedVehicleIds;
+    private long[] bookedSlots;
+
+    private final AtomicLong createdCustomers = new AtomicLong();
+    private final AtomicLong createdReservations = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        dataSource = DBUtils.getDataSource();
+        DBUtils.executeSqlScript(dataSource, DBUtils.loadSqlScript("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource, LATEST_SCHEMA_VERSION.equals(schemaVersion)
+                ? SchemaMigrator.getLatestVersion() : Integer.parseInt(schemaVersion));
+
+        vehicleManager = new VehicleManagerImpl(dataSource);
+        customerManager = new CustomerManagerImpl(dataSource);
+        reservationManager = new ReservationManagerImpl(dataSource, vehicleManager, customerManager);
+        seed(new Random(SEED));
+
+        vehicleIds = vehicleManager.getVehicleIds();
+        customerIds = customerManager.getCustomerIds();
+        reservationIds = reservationManager.getReservationIds();
+
+        index = new AvailabilityIndex();
+        index.load(reservationManager, INDEX_FETCH_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+
+        DBUtils.executeSqlScript(dataSource, DBUtils.loadSqlScript("/dropTables.sql"));
+        DBUtils.executeSqlScript(dataSource, DBUtils.loadSqlScript("/dropSchemaVersion.sql"));
+        ((BasicDataSource) dataSource).close();
+    }
+
+    private void seed(Random random) {
+
+        Vehicle.Brand[] brands = Vehicle.Brand.values();
+        List<Vehicle> newVehicles = new ArrayList<>(vehicles);
+        List<Customer> newCustomers = new ArrayList<>(vehicles);
+        for (int i = 0; i < vehicles; i++) {
+            newVehicles.add(newVehicle(brands[random.nextInt(brands.length)],
+                                       BigDecimal.valueOf(500 + random.nextInt(2000))));
+            newCustomers.add(newCustomer(i));
+        }
+        vehicleManager.createVehicles(newVehicles);
+        customerManager.createCustomers(newCustomers);
+
+        List<Reservation> newReservations = new ArrayList<>(vehicles * SEEDED_SLOTS);
+        List<long[]> booked = new ArrayList<>(vehicles * SEEDED_SLOTS);
+        for (Vehicle vehicle : newVehicles) {
+            for (int slot = 0; slot < SEEDED_SLOTS; slot++) {
+                if (random.nextInt(100) >= BOOKED_PERCENT)
+                    continue;
+                Customer customer = newCustomers.get(random.nextInt(newCustomers.size()));
+                newReservations.add(newReservation(vehicle.getId(), customer.getId(), slot));
+                booked.add(new long[] { vehicle.getId(), slot });
+            }
+        }
+        reservationManager.createReservations(newReservations);
+
+        bookedVehicleIds = new long[booked.size()];
+        bookedSlots = new long[booked.size()];
+        for (int i = 0; i < booked.size(); i++) {
+            bookedVehicleIds[i] = booked.get(i)[0];
+            bookedSlots[i] = booked.get(i)[1];
+        }
+    }
+
+    public static Vehicle newVehicle(Vehicle.Brand brand, BigDecimal price) {
+        return new Vehicle(null, price, brand);
+    }
+
+    public static Customer newCustomer(long number) {
+        return new Customer(null, "Customer " + number, "Street " + number,
+                            "+420 " + number, "c" + number + "@rent.cz");
+    }
+
+    /**
+     * Creates a reservation of the given vehicle for the given one week slot,
+     * the reservation takes {@link #RESERVATION_DAYS} days of the slot.
+     */
+    public static Reservation newReservation(long vehicleId, long customerId, long slot) {
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setId(vehicleId);
+        Customer customer = new Customer();
+        customer.setId(customerId);
+
+        Reservation reservation = new Reservation();
+        reservation.setVehicle(vehicle);
+        reservation.setCustomer(customer);
+        reservation.setStartDate(slotStart(slot));
+        reservation.setEndDate(slotEnd(slot));
+        reservation.setInfo("benchmark");
+        return reservation;
+    }
+
+    public static Calendar slotStart(long slot) {
+        Calendar start = (Calendar) BASE_DATE.clone();
+        start.add(Calendar.DAY_OF_MONTH, (int) (slot * SLOT_DAYS));
+        return start;
+    }
+
+    public static Calendar slotEnd(long slot) {
+        Calendar end = slotStart(slot);
+        end.add(Calendar.DAY_OF_MONTH, RESERVATION_DAYS);
+        return end;
+    }
+
+    public VehicleManager getVehicleManager() {
+        return vehicleManager;
+    }
+
+    public CustomerManager getCustomerManager() {
+        return customerManager;
+    }
+
+    public ReservationManager getReservationManager() {
+        return reservationManager;
+    }
+
+    public AvailabilityIndex getIndex() {
+        return index;
+    }
+
+    public long randomVehicleId() {
+        return vehicleIds[ThreadLocalRandom.current().nextInt(vehicleIds.length)];
+    }
+
+    public long randomCustomerId() {
+        return customerIds[ThreadLocalRandom.current().nextInt(customerIds.length)];
+    }
+
+    public long randomReservationId() {
+        return reservationIds[ThreadLocalRandom.current().nextInt(reservationIds.length)];
+    }
+
+    /**
+     * Returns a random one of the seeded slots.
+     */
+    public long randomSlot() {
+        return ThreadLocalRandom.current().nextInt(SEEDED_SLOTS);
+    }
+
+    public Customer nextCustomer() {
+        return newCustomer(vehicles + createdCustomers.getAndIncrement());
+    }
+
+    /**
+     * Returns a reservation which does not collide with any other one, the
+     * vehicles get the slots after the seeded ones in turns.
+     */
+    public Reservation nextFreeReservation() {
+        long number = createdReservations.getAndIncrement();
+        long vehicleId = vehicleIds[(int) (number % vehicleIds.length)];
+        long slot = SEEDED_SLOTS + number / vehicleIds.length;
+        return newReservation(vehicleId, randomCustomerId(), slot);
+    }
+
+    /**
+     * Returns a new reservation of a random vehicle for a slot the vehicle is
+     * already booked for.
+     */
+    public Reservation nextCollidingReservation() {
+        int booked = ThreadLocalRandom.current().nextInt(bookedVehicleIds.length);
+        return newReservation(bookedVehicleIds[booked], randomCustomerId(), bookedSlots[booked]);
+    }
+}
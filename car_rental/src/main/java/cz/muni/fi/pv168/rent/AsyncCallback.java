@@ -0,0 +1,15 @@
+package cz.muni.fi.pv168.rent;
+
+/**
+ * Receives the outcome of an asynchronous manager call. Methods are called
+ * on the worker thread which ran the call, Swing code has to move back to 
+ * the event dispatch thread itself.
+ *
+ * @param <T> type of the call result
+ */
+public interface AsyncCallback<T> {
+    
+    public void onSuccess(T result);
+    
+    public void onFailure(Throwable cause);
+}
@@ -0,0 +1,113 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous variant of {@link CustomerManager}, the calls behave as the ones of
+ * {@link AsyncReservationManager}.
+ */
+public class AsyncCustomerManager {
+    
+    private final CustomerManager manager;
+    private final AsyncExecutor executor;
+
+    public AsyncCustomerManager(CustomerManager manager, AsyncExecutor executor) {
+        if (manager == null || executor == null)
+            throw new IllegalArgumentException("Manager and executor can not be null.");
+        this.manager = manager;
+        this.executor = executor;
+    }
+
+    public CustomerManager getManager() {
+        return manager;
+    }
+
+    public Future<Void> createCustomer(final Customer customer, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.createCustomer(customer);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> createCustomers(final Collection<Customer> customers, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.createCustomers(customers);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> deleteCustomer(final Customer customer, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.deleteCustomer(customer);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> updateCustomer(final Customer customer, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.updateCustomer(customer);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Customer> getCustomerById(final Long id, AsyncCallback<? super Customer> callback) {
+        return executor.submit(new Callable<Customer>() {
+            @Override
+            public Customer call() {
+                return manager.getCustomerById(id);
+            }
+        }, callback);
+    }
+
+    public Future<Collection<Customer>> getAllCustomers(AsyncCallback<? super Collection<Customer>> callback) {
+        return executor.submit(new Callable<Collection<Customer>>() {
+            @Override
+            public Collection<Customer> call() {
+                return manager.getAllCustomers();
+            }
+        }, callback);
+    }
+
+    public Future<List<Customer>> getCustomersPage(final Long afterId, final int pageSize, AsyncCallback<? super List<Customer>> callback) {
+        return executor.submit(new Callable<List<Customer>>() {
+            @Override
+            public List<Customer> call() {
+                return manager.getCustomersPage(afterId, pageSize);
+            }
+        }, callback);
+    }
+
+    public Future<long[]> getCustomerIds(AsyncCallback<? super long[]> callback) {
+        return executor.submit(new Callable<long[]>() {
+            @Override
+            public long[] call() {
+                return manager.getCustomerIds();
+            }
+        }, callback);
+    }
+
+    public Future<Void> forEachCustomer(final EntityCallback<Customer> entityCallback, final int fetchSize, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.forEachCustomer(entityCallback, fetchSize);
+                return null;
+            }
+        }, callback);
+    }
+}
@@ -0,0 +1,124 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of worker threads running manager calls in the background.
+ * The pool never grows over the configured number of threads and queues at
+ * most the configured number of calls, calls over the limit are rejected
+ * with <code>RejectedExecutionException</code> instead of starting new
+ * threads.
+ */
+public final class AsyncExecutor {
+    
+    public final static org.slf4j.Logger logger = 
+            LoggerFactory.getLogger(AsyncExecutor.class.getName());
+    
+    private final ThreadPoolExecutor executor;
+    
+    /**
+     * @param threads       maximal number of calls running at once, should 
+     *                      not exceed the size of the connection pool
+     * @param queueCapacity maximal number of calls waiting for a thread
+     */
+    public AsyncExecutor(int threads, int queueCapacity) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive : " + threads);
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("Queue capacity must be positive : " + queueCapacity);
+        
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, 
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new WorkerThreadFactory(), 
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+    
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+    
+    public int getQueueCapacity() {
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+    
+    /**
+     * Runs the call on a worker thread. The callback, if not 
+     * <code>null</code>, gets the result or the exception thrown by the call 
+     * unless the returned future is cancelled.
+     *
+     * @throws RejectedExecutionException if the queue is full or the executor
+     *                                    was shut down
+     */
+    public <T> Future<T> submit(Callable<T> call, final AsyncCallback<? super T> callback) {
+        if (call == null)
+            throw new IllegalArgumentException("Call can not be null.");
+        
+        FutureTask<T> future = new FutureTask<T>(call) {
+            @Override
+            protected void done() {
+                if (callback == null || isCancelled())
+                    return;
+                T result;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    callback.onFailure(e.getCause());
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                callback.onSuccess(result);
+            }
+        };
+        executor.execute(future);
+        return future;
+    }
+    
+    /**
+     * Runs a task, e.g. a <code>SwingWorker</code>, on a worker thread.
+     *
+     * @throws RejectedExecutionException if the queue is full or the executor
+     *                                    was shut down
+     */
+    public void execute(Runnable task) {
+        if (task == null)
+            throw new IllegalArgumentException("Task can not be null.");
+        executor.execute(task);
+    }
+    
+    /**
+     * Stops accepting new calls, calls already submitted are finished.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+    
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        
+        private static final AtomicInteger pools = new AtomicInteger();
+        private final int pool = pools.incrementAndGet();
+        private final AtomicInteger threads = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "rent-async-" + pool + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
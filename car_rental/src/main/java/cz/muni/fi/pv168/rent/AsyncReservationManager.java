@@ -0,0 +1,154 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous variant of {@link ReservationManager}. Every call runs on the
+ * threads of the given {@link AsyncExecutor} and returns a future of its
+ * result, the optional callback is notified when the call completes.
+ * Calls fail fast with <code>RejectedExecutionException</code> when the
+ * executor is saturated.
+ */
+public class AsyncReservationManager {
+    
+    private final ReservationManager manager;
+    private final AsyncExecutor executor;
+
+    public AsyncReservationManager(ReservationManager manager, AsyncExecutor executor) {
+        if (manager == null || executor == null)
+            throw new IllegalArgumentException("Manager and executor can not be null.");
+        this.manager = manager;
+        this.executor = executor;
+    }
+
+    public ReservationManager getManager() {
+        return manager;
+    }
+
+    public Future<Void> createReservation(final Reservation reservation, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.createReservation(reservation);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> createReservations(final Collection<Reservation> reservations, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.createReservations(reservations);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> deleteReservation(final Reservation reservation, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.deleteReservation(reservation);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> updateReservation(final Reservation reservation, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.updateReservation(reservation);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Reservation> getReservationById(final Long id, AsyncCallback<? super Reservation> callback) {
+        return executor.submit(new Callable<Reservation>() {
+            @Override
+            public Reservation call() {
+                return manager.getReservationById(id);
+            }
+        }, callback);
+    }
+
+    public Future<Collection<Reservation>> getReservationsByVehicle(final Vehicle vehicle, AsyncCallback<? super Collection<Reservation>> callback) {
+        return executor.submit(new Callable<Collection<Reservation>>() {
+            @Override
+            public Collection<Reservation> call() {
+                return manager.getReservationsByVehicle(vehicle);
+            }
+        }, callback);
+    }
+
+    public Future<Collection<Reservation>> getReservationByCustomer(final Customer customer, AsyncCallback<? super Collection<Reservation>> callback) {
+        return executor.submit(new Callable<Collection<Reservation>>() {
+            @Override
+            public Collection<Reservation> call() {
+                return manager.getReservationByCustomer(customer);
+            }
+        }, callback);
+    }
+
+    public Future<Collection<Reservation>> getAllReservations(AsyncCallback<? super Collection<Reservation>> callback) {
+        return executor.submit(new Callable<Collection<Reservation>>() {
+            @Override
+            public Collection<Reservation> call() {
+                return manager.getAllReservations();
+            }
+        }, callback);
+    }
+
+    public Future<List<Reservation>> getReservationsPage(final Long afterId, final int pageSize, AsyncCallback<? super List<Reservation>> callback) {
+        return executor.submit(new Callable<List<Reservation>>() {
+            @Override
+            public List<Reservation> call() {
+                return manager.getReservationsPage(afterId, pageSize);
+            }
+        }, callback);
+    }
+
+    public Future<long[]> getReservationIds(AsyncCallback<? super long[]> callback) {
+        return executor.submit(new Callable<long[]>() {
+            @Override
+            public long[] call() {
+                return manager.getReservationIds();
+            }
+        }, callback);
+    }
+
+    public Future<Void> forEachReservation(final EntityCallback<Reservation> entityCallback, final int fetchSize, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.forEachReservation(entityCallback, fetchSize);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Collection<Vehicle>> getAvaibleVehicle(AsyncCallback<? super Collection<Vehicle>> callback) {
+        return executor.submit(new Callable<Collection<Vehicle>>() {
+            @Override
+            public Collection<Vehicle> call() {
+                return manager.getAvaibleVehicle();
+            }
+        }, callback);
+    }
+
+    public Future<List<Vehicle>> findAvailableVehicles(final Calendar start, final Calendar end, final Vehicle.Brand brand, final BigDecimal maxPrice, AsyncCallback<? super List<Vehicle>> callback) {
+        return executor.submit(new Callable<List<Vehicle>>() {
+            @Override
+            public List<Vehicle> call() {
+                return manager.findAvailableVehicles(start, end, brand, maxPrice);
+            }
+        }, callback);
+    }
+}
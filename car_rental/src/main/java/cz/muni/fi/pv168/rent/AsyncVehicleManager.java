@@ -0,0 +1,113 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous variant of {@link VehicleManager}, the calls behave as the ones of
+ * {@link AsyncReservationManager}.
+ */
+public class AsyncVehicleManager {
+    
+    private final VehicleManager manager;
+    private final AsyncExecutor executor;
+
+    public AsyncVehicleManager(VehicleManager manager, AsyncExecutor executor) {
+        if (manager == null || executor == null)
+            throw new IllegalArgumentException("Manager and executor can not be null.");
+        this.manager = manager;
+        this.executor = executor;
+    }
+
+    public VehicleManager getManager() {
+        return manager;
+    }
+
+    public Future<Void> createVehicle(final Vehicle vehicle, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.createVehicle(vehicle);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> createVehicles(final Collection<Vehicle> vehicles, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.createVehicles(vehicles);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> deleteVehicle(final Vehicle vehicle, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.deleteVehicle(vehicle);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> updateVehicle(final Vehicle vehicle, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.updateVehicle(vehicle);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Vehicle> getVehicleById(final Long id, AsyncCallback<? super Vehicle> callback) {
+        return executor.submit(new Callable<Vehicle>() {
+            @Override
+            public Vehicle call() {
+                return manager.getVehicleById(id);
+            }
+        }, callback);
+    }
+
+    public Future<Collection<Vehicle>> getAllVehicles(AsyncCallback<? super Collection<Vehicle>> callback) {
+        return executor.submit(new Callable<Collection<Vehicle>>() {
+            @Override
+            public Collection<Vehicle> call() {
+                return manager.getAllVehicles();
+            }
+        }, callback);
+    }
+
+    public Future<List<Vehicle>> getVehiclesPage(final Long afterId, final int pageSize, AsyncCallback<? super List<Vehicle>> callback) {
+        return executor.submit(new Callable<List<Vehicle>>() {
+            @Override
+            public List<Vehicle> call() {
+                return manager.getVehiclesPage(afterId, pageSize);
+            }
+        }, callback);
+    }
+
+    public Future<long[]> getVehicleIds(AsyncCallback<? super long[]> callback) {
+        return executor.submit(new Callable<long[]>() {
+            @Override
+            public long[] call() {
+                return manager.getVehicleIds();
+            }
+        }, callback);
+    }
+
+    public Future<Void> forEachVehicle(final EntityCallback<Vehicle> entityCallback, final int fetchSize, AsyncCallback<? super Void> callback) {
+        return executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                manager.forEachVehicle(entityCallback, fetchSize);
+                return null;
+            }
+        }, callback);
+    }
+}
@@ -0,0 +1,275 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of reservation intervals answering whether a vehicle is
+ * free in a date range. Every vehicle keeps its reservations in arrays sorted
+ * by start together with the running maximum of their ends, so a query is
+ * one binary search, i.e. O(log n) in the number of reservations of the 
+ * vehicle. Adding or removing a reservation is O(n) for the vehicle.
+ * <p>
+ * A vehicle is free if a new reservation would pass the overlap check of
+ * {@link ReservationManagerImpl#createReservation}: a reservation 
+ * <code>[a, b]</code> collides with <code>[start, end]</code> if 
+ * <code>a &lt;= end</code> and either <code>a &gt;= start</code> or 
+ * <code>b &gt; start</code>. Vehicles without reservations are always free.
+ * <p>
+ * The index is thread safe, queries may run concurrently.
+ */
+public final class AvailabilityIndex {
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Timeline> timelines = new HashMap<>();
+    private final Map<Long, long[]> reservations = new HashMap<>();
+    
+    /**
+     * Replaces the content of the index with all reservations of the manager.
+     */
+    public void load(ReservationManager manager, int fetchSize) {
+        if (manager == null)
+            throw new IllegalArgumentException("ReservationManager can not be null.");
+        
+        final AvailabilityIndex loaded = new AvailabilityIndex();
+        manager.forEachReservation(new EntityCallback<Reservation>() {
+            @Override
+            public void process(Reservation reservation) {
+                loaded.add(reservation);
+            }
+        }, fetchSize);
+        
+        lock.writeLock().lock();
+        try {
+            timelines.clear();
+            timelines.putAll(loaded.timelines);
+            reservations.clear();
+            reservations.putAll(loaded.reservations);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds a stored reservation, an older version of it is replaced.
+     */
+    public void add(Reservation reservation) {
+        if (reservation == null || reservation.getId() == null)
+            throw new IllegalArgumentException("Indexed reservation must have an id.");
+        if (reservation.getVehicle() == null || reservation.getVehicle().getId() == null)
+            throw new IllegalArgumentException("Indexed reservation must have a vehicle with id.");
+        if (reservation.getStartDate() == null || reservation.getEndDate() == null)
+            throw new IllegalArgumentException("Indexed reservation must have start and end date.");
+        
+        long vehicle = reservation.getVehicle().getId();
+        long start = reservation.getStartDate().getTimeInMillis();
+        long end = reservation.getEndDate().getTimeInMillis();
+        
+        lock.writeLock().lock();
+        try {
+            removeLocked(reservation.getId());
+            Timeline timeline = timelines.get(vehicle);
+            if (timeline == null) {
+                timeline = new Timeline();
+                timelines.put(vehicle, timeline);
+            }
+            timeline.add(reservation.getId(), start, end);
+            reservations.put(reservation.getId(), new long[] { vehicle, start });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes reservation with the given id, returns false if it was not indexed.
+     */
+    public boolean remove(Long reservationId) {
+        if (reservationId == null)
+            throw new IllegalArgumentException("Reservation id can not be null.");
+        
+        lock.writeLock().lock();
+        try {
+            return removeLocked(reservationId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            timelines.clear();
+            reservations.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns number of indexed reservations.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return reservations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean isAvailable(Long vehicleId, Calendar start, Calendar end) {
+        if (vehicleId == null)
+            throw new IllegalArgumentException("Vehicle id can not be null.");
+        checkRange(start, end);
+        
+        lock.readLock().lock();
+        try {
+            Timeline timeline = timelines.get(vehicleId);
+            return timeline == null 
+                    || !timeline.collides(start.getTimeInMillis(), end.getTimeInMillis());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns vehicles from the given collection which are free in the range,
+     * in the order of the collection.
+     */
+    public List<Vehicle> filterAvailable(Collection<Vehicle> vehicles, Calendar start, Calendar end) {
+        if (vehicles == null)
+            throw new IllegalArgumentException("Vehicles can not be null.");
+        checkRange(start, end);
+        
+        long from = start.getTimeInMillis();
+        long to = end.getTimeInMillis();
+        List<Vehicle> available = new ArrayList<>();
+        
+        lock.readLock().lock();
+        try {
+            for (Vehicle vehicle : vehicles) {
+                Timeline timeline = timelines.get(vehicle.getId());
+                if (timeline == null || !timeline.collides(from, to))
+                    available.add(vehicle);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return available;
+    }
+    
+    private static void checkRange(Calendar start, Calendar end) {
+        if (start == null || end == null)
+            throw new IllegalArgumentException("Start and end date can not be null.");
+        if (start.compareTo(end) > 0)
+            throw new IllegalArgumentException("End date is before start date.");
+    }
+    
+    private boolean removeLocked(Long reservationId) {
+        long[] location = reservations.remove(reservationId);
+        if (location == null)
+            return false;
+        
+        Timeline timeline = timelines.get(location[0]);
+        timeline.remove(reservationId, location[1]);
+        if (timeline.size == 0)
+            timelines.remove(location[0]);
+        return true;
+    }
+    
+    /**
+     * Reservations of one vehicle sorted by start, <code>maxEnds[i]</code> 
+     * is the latest end among the first i + 1 of them.
+     */
+    private static final class Timeline {
+        
+        private long[] ids = new long[4];
+        private long[] starts = new long[4];
+        private long[] ends = new long[4];
+        private long[] maxEnds = new long[4];
+        private int size;
+        
+        void add(long id, long start, long end) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                maxEnds = Arrays.copyOf(maxEnds, capacity);
+            }
+            int position = firstStartAfter(start);
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(starts, position, starts, position + 1, size - position);
+            System.arraycopy(ends, position, ends, position + 1, size - position);
+            ids[position] = id;
+            starts[position] = start;
+            ends[position] = end;
+            size++;
+            updateMaxEnds(position);
+        }
+        
+        void remove(long id, long start) {
+            int position = firstStartAtLeast(start);
+            while (ids[position] != id) {
+                position++;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(starts, position + 1, starts, position, size - position - 1);
+            System.arraycopy(ends, position + 1, ends, position, size - position - 1);
+            size--;
+            updateMaxEnds(position);
+        }
+        
+        /**
+         * Reservations starting within [start, end] collide, so do the ones
+         * starting earlier if the latest of their ends is after start.
+         */
+        boolean collides(long start, long end) {
+            int first = firstStartAtLeast(start);
+            if (first < size && starts[first] <= end)
+                return true;
+            return first > 0 && maxEnds[first - 1] > start;
+        }
+        
+        private void updateMaxEnds(int from) {
+            long max = from > 0 ? maxEnds[from - 1] : Long.MIN_VALUE;
+            for (int i = from; i < size; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+        
+        private int firstStartAtLeast(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < value)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+        
+        private int firstStartAfter(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= value)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+    }
+}
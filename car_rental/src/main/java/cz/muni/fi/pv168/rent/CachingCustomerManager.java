@@ -0,0 +1,108 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-through cache in front of another customer manager. Customers loaded by
+ * <code>getCustomerById</code> are kept in an {@link EntityCache}, updates and
+ * deletes made through this manager invalidate them. Changes made to the
+ * database by other means are seen only after the entity expires.
+ * The cache holds its own copies, so callers may modify returned customers.
+ */
+public class CachingCustomerManager implements CustomerManager {
+    
+    private final CustomerManager delegate;
+    private final EntityCache<Customer> cache;
+
+    public CachingCustomerManager(CustomerManager delegate, int maxSize, long timeToLiveMillis) {
+        if (delegate == null)
+            throw new IllegalArgumentException("CustomerManager can not be null.");
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(maxSize, timeToLiveMillis);
+    }
+
+    public CustomerManager getDelegate() {
+        return delegate;
+    }
+
+    public EntityCache<Customer> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void createCustomer(Customer customer) {
+        delegate.createCustomer(customer);
+    }
+
+    @Override
+    public void createCustomers(Collection<Customer> customers) {
+        delegate.createCustomers(customers);
+    }
+
+    @Override
+    public void deleteCustomer(Customer customer) {
+        try {
+            delegate.deleteCustomer(customer);
+        } finally {
+            if (customer != null && customer.getId() != null)
+                cache.invalidate(customer.getId());
+        }
+    }
+
+    @Override
+    public void updateCustomer(Customer customer) {
+        try {
+            delegate.updateCustomer(customer);
+        } finally {
+            if (customer != null && customer.getId() != null)
+                cache.invalidate(customer.getId());
+        }
+    }
+
+    @Override
+    public Customer getCustomerById(Long id) {
+        if (id == null)
+            return delegate.getCustomerById(id);
+        
+        Customer customer = cache.get(id);
+        if (customer == null) {
+            customer = delegate.getCustomerById(id);
+            if (customer == null)
+                return null;
+            cache.put(id, copyOf(customer));
+            return customer;
+        }
+        return copyOf(customer);
+    }
+
+    @Override
+    public Collection<Customer> getAllCustomers() {
+        return delegate.getAllCustomers();
+    }
+
+    @Override
+    public List<Customer> getCustomersPage(Long afterId, int pageSize) {
+        return delegate.getCustomersPage(afterId, pageSize);
+    }
+
+    @Override
+    public long[] getCustomerIds() {
+        return delegate.getCustomerIds();
+    }
+
+    @Override
+    public long[] getCustomerIds(Long afterId) {
+        return delegate.getCustomerIds(afterId);
+    }
+
+    @Override
+    public void forEachCustomer(EntityCallback<Customer> callback, int fetchSize) {
+        delegate.forEachCustomer(callback, fetchSize);
+    }
+    
+    private static Customer copyOf(Customer customer) {
+        return new Customer(customer.getId(), customer.getName(), customer.getAddress(), 
+                customer.getPhone(), customer.getEmail());
+    }
+}
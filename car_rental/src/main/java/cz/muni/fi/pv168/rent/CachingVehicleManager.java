@@ -0,0 +1,107 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-through cache in front of another vehicle manager. Vehicles loaded by
+ * <code>getVehicleById</code> are kept in an {@link EntityCache}, updates and
+ * deletes made through this manager invalidate them. Changes made to the
+ * database by other means are seen only after the entity expires.
+ * The cache holds its own copies, so callers may modify returned vehicles.
+ */
+public class CachingVehicleManager implements VehicleManager {
+    
+    private final VehicleManager delegate;
+    private final EntityCache<Vehicle> cache;
+
+    public CachingVehicleManager(VehicleManager delegate, int maxSize, long timeToLiveMillis) {
+        if (delegate == null)
+            throw new IllegalArgumentException("VehicleManager can not be null.");
+        this.delegate = delegate;
+        this.cache = new EntityCache<>(maxSize, timeToLiveMillis);
+    }
+
+    public VehicleManager getDelegate() {
+        return delegate;
+    }
+
+    public EntityCache<Vehicle> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void createVehicle(Vehicle vehicle) {
+        delegate.createVehicle(vehicle);
+    }
+
+    @Override
+    public void createVehicles(Collection<Vehicle> vehicles) {
+        delegate.createVehicles(vehicles);
+    }
+
+    @Override
+    public void deleteVehicle(Vehicle vehicle) {
+        try {
+            delegate.deleteVehicle(vehicle);
+        } finally {
+            if (vehicle != null && vehicle.getId() != null)
+                cache.invalidate(vehicle.getId());
+        }
+    }
+
+    @Override
+    public void updateVehicle(Vehicle vehicle) {
+        try {
+            delegate.updateVehicle(vehicle);
+        } finally {
+            if (vehicle != null && vehicle.getId() != null)
+                cache.invalidate(vehicle.getId());
+        }
+    }
+
+    @Override
+    public Vehicle getVehicleById(Long id) {
+        if (id == null)
+            return delegate.getVehicleById(id);
+        
+        Vehicle vehicle = cache.get(id);
+        if (vehicle == null) {
+            vehicle = delegate.getVehicleById(id);
+            if (vehicle == null)
+                return null;
+            cache.put(id, copyOf(vehicle));
+            return vehicle;
+        }
+        return copyOf(vehicle);
+    }
+
+    @Override
+    public Collection<Vehicle> getAllVehicles() {
+        return delegate.getAllVehicles();
+    }
+
+    @Override
+    public List<Vehicle> getVehiclesPage(Long afterId, int pageSize) {
+        return delegate.getVehiclesPage(afterId, pageSize);
+    }
+
+    @Override
+    public long[] getVehicleIds() {
+        return delegate.getVehicleIds();
+    }
+
+    @Override
+    public long[] getVehicleIds(Long afterId) {
+        return delegate.getVehicleIds(afterId);
+    }
+
+    @Override
+    public void forEachVehicle(EntityCallback<Vehicle> callback, int fetchSize) {
+        delegate.forEachVehicle(callback, fetchSize);
+    }
+    
+    private static Vehicle copyOf(Vehicle vehicle) {
+        return new Vehicle(vehicle.getId(), vehicle.getPrice(), vehicle.getBrand());
+    }
+}
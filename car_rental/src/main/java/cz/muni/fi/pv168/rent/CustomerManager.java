@@ -1,11 +1,18 @@
 package cz.muni.fi.pv168.rent;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface CustomerManager {
     
     public void createCustomer(Customer customer);
     
+    /**
+     * Creates all customers in one transaction using JDBC batches and assigns
+     * them their generated ids. Nothing is created if any of them is invalid.
+     */
+    public void createCustomers(Collection<Customer> customers);
+    
     public void deleteCustomer(Customer customer);
     
     public void updateCustomer(Customer customer);
@@ -13,4 +20,30 @@ public interface CustomerManager {
     public Customer getCustomerById(Long id);
     
     public Collection<Customer> getAllCustomers();
+    
+    /**
+     * Returns at most <code>pageSize</code> customers with id greater than
+     * <code>afterId</code> ordered by id. Pass <code>null</code> for the first
+     * page and the id of the last returned customer for the next one.
+     */
+    public List<Customer> getCustomersPage(Long afterId, int pageSize);
+    
+    /**
+     * Returns ids of all customers in ascending order.
+     */
+    public long[] getCustomerIds();
+    
+    /**
+     * Returns ids of the customers with id greater than <code>afterId</code> 
+     * in ascending order, all ids for <code>null</code>. Reads only the end 
+     * of the primary key index, e.g. to find customers added since.
+     */
+    public long[] getCustomerIds(Long afterId);
+    
+    /**
+     * Passes every customer to the callback, reading the table through a
+     * forward-only cursor with the given fetch size. The connection is 
+     * released when the method returns.
+     */
+    public void forEachCustomer(EntityCallback<Customer> callback, int fetchSize);
 }
@@ -9,7 +9,10 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.sql.DataSource;
@@ -23,6 +26,7 @@ public final class CustomerManagerImpl implements CustomerManager {
     java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("Strings");
     
     private DataSource dataSource;
+    private int batchSize = DBUtils.DEFAULT_BATCH_SIZE;
     
     public CustomerManagerImpl(DataSource dataSource) {
         this.dataSource = dataSource;
@@ -36,6 +40,19 @@ public final class CustomerManagerImpl implements CustomerManager {
         this.dataSource = dataSource;
     }     
     
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of rows sent in one JDBC batch by {@link #createCustomers(Collection)}.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be positive.");
+        this.batchSize = batchSize;
+    }
+    
     private void checkDataSource() {
         if (dataSource == null) {
             throw new IllegalStateException("DataSource is not set.");
@@ -49,35 +66,7 @@ public final class CustomerManagerImpl implements CustomerManager {
         final String query = "INSERT INTO Customer (Name, Address, Phone, Email)" +
                              "VALUES (?, ?, ?, ?)";
         
-        if(customer == null)
-            throw new IllegalArgumentException(bundle.getString("ExNullCustomer"));  //("Customer can not be null.");
-        
-        if(customer.getId() != null)
-            throw new IllegalArgumentException(bundle.getString("ExCustomerId"));    //("Customer id can not be already assigned.");
-        
-        if(customer.getName() == null)
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerName"));  //("Customer name can not be null.");
-        
-        if(customer.getName().isEmpty())
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerName"));  //("Customer name can not be empty.");
-        
-        if(customer.getAddress() == null)
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerAddress"));//("Customer address can not be null.");
-        
-        if(customer.getAddress().isEmpty())
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerAddress"));//("Customer address can not be empty.");
-                
-        if(customer.getPhone() == null)
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerPhone"));//("Customer phone can not be null.");
-        
-        if(customer.getPhone().isEmpty())
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerPhone"));//("Customer phone can not be empty.");
-        
-        if(customer.getEmail() == null)
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerEmail"));//("Customer email can not be null.");
-        
-        if(customer.getEmail().isEmpty())
-            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerEmail"));//("Customer email can not be empty.");
+        validateNewCustomer(customer);
                 
         Connection connection = null;        
         PreparedStatement statement = null;
@@ -129,6 +118,114 @@ public final class CustomerManagerImpl implements CustomerManager {
         }
     }
     
+    private void validateNewCustomer(Customer customer) {
+        
+        if(customer == null)
+            throw new IllegalArgumentException(bundle.getString("ExNullCustomer"));  //("Customer can not be null.");
+        
+        if(customer.getId() != null)
+            throw new IllegalArgumentException(bundle.getString("ExCustomerId"));    //("Customer id can not be already assigned.");
+        
+        if(customer.getName() == null)
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerName"));  //("Customer name can not be null.");
+        
+        if(customer.getName().isEmpty())
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerName"));  //("Customer name can not be empty.");
+        
+        if(customer.getAddress() == null)
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerAddress"));//("Customer address can not be null.");
+        
+        if(customer.getAddress().isEmpty())
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerAddress"));//("Customer address can not be empty.");
+                
+        if(customer.getPhone() == null)
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerPhone"));//("Customer phone can not be null.");
+        
+        if(customer.getPhone().isEmpty())
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerPhone"));//("Customer phone can not be empty.");
+        
+        if(customer.getEmail() == null)
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerEmail"));//("Customer email can not be null.");
+        
+        if(customer.getEmail().isEmpty())
+            throw new IllegalArgumentException(bundle.getString("ExEmptyCustomerEmail"));//("Customer email can not be empty.");
+    }
+    
+    @Override
+    public void createCustomers(Collection<Customer> customers) {
+        
+        checkDataSource();
+        final String query = "INSERT INTO Customer (Name, Address, Phone, Email)" +
+                             "VALUES (?, ?, ?, ?)";
+        
+        if (customers == null)
+            throw new IllegalArgumentException("Customers can not be null.");
+        
+        Set<Customer> unique = Collections.newSetFromMap(new IdentityHashMap<Customer, Boolean>());
+        for (Customer customer : customers) {
+            validateNewCustomer(customer);
+            if (!unique.add(customer))
+                throw new IllegalArgumentException("Customer is listed more than once : " + customer.toString());
+        }
+        
+        if (customers.isEmpty())
+            return;
+        
+        Connection connection = null;        
+        PreparedStatement statement = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+                DBUtils.lockTableExclusively(connection, "Customer");
+                statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+                
+                List<Customer> chunk = new ArrayList<>(Math.min(batchSize, customers.size()));
+                for (Customer customer : customers) {
+                    statement.setString(1, customer.getName());
+                    statement.setString(2, customer.getAddress());
+                    statement.setString(3, customer.getPhone());
+                    statement.setString(4, customer.getEmail());
+                    statement.addBatch();
+                    chunk.add(customer);
+                    
+                    if (chunk.size() == batchSize) {
+                        assignIds(chunk, DBUtils.executeInsertBatch(statement, "Customer", chunk.size()));
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    assignIds(chunk, DBUtils.executeInsertBatch(statement, "Customer", chunk.size()));
+                }
+                
+                connection.commit();
+                logger.debug("{} customers {}.", customers.size(), bundle.getString("AddedInDB"));
+                connection.setAutoCommit(true);
+            
+        } catch (SQLException e) {          
+            
+                for (Customer customer : customers) {
+                    customer.setId(null);
+                }
+                String message = bundle.getString("ExDbInsertErr1") + " " + customers.size() + " " + bundle.getString("ExDbInsertErr2") + " " + e.getMessage();                
+                logger.warn(message, e);                
+                throw new ServiceFailureException(message, e);  
+                
+        } finally {
+            
+                DBUtils.closeQuietly(statement);             
+                DBUtils.rollbackAndCloseQuietly(connection);
+            
+        }
+    }
+    
+    private static void assignIds(List<Customer> customers, long[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            customers.get(i).setId(ids[i]);
+        }
+    }
+    
     @Override
     public void deleteCustomer(Customer customer) {
         
@@ -361,4 +458,118 @@ public final class CustomerManagerImpl implements CustomerManager {
             
         } 
     }             
+
+    @Override
+    public List<Customer> getCustomersPage(Long afterId, int pageSize) {
+        
+        checkDataSource();
+        final String query = "SELECT * FROM Customer WHERE Id > ? ORDER BY Id FETCH FIRST ? ROWS ONLY";
+        
+        if (afterId != null && afterId < 0L)
+            throw new IllegalArgumentException("Customer id can not be negative.");
+        
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("Page size must be positive.");
+        
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet rset = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();            
+                statement = connection.prepareStatement(query);            
+                statement.setLong(1, afterId == null ? 0L : afterId);
+                statement.setInt(2, pageSize);
+                rset = statement.executeQuery();   
+                List<Customer> page = new ArrayList<>(Math.min(pageSize, 1024));
+                while(rset.next()) {                
+                    page.add(DBUtils.resultSetToCustomer(rset));
+                }                                                  
+                return page;  
+                
+        } catch (SQLException e) {
+            
+                String message = bundle.getString("ExGettingFromDb") + " : " + e.getMessage();                
+                logger.warn(message, e);             
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(rset);
+                DBUtils.closeQuietly(statement);             
+                DBUtils.closeQuietly(connection);
+            
+        } 
+    }
+    
+    @Override
+    public long[] getCustomerIds() {
+        return getCustomerIds(null);
+    }
+    
+    @Override
+    public long[] getCustomerIds(Long afterId) {
+        
+        checkDataSource();
+        Connection connection = null;
+        try {
+            
+                connection = dataSource.getConnection();
+                return DBUtils.selectIds(connection, "Customer", afterId);
+                
+        } catch (SQLException e) {
+            
+                String message = "Error when getting customer ids from database : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(connection);
+            
+        }
+    }
+    
+    @Override
+    public void forEachCustomer(EntityCallback<Customer> callback, int fetchSize) {
+        
+        checkDataSource();
+        final String query = "SELECT * FROM Customer";
+        
+        if (callback == null)
+            throw new IllegalArgumentException("Callback can not be null.");
+        
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("Fetch size must be positive.");
+        
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet rset = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();            
+                statement = connection.prepareStatement(query, 
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);            
+                statement.setFetchSize(fetchSize);
+                rset = statement.executeQuery();   
+                while(rset.next()) {                
+                    callback.process(DBUtils.resultSetToCustomer(rset));
+                }                                                  
+                
+        } catch (SQLException e) {
+            
+                String message = bundle.getString("ExGettingFromDb") + " : " + e.getMessage();                
+                logger.warn(message, e);             
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(rset);
+                DBUtils.closeQuietly(statement);             
+                DBUtils.closeQuietly(connection);
+            
+        } 
+    }
 }
@@ -7,9 +7,11 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.URL;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.Set;
 import javax.sql.DataSource;
@@ -21,12 +23,26 @@ public final class DBUtils {
     public final static org.slf4j.Logger logger = 
             LoggerFactory.getLogger("cz.muni.fi.pv168.rent.Error");   
     
+    /**
+     * Number of rows sent to the database in one JDBC batch by the bulk 
+     * create methods of the managers.
+     */
+    public final static int DEFAULT_BATCH_SIZE = 500;
+    
     public static DataSource getDataSource() {                   
         BasicDataSource dataSource = new BasicDataSource();     
         dataSource.setUrl("jdbc:derby:memory:vehiclemgr-test;create=true");                
         return dataSource;                                                  
     }
     
+    /**
+     * Creates a pooled data source from the properties resource, see 
+     * {@link #configurePool} for the optional pool settings. When the key
+     * <code>SlowQueryThresholdMillis</code> is present the pool is wrapped in
+     * a {@link TimingDataSource} logging statements taking at least that time.
+     *
+     * @return data source or <code>null</code> if the properties are invalid
+     */
     public static DataSource getDataSource(String resourceName) {           
                 
         BasicDataSource dataSource = null;
@@ -43,13 +59,118 @@ public final class DBUtils {
             dataSource.setUrl(connectionProperties.getProperty("DatabaseURL"));           
             dataSource.setUsername(connectionProperties.getProperty("Username"));       
             dataSource.setPassword(connectionProperties.getProperty("Password"));    
+            configurePool(dataSource, connectionProperties);
+            if (properties.contains("SlowQueryThresholdMillis"))
+                return new TimingDataSource(dataSource, getLong(connectionProperties, "SlowQueryThresholdMillis"));
             
         } catch (IllegalArgumentException e) {
             logger.warn("Can not create data source object : {}", e.getMessage(), e);        
+            dataSource = null;
         }                          
         return dataSource;
     }
     
+    /**
+     * Applies the optional pool settings from the properties, settings which
+     * are not present keep the dbcp defaults. Recognized keys are 
+     * <code>InitialSize, MaxTotal, MaxIdle, MinIdle, MaxWaitMillis, 
+     * ValidationQuery, ValidationQueryTimeout, TestOnBorrow, TestWhileIdle, 
+     * TimeBetweenEvictionRunsMillis, MinEvictableIdleTimeMillis, 
+     * PoolPreparedStatements</code> and <code>MaxOpenPreparedStatements</code>.
+     *
+     * @throws IllegalArgumentException if a numeric setting is not a number
+     */
+    static void configurePool(BasicDataSource dataSource, Properties properties) {
+        
+        if (properties.containsKey("InitialSize"))
+            dataSource.setInitialSize(getInt(properties, "InitialSize"));
+        if (properties.containsKey("MaxTotal"))
+            dataSource.setMaxTotal(getInt(properties, "MaxTotal"));
+        if (properties.containsKey("MaxIdle"))
+            dataSource.setMaxIdle(getInt(properties, "MaxIdle"));
+        if (properties.containsKey("MinIdle"))
+            dataSource.setMinIdle(getInt(properties, "MinIdle"));
+        if (properties.containsKey("MaxWaitMillis"))
+            dataSource.setMaxWaitMillis(getLong(properties, "MaxWaitMillis"));
+        if (properties.containsKey("ValidationQuery"))
+            dataSource.setValidationQuery(properties.getProperty("ValidationQuery"));
+        if (properties.containsKey("ValidationQueryTimeout"))
+            dataSource.setValidationQueryTimeout(getInt(properties, "ValidationQueryTimeout"));
+        if (properties.containsKey("TestOnBorrow"))
+            dataSource.setTestOnBorrow(Boolean.parseBoolean(properties.getProperty("TestOnBorrow").trim()));
+        if (properties.containsKey("TestWhileIdle"))
+            dataSource.setTestWhileIdle(Boolean.parseBoolean(properties.getProperty("TestWhileIdle").trim()));
+        if (properties.containsKey("TimeBetweenEvictionRunsMillis"))
+            dataSource.setTimeBetweenEvictionRunsMillis(getLong(properties, "TimeBetweenEvictionRunsMillis"));
+        if (properties.containsKey("MinEvictableIdleTimeMillis"))
+            dataSource.setMinEvictableIdleTimeMillis(getLong(properties, "MinEvictableIdleTimeMillis"));
+        if (properties.containsKey("PoolPreparedStatements"))
+            dataSource.setPoolPreparedStatements(Boolean.parseBoolean(properties.getProperty("PoolPreparedStatements").trim()));
+        if (properties.containsKey("MaxOpenPreparedStatements"))
+            dataSource.setMaxOpenPreparedStatements(getInt(properties, "MaxOpenPreparedStatements"));
+    }
+    
+    private static int getInt(Properties properties, String key) {
+        try {
+            return Integer.parseInt(properties.getProperty(key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + key + " must be a number : " + properties.getProperty(key), e);
+        }
+    }
+    
+    private static long getLong(Properties properties, String key) {
+        try {
+            return Long.parseLong(properties.getProperty(key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + key + " must be a number : " + properties.getProperty(key), e);
+        }
+    }
+    
+    /**
+     * Opens the pool's connections up front, so the first requests after 
+     * start do not pay for connection setup. For a <code>BasicDataSource</code>,
+     * also one wrapped in a <code>TimingDataSource</code>,
+     * as many connections as the larger of <code>InitialSize</code> and 
+     * <code>MinIdle</code> are borrowed at once and returned to the pool, other
+     * data sources are asked for a single connection.
+     *
+     * @param dataSource Data source to warm up.
+     * @return number of connections opened
+     */
+    public static int warmUp(DataSource dataSource) {
+        
+        if (dataSource == null)
+            throw new IllegalArgumentException("DataSource can not be null.");
+        
+        int size = 1;
+        DataSource pooled = dataSource instanceof TimingDataSource 
+                ? ((TimingDataSource) dataSource).getDelegate() : dataSource;
+        if (pooled instanceof BasicDataSource) {
+            BasicDataSource pool = (BasicDataSource) pooled;
+            size = Math.max(size, Math.max(pool.getInitialSize(), pool.getMinIdle()));
+            if (pool.getMaxTotal() > 0)
+                size = Math.min(size, pool.getMaxTotal());
+        }
+        
+        long start = System.nanoTime();
+        Connection[] connections = new Connection[size];
+        int opened = 0;
+        try {
+            for (; opened < size; opened++) {
+                connections[opened] = dataSource.getConnection();
+            }
+        } catch (SQLException e) {
+            logger.warn("Error when warming up connection pool after {} connections.", opened, e);
+        } finally {
+            for (int i = 0; i < opened; i++) {
+                closeQuietly(connections[i]);
+            }
+        }
+        logger.debug("Connection pool warmed up with {} connections in {} ms.", 
+                opened, (System.nanoTime() - start) / 1000000);
+        return opened;
+    }
+    
     public static Properties loadProperties(String resourceName) {        
         if (resourceName == null || resourceName.length() == 0)
             throw new IllegalArgumentException("PResource name cannot be empty or null.");
@@ -323,9 +444,7 @@ public final class DBUtils {
         Connection connection = null;
         try {            
                 connection = dataSource.getConnection();
-                for (String sqlStatement : readSqlStatements(script))
-                    if (!sqlStatement.trim().isEmpty())
-                        connection.prepareStatement(sqlStatement).executeUpdate();                                        
+                executeSqlScript(connection, script);
                         
         } catch (SQLException e) {       
                 logger.warn("Error execution script : {}" + script, e);               
@@ -333,6 +452,150 @@ public final class DBUtils {
                 closeQuietly(connection);
         }
     }
+    
+    /**
+     * Executes all statements of the script on the given connection. Unlike
+     * {@link #executeSqlScript(DataSource, URL)} the first failing statement
+     * is reported to the caller, who also owns the transaction.
+     *
+     * @param connection Connection to execute the script on.
+     * @param script Script with statements separated by semicolons.
+     * @throws SQLException if any of the statements fails
+     */
+    public static void executeSqlScript(Connection connection, URL script) throws SQLException {
+        
+        if (script == null)
+            throw new IllegalArgumentException("Script can not be null.");
+        
+        for (String sqlStatement : readSqlStatements(script)) {
+            if (!sqlStatement.trim().isEmpty()) {
+                Statement statement = connection.createStatement();
+                try {
+                    statement.executeUpdate(sqlStatement);
+                } finally {
+                    closeQuietly(statement);
+                }
+            }
+        }
+    }
+     
+    /**
+     * Locks the whole table until the end of the current transaction.
+     *
+     * @param conn Connection with autocommit switched off.
+     * @param table Name of the table to lock.
+     * @throws SQLException if a database access error occurs
+     */
+    public static void lockTableExclusively(Connection conn, String table) throws SQLException {
+        Statement statement = conn.createStatement();
+        try {
+            statement.executeUpdate("LOCK TABLE " + table + " IN EXCLUSIVE MODE");
+        } finally {
+            closeQuietly(statement);
+        }
+    }
+    
+    /**
+     * Returns ids of all rows of the table in ascending order. Only the 
+     * primary key index is read, so this is much cheaper than loading the rows.
+     *
+     * @param connection Connection to the database.
+     * @param table Name of the table with an <code>Id</code> column.
+     * @return sorted ids of the rows
+     * @throws SQLException if a database access error occurs
+     */
+    public static long[] selectIds(Connection connection, String table) throws SQLException {
+        return selectIds(connection, table, null);
+    }
+    
+    /**
+     * Returns ids greater than <code>afterId</code> of the rows of the table 
+     * in ascending order, ids of all rows for <code>null</code>.
+     *
+     * @param connection Connection to the database.
+     * @param table Name of the table with an <code>Id</code> column.
+     * @param afterId Id the returned ids follow, or <code>null</code>.
+     * @return sorted ids of the rows
+     * @throws SQLException if a database access error occurs
+     */
+    public static long[] selectIds(Connection connection, String table, Long afterId) throws SQLException {
+        
+        PreparedStatement statement = null;
+        ResultSet rset = null;
+        try {
+                statement = connection.prepareStatement("SELECT Id FROM " + table 
+                        + (afterId == null ? "" : " WHERE Id > ?") + " ORDER BY Id");
+                if (afterId != null)
+                    statement.setLong(1, afterId);
+                statement.setFetchSize(1000);
+                rset = statement.executeQuery();
+                long[] ids = new long[1024];
+                int size = 0;
+                while (rset.next()) {
+                    if (size == ids.length)
+                        ids = Arrays.copyOf(ids, size * 2);
+                    ids[size++] = rset.getLong(1);
+                }
+                return Arrays.copyOf(ids, size);
+        } finally {
+                closeQuietly(rset);
+                closeQuietly(statement);
+        }
+    }
+    
+    /**
+     * Executes a batch of single row inserts into a table with an identity 
+     * <code>Id</code> column and returns the generated ids in batch order. 
+     * Derby reports only the key of the last inserted row, so the table must 
+     * be locked by {@link #lockTableExclusively(Connection, String)} to keep 
+     * the ids of the batch consecutive. The range is verified afterwards.
+     *
+     * @param statement Insert statement prepared with generated keys.
+     * @param table Name of the table the statement inserts into.
+     * @param rows Number of rows added to the batch.
+     * @return ids of the inserted rows
+     * @throws SQLException if a database access error occurs or the ids 
+     *         can not be determined
+     */
+    public static long[] executeInsertBatch(PreparedStatement statement, String table, int rows) 
+            throws SQLException {
+        
+        for (int count : statement.executeBatch()) {
+            if (count != 1 && count != Statement.SUCCESS_NO_INFO)
+                throw new SQLException("Batch insert into " + table + " modified " + count + " rows.");
+        }
+        
+        long last;
+        ResultSet keys = statement.getGeneratedKeys();
+        try {
+            if (keys == null || !keys.next())
+                throw new SQLException("No key generated by batch insert into " + table + ".");
+            last = keys.getLong(1);
+        } finally {
+            closeQuietly(keys);
+        }
+        
+        long[] ids = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = last - rows + 1 + i;
+        }
+        
+        PreparedStatement check = null;
+        ResultSet rset = null;
+        try {
+            check = statement.getConnection().prepareStatement(
+                    "SELECT COUNT(*) FROM " + table + " WHERE Id BETWEEN ? AND ?");
+            check.setLong(1, ids[0]);
+            check.setLong(2, last);
+            rset = check.executeQuery();
+            if (!rset.next() || rset.getLong(1) != rows)
+                throw new SQLException("Keys generated by batch insert into " + table + " are not consecutive.");
+        } finally {
+            closeQuietly(rset);
+            closeQuietly(check);
+        }
+        return ids;
+    }
      
     public static String[] readSqlStatements(URL url) {
         try {
@@ -0,0 +1,153 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of entities keyed by their id. When the cache is
+ * full the least recently used entity is evicted, entities older than the
+ * time to live (if set) are evicted when they are looked up. All methods
+ * are thread safe.
+ *
+ * @param <T> type of the cached entities
+ */
+public final class EntityCache<T> {
+    
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<Long, Entry<T>> entries;
+    
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    
+    /**
+     * @param maxSize maximal number of cached entities
+     * @param timeToLiveMillis time after which a cached entity is reloaded,
+     *                         0 means entities expire only by the size bound
+     */
+    public EntityCache(int maxSize, long timeToLiveMillis) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("Cache size must be positive : " + maxSize);
+        if (timeToLiveMillis < 0)
+            throw new IllegalArgumentException("Time to live can not be negative : " + timeToLiveMillis);
+        
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLiveMillis * 1000000L;
+        this.entries = new LinkedHashMap<Long, Entry<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<T>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public long getTimeToLiveMillis() {
+        return timeToLiveNanos / 1000000L;
+    }
+    
+    /**
+     * Returns the cached entity or <code>null</code> if it is not cached or
+     * has expired. Every call counts as a hit or a miss.
+     */
+    public synchronized T get(Long id) {
+        Entry<T> entry = entries.get(id);
+        if (entry != null && isExpired(entry, System.nanoTime())) {
+            entries.remove(id);
+            evictionCount++;
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.value;
+    }
+    
+    public synchronized void put(Long id, T entity) {
+        if (id == null || entity == null)
+            throw new IllegalArgumentException("Cached id and entity can not be null.");
+        entries.put(id, new Entry<>(entity, System.nanoTime()));
+    }
+    
+    public synchronized void invalidate(Long id) {
+        entries.remove(id);
+    }
+    
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+    
+    /**
+     * Removes all expired entities, returns number of removed ones.
+     */
+    public synchronized int evictExpired() {
+        if (timeToLiveNanos == 0)
+            return 0;
+        
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Iterator<Entry<T>> it = entries.values().iterator(); it.hasNext();) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+                evicted++;
+            }
+        }
+        evictionCount += evicted;
+        return evicted;
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+    
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+    
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "EntityCache{" + "size=" + entries.size() + ", maxSize=" + maxSize 
+                + ", hits=" + hitCount + ", misses=" + missCount 
+                + ", evictions=" + evictionCount + '}';
+    }
+    
+    private boolean isExpired(Entry<T> entry, long now) {
+        return timeToLiveNanos > 0 && now - entry.created >= timeToLiveNanos;
+    }
+    
+    private static final class Entry<T> {
+        
+        private final T value;
+        private final long created;
+        
+        private Entry(T value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
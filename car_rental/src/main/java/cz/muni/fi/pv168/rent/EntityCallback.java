@@ -0,0 +1,15 @@
+package cz.muni.fi.pv168.rent;
+
+/**
+ * Receives entities one by one while a manager walks over a table, see e.g.
+ * {@link ReservationManager#forEachReservation(EntityCallback, int)}. 
+ * Entities are not retained by the manager, so memory used by the walk does 
+ * not depend on the number of rows. Any runtime exception thrown from 
+ * {@link #process(Object)} stops the walk and is passed to the caller.
+ *
+ * @param <T> type of the processed entity
+ */
+public interface EntityCallback<T> {
+    
+    public void process(T entity);
+}
@@ -0,0 +1,124 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reservation manager keeping an {@link AvailabilityIndex} of the reservations
+ * in sync with the changes made through it. The index is loaded from the 
+ * delegate on construction, call {@link #reload()} after the reservations
+ * were changed by other means.
+ */
+public class IndexedReservationManager implements ReservationManager {
+    
+    private static final int LOAD_FETCH_SIZE = 1000;
+    
+    private final ReservationManager delegate;
+    private final AvailabilityIndex index = new AvailabilityIndex();
+
+    public IndexedReservationManager(ReservationManager delegate) {
+        if (delegate == null)
+            throw new IllegalArgumentException("ReservationManager can not be null.");
+        this.delegate = delegate;
+        reload();
+    }
+
+    public ReservationManager getDelegate() {
+        return delegate;
+    }
+
+    public AvailabilityIndex getIndex() {
+        return index;
+    }
+    
+    public final void reload() {
+        index.load(delegate, LOAD_FETCH_SIZE);
+    }
+    
+    /**
+     * Returns vehicles from the given collection which can be reserved for
+     * the whole range, see {@link AvailabilityIndex#filterAvailable}.
+     */
+    public List<Vehicle> getAvailableVehicles(Collection<Vehicle> vehicles, Calendar start, Calendar end) {
+        return index.filterAvailable(vehicles, start, end);
+    }
+
+    @Override
+    public void createReservation(Reservation reservation) {
+        delegate.createReservation(reservation);
+        index.add(reservation);
+    }
+
+    @Override
+    public void createReservations(Collection<Reservation> reservations) {
+        delegate.createReservations(reservations);
+        for (Reservation reservation : reservations) {
+            index.add(reservation);
+        }
+    }
+
+    @Override
+    public void deleteReservation(Reservation reservation) {
+        delegate.deleteReservation(reservation);
+        index.remove(reservation.getId());
+    }
+
+    @Override
+    public void updateReservation(Reservation reservation) {
+        delegate.updateReservation(reservation);
+        index.add(reservation);
+    }
+
+    @Override
+    public Reservation getReservationById(Long id) {
+        return delegate.getReservationById(id);
+    }
+
+    @Override
+    public Collection<Reservation> getReservationsByVehicle(Vehicle vehicle) {
+        return delegate.getReservationsByVehicle(vehicle);
+    }
+
+    @Override
+    public Collection<Reservation> getReservationByCustomer(Customer customer) {
+        return delegate.getReservationByCustomer(customer);
+    }
+
+    @Override
+    public Collection<Reservation> getAllReservations() {
+        return delegate.getAllReservations();
+    }
+
+    @Override
+    public List<Reservation> getReservationsPage(Long afterId, int pageSize) {
+        return delegate.getReservationsPage(afterId, pageSize);
+    }
+
+    @Override
+    public long[] getReservationIds() {
+        return delegate.getReservationIds();
+    }
+
+    @Override
+    public long[] getReservationIds(Long afterId) {
+        return delegate.getReservationIds(afterId);
+    }
+
+    @Override
+    public void forEachReservation(EntityCallback<Reservation> callback, int fetchSize) {
+        delegate.forEachReservation(callback, fetchSize);
+    }
+
+    @Override
+    public Collection<Vehicle> getAvaibleVehicle() {
+        return delegate.getAvaibleVehicle();
+    }
+
+    @Override
+    public List<Vehicle> findAvailableVehicles(Calendar start, Calendar end, 
+                                               Vehicle.Brand brand, BigDecimal maxPrice) {
+        return delegate.findAvailableVehicles(start, end, brand, maxPrice);
+    }
+}
@@ -2,19 +2,33 @@ package cz.muni.fi.pv168.rent;
 
 import cz.muni.fi.pv168.common.ServiceFailureException;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.sql.SQLException;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.awt.Point;
+import java.awt.Rectangle;
 import cz.muni.fi.pv168.common.InternalIntegrityException;
 import java.net.URL;
 import java.text.SimpleDateFormat;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
 import javax.swing.JOptionPane;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.AbstractTableModel;
 import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
 import org.slf4j.LoggerFactory;
@@ -25,7 +39,16 @@ public class MainWindow extends javax.swing.JFrame {
     public final static org.slf4j.Logger logger = 
             LoggerFactory.getLogger("cz.muni.fi.pv168.rent.Error");  
         
+    private static final int CACHE_SIZE = 1000;
+    private static final long CACHE_TTL_MILLIS = 5 * 60 * 1000L;
+    private static final int ASYNC_THREADS = 4;
+    private static final int ASYNC_QUEUE_CAPACITY = 50;
+    private static final int REFRESH_INTERVAL_MILLIS = 30 * 1000;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGE_DISTANCE = 5;
+    
     ReservationManagerImpl manager;
+    AsyncExecutor executor = new AsyncExecutor(ASYNC_THREADS, ASYNC_QUEUE_CAPACITY);
     VehicleTableModel vehModel;
     CustomerTableModel custModel;
     ReservationTableModel resModel;
@@ -42,8 +65,41 @@ public class MainWindow extends javax.swing.JFrame {
     
     public MainWindow(DataSource dataSource) {                               
                 
-        manager = new ReservationManagerImpl(dataSource);        
+        manager = new ReservationManagerImpl(dataSource,
+                new CachingVehicleManager(new VehicleManagerImpl(dataSource), CACHE_SIZE, CACHE_TTL_MILLIS),
+                new CachingCustomerManager(new CustomerManagerImpl(dataSource), CACHE_SIZE, CACHE_TTL_MILLIS));
         initComponents();
+        
+        //Picks up changes made by other users
+        Timer refreshTimer = new Timer(REFRESH_INTERVAL_MILLIS, new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                refreshTables();
+            }
+        });
+        refreshTimer.start();
+        
+        //Tables of other tabs are not refreshed while hidden
+        jTabbedPane1.addChangeListener(new javax.swing.event.ChangeListener() {
+            @Override
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                refreshTables();
+            }
+        });
+    }
+
+    /**
+     * Runs the worker on the shared bounded executor, so fast clicking queues
+     * work instead of starting new threads. When too many tasks are pending
+     * the action is not run and the user is told to try again.
+     */
+    private void runInBackground(SwingWorker<?, ?> worker) {
+        try {
+            executor.execute(worker);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Background task rejected, too many pending tasks.", e);
+            JOptionPane.showMessageDialog(null, custModel.bundle.getString("Busy"), custModel.bundle.getString("Plain"), JOptionPane.WARNING_MESSAGE);
+        }
     }
 
     /**
@@ -482,21 +538,18 @@ public class MainWindow extends javax.swing.JFrame {
             @Override
             protected Void doInBackground() throws Exception {
                 try {
-                    List<Customer> customers = custModel.getCustomers();
                     Long clicked = (Long) (jTable1.getModel().getValueAt(row, 0));
-                    for (Customer customer : customers) {
-                        if (customer.getId() == clicked) {
-                            String name = textField1.getText();
-                            String address = textField2.getText();
-                            String phone = textField3.getText();
-                            String email = textField4.getText();
-                            customer.setName(name);
-                            customer.setAddress(address);
-                            customer.setPhone(phone);
-                            customer.setEmail(email);
-                            custModel.updateCustomer(customer, row);
-                            break;
-                        }
+                    Customer customer = custModel.findById(clicked);
+                    if (customer != null) {
+                        String name = textField1.getText();
+                        String address = textField2.getText();
+                        String phone = textField3.getText();
+                        String email = textField4.getText();
+                        customer.setName(name);
+                        customer.setAddress(address);
+                        customer.setPhone(phone);
+                        customer.setEmail(email);
+                        custModel.updateCustomer(customer, row);
                     }
                 } catch (ArrayIndexOutOfBoundsException e) {
                     JOptionPane.showMessageDialog(null, custModel.bundle.getString("outOfBounds"), custModel.bundle.getString("Plain"), JOptionPane.PLAIN_MESSAGE);
@@ -513,8 +566,6 @@ public class MainWindow extends javax.swing.JFrame {
                     logger.warn(e.getMessage());
                     System.exit(1);
                 } finally {
-                    custModel.customers = (ArrayList) manager.getCustomerManager().getAllCustomers();
-                    custModel.fireTableRowsUpdated(row, row);
                     textField1.setText("");
                     textField2.setText("");
                     textField3.setText("");
@@ -523,7 +574,7 @@ public class MainWindow extends javax.swing.JFrame {
                 return null;
             }
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton2ActionPerformed
 
     private void textField1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_textField1ActionPerformed
@@ -578,7 +629,7 @@ public class MainWindow extends javax.swing.JFrame {
                 }
             }
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton1ActionPerformed
 
     private void jTable1MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_jTable1MouseClicked
@@ -597,7 +648,7 @@ public class MainWindow extends javax.swing.JFrame {
                 return null;
             }
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jTable1MouseClicked
 
     private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
@@ -609,11 +660,9 @@ public class MainWindow extends javax.swing.JFrame {
                 try {
                     int row = jTable1.getSelectedRow();
                     Long clicked = (Long) (jTable1.getModel().getValueAt(row, 0));
-                    for (Customer customer : custModel.getCustomers()) {
-                        if (customer.getId() == clicked) {
-                            custModel.deleteCustomer(customer, row);
-                            break;
-                        }
+                    Customer customer = custModel.findById(clicked);
+                    if (customer != null) {
+                        custModel.deleteCustomer(customer, row);
                     }
                 } catch (ArrayIndexOutOfBoundsException e) {
                     JOptionPane.showMessageDialog(null, custModel.bundle.getString("outOfBounds"), custModel.bundle.getString("Plain"), JOptionPane.PLAIN_MESSAGE);
@@ -641,7 +690,7 @@ public class MainWindow extends javax.swing.JFrame {
                 return null;
             }
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton3ActionPerformed
 
     private void jTable1PropertyChange(java.beans.PropertyChangeEvent evt) {//GEN-FIRST:event_jTable1PropertyChange
@@ -684,7 +733,7 @@ public class MainWindow extends javax.swing.JFrame {
             }
 
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton4ActionPerformed
 
     private void jButton6ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton6ActionPerformed
@@ -694,11 +743,9 @@ public class MainWindow extends javax.swing.JFrame {
                 try {
                     int row = jTable2.getSelectedRow();
                     Long clicked = (Long) (jTable2.getModel().getValueAt(row, 0));
-                    for (Vehicle vehicle : vehModel.getVehicles()) {
-                        if (vehicle.getId() == clicked) {
-                            vehModel.deleteVehicle(vehicle, row);
-                            break;
-                        }
+                    Vehicle vehicle = vehModel.findById(clicked);
+                    if (vehicle != null) {
+                        vehModel.deleteVehicle(vehicle, row);
                     }
                 } catch (ArrayIndexOutOfBoundsException e) {
                     JOptionPane.showMessageDialog(null, custModel.bundle.getString("outOfBounds"), custModel.bundle.getString("Plain"), JOptionPane.PLAIN_MESSAGE);
@@ -723,7 +770,7 @@ public class MainWindow extends javax.swing.JFrame {
             }
             
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton6ActionPerformed
 
     private void jButton5ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton5ActionPerformed
@@ -731,21 +778,17 @@ public class MainWindow extends javax.swing.JFrame {
             @Override
             protected Void doInBackground() throws Exception {
 
-                List<Vehicle> vehicles = vehModel.getVehicles();
-
                 try {
                     int row = jTable2.getSelectedRow();
                     Long clicked = (Long) (jTable2.getModel().getValueAt(row, 0));
-                    for (Vehicle vehicle : vehicles) {
-                        if (vehicle.getId() == clicked) {
-                            String strPrice = textField5.getText();
-                            BigDecimal price = new BigDecimal(strPrice);
-                            Vehicle.Brand brand = (Vehicle.Brand) jComboBox1.getModel().getSelectedItem();
-                            vehicle.setPrice(price);
-                            vehicle.setBrand(brand);
-                            vehModel.updateVehicle(vehicle, row);
-                            break;
-                        }
+                    Vehicle vehicle = vehModel.findById(clicked);
+                    if (vehicle != null) {
+                        String strPrice = textField5.getText();
+                        BigDecimal price = new BigDecimal(strPrice);
+                        Vehicle.Brand brand = (Vehicle.Brand) jComboBox1.getModel().getSelectedItem();
+                        vehicle.setPrice(price);
+                        vehicle.setBrand(brand);
+                        vehModel.updateVehicle(vehicle, row);
                     }
                 } catch (NumberFormatException e) {
                     JOptionPane.showMessageDialog(null, custModel.bundle.getString("NumberFormat"),
@@ -769,7 +812,7 @@ public class MainWindow extends javax.swing.JFrame {
             }
 
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton5ActionPerformed
 
     private void jTable2MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_jTable2MouseClicked
@@ -786,34 +829,21 @@ public class MainWindow extends javax.swing.JFrame {
                 return null;
             }
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jTable2MouseClicked
 
     private void jButton7ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton7ActionPerformed
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
-                List<Vehicle> vehicles = vehModel.getVehicles();
-                List<Customer> customers = custModel.getCustomers();
-
                 try {
                     int vehicleTableRow = jTable4.getSelectedRow();
                     Long vehicleId = (Long) (jTable4.getModel().getValueAt(vehicleTableRow, 0));
                     int customerTableRow = jTable5.getSelectedRow();
                     Long customerId = (Long) (jTable5.getModel().getValueAt(customerTableRow, 0));
 
-                    Vehicle vehicle = null;
-                    for (Vehicle veh : vehicles) {
-                        if (veh.getId() == vehicleId) {
-                            vehicle = veh;
-                        }
-                    }
-                    Customer customer = null;
-                    for (Customer cust : customers) {
-                        if (cust.getId() == customerId) {
-                            customer = cust;
-                        }
-                    }
+                    Vehicle vehicle = vehModel.findById(vehicleId);
+                    Customer customer = custModel.findById(customerId);
 
                     Calendar startDate = jDateChooser1.getCalendar();
                     Calendar endDate = jDateChooser2.getCalendar();
@@ -847,7 +877,7 @@ public class MainWindow extends javax.swing.JFrame {
             }
 
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton7ActionPerformed
 
     private void jTable3MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_jTable3MouseClicked
@@ -857,22 +887,10 @@ public class MainWindow extends javax.swing.JFrame {
                 try {
                     int row = jTable3.getSelectedRow();
 
-                    int vehRow = -1;
                     Long vehicleId = (Long) jTable3.getValueAt(row, 1);
-                    for (int i = 0; i < vehModel.getRowCount(); i++) {
-                        if (vehicleId == vehModel.getValueAt(i, 0)) {
-                            vehRow = i;
-                            break;
-                        }
-                    }
-                    int custRow = -1;
+                    int vehRow = vehModel.indexOf(vehicleId);
                     Long customerId = (Long) jTable3.getValueAt(row, 2);
-                    for (int i = 0; i < custModel.getRowCount(); i++) {
-                        if (customerId == custModel.getValueAt(i, 0)) {
-                            custRow = i;
-                            break;
-                        }
-                    }
+                    int custRow = custModel.indexOf(customerId);
 
                     Calendar startDate = (Calendar) resModel.getCalendarValueAt(row, 3);
                     Calendar endDate = (Calendar) resModel.getCalendarValueAt(row, 4);
@@ -901,46 +919,31 @@ public class MainWindow extends javax.swing.JFrame {
                 return null;
             }
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jTable3MouseClicked
 
     private void jButton8ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton8ActionPerformed
         SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
             protected Void doInBackground() throws Exception {
-                List<Reservation> reservations = resModel.getReservations();
                 int row = jTable3.getSelectedRow();
 
                 try {
                     Long clicked = (Long) (jTable3.getModel().getValueAt(row, 0));
-                    for (Reservation res : reservations) {
-                        if (res.getId() == clicked) {
-                            Vehicle vehicle = null;
-                            Long vehId = (Long) jTable4.getValueAt(jTable4.getSelectedRow(), 0);
-                            for (Vehicle veh : vehModel.getVehicles()) {
-                                if (veh.getId() == vehId) {
-                                    vehicle = veh;
-                                }
-                            }
-                            res.setVehicle(vehicle);
-
-                            Customer customer = null;
-                            Long custId = (Long) jTable5.getValueAt(jTable5.getSelectedRow(), 0);
-                            for (Customer cust : custModel.getCustomers()) {
-                                if (cust.getId() == custId) {
-                                    customer = cust;
-                                }
-                            }
-                            res.setCustomer(customer);
+                    Reservation res = resModel.findById(clicked);
+                    if (res != null) {
+                        Long vehId = (Long) jTable4.getValueAt(jTable4.getSelectedRow(), 0);
+                        res.setVehicle(vehModel.findById(vehId));
+
+                        Long custId = (Long) jTable5.getValueAt(jTable5.getSelectedRow(), 0);
+                        res.setCustomer(custModel.findById(custId));
 
-                            res.setStartDate(jDateChooser1.getCalendar());
-                            res.setEndDate(jDateChooser2.getCalendar());
-                            res.setRealEndDate(jDateChooser3.getCalendar());
-                            res.setInfo(textField6.getText());
+                        res.setStartDate(jDateChooser1.getCalendar());
+                        res.setEndDate(jDateChooser2.getCalendar());
+                        res.setRealEndDate(jDateChooser3.getCalendar());
+                        res.setInfo(textField6.getText());
 
-                            resModel.updateReservation(res, row);
-                            break;
-                        }
+                        resModel.updateReservation(res, row);
                     }
                 } catch (NullPointerException e) {
                     JOptionPane.showMessageDialog(null, e, custModel.bundle.getString("Plain"), JOptionPane.PLAIN_MESSAGE);
@@ -960,8 +963,6 @@ public class MainWindow extends javax.swing.JFrame {
                     logger.warn(e.getMessage());
                     System.exit(1);
                 } finally {
-                    resModel.reservations = (ArrayList) manager.getAllReservations();
-                    resModel.fireTableRowsUpdated(row, row);
                     textField6.setText("");
                     jDateChooser1.setCalendar(null);
                     jDateChooser2.setCalendar(null);
@@ -971,7 +972,7 @@ public class MainWindow extends javax.swing.JFrame {
             }
 
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton8ActionPerformed
 
     private void jButton9ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton9ActionPerformed
@@ -981,11 +982,9 @@ public class MainWindow extends javax.swing.JFrame {
                 try {
                     int row = jTable3.getSelectedRow();
                     Long clicked = (Long) (jTable3.getModel().getValueAt(row, 0));
-                    for (Reservation res : resModel.getReservations()) {
-                        if (res.getId() == clicked) {
-                            resModel.deleteReservation(res, row);
-                            break;
-                        }
+                    Reservation res = resModel.findById(clicked);
+                    if (res != null) {
+                        resModel.deleteReservation(res, row);
                     }
                 } catch (ArrayIndexOutOfBoundsException e) {
                     JOptionPane.showMessageDialog(null, custModel.bundle.getString("outOfBounds"), custModel.bundle.getString("Plain"), JOptionPane.PLAIN_MESSAGE);
@@ -1014,7 +1013,7 @@ public class MainWindow extends javax.swing.JFrame {
             }
 
         };
-        worker.execute();
+        runInBackground(worker);
     }//GEN-LAST:event_jButton9ActionPerformed
 
     private void textField3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_textField3ActionPerformed
@@ -1059,7 +1058,24 @@ public class MainWindow extends javax.swing.JFrame {
         
 	//uncomment to run for the first time (if u dont have working DB)
         //DBUtils.executeSqlScript(dataSource, init);
-        //System.out.println("Tables initialized.");                                                               
+        //System.out.println("Tables initialized.");
+
+        //Applies schema changes (indexes, ...) newer than the DB
+        SchemaMigrator.migrate(dataSource);
+
+        //Opens pooled connections before the first window is shown
+        DBUtils.warmUp(dataSource);
+
+        //Writes the collected statement timings to the slow query log on exit
+        if (dataSource instanceof TimingDataSource) {
+            final QueryStatistics statistics = ((TimingDataSource) dataSource).getStatistics();
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    TimingDataSource.slowQueryLogger.info("Statement statistics :\n{}", statistics);
+                }
+            });
+        }
         java.awt.EventQueue.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -1121,42 +1137,456 @@ public class MainWindow extends javax.swing.JFrame {
     private java.awt.TextField textField6;
     // End of variables declaration//GEN-END:variables
 
-    public class CustomerTableModel extends AbstractTableModel {
+    /**
+     * Table model loading its entities lazily in pages. Only the sorted ids
+     * of all rows are kept, a page of rows is loaded in the background when
+     * one of them is first displayed, together with its neighbours, and pages
+     * far from it are evicted. Edits made through the window change only the
+     * affected row, {@link #refresh()} merges in the changes made by other 
+     * users. The model is changed on the event dispatch thread only.
+     */
+    abstract class EntityTableModel<T> extends AbstractTableModel {
         
-        private List<Customer> customers = (ArrayList)manager.getCustomerManager().getAllCustomers();
         java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("Strings");
+        
+        private volatile long[] ids = new long[0];
+        private final Map<Integer, Map<Long, T>> pages = new HashMap<>();
+        private final Set<Integer> pending = new HashSet<>();
+        private int generation;
+        
+        protected EntityTableModel() {
+            refresh(true);
+        }
+        
+        protected abstract Long getId(T entity);
+        
+        /**
+         * Returns ids greater than <code>afterId</code> in ascending order,
+         * all ids for <code>null</code>.
+         */
+        protected abstract long[] loadIds(Long afterId);
+        
+        protected abstract List<T> loadPage(Long afterId, int pageSize);
+        
+        protected abstract T loadById(Long id);
+        
+        @Override
+        public int getRowCount() {
+            return ids.length;
+        }
+        
+        protected Long getIdAt(int row) {
+            if(row < 0 || row >= ids.length) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            return ids[row];
+        }
+        
+        /**
+         * Returns the entity in the row, or <code>null</code> if its page is
+         * not loaded yet. The page is then requested and the row repainted
+         * when it arrives.
+         */
+        protected T getEntity(int row) {
+            if(row < 0 || row >= ids.length) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            
+            int page = row / PAGE_SIZE;
+            Map<Long, T> entities = pages.get(page);
+            if (entities == null) {
+                requestPage(page);
+                return null;
+            }
+            requestPage(page - 1);
+            requestPage(page + 1);
+            return entities.get(ids[row]);
+        }
+        
+        /**
+         * Returns row of the entity with the given id, -1 if there is none.
+         */
+        public int indexOf(Long id) {
+            int row = Arrays.binarySearch(ids, id);
+            return row >= 0 ? row : -1;
+        }
+        
+        /**
+         * Loads the entity with the given id, pages may not hold the entity 
+         * any more. Must not be called on the event dispatch thread.
+         */
+        public T findById(Long id) {
+            return loadById(id);
+        }
+        
+        private void requestPage(final int page) {
+            if (page < 0 || page * PAGE_SIZE >= ids.length || pages.containsKey(page) || !pending.add(page))
+                return;
+            
+            final int first = page * PAGE_SIZE;
+            final Long afterId = first == 0 ? null : ids[first - 1];
+            final int requested = generation;
+            try {
+                executor.submit(new Callable<List<T>>() {
+                    @Override
+                    public List<T> call() {
+                        return loadPage(afterId, PAGE_SIZE);
+                    }
+                }, new AsyncCallback<List<T>>() {
+                    @Override
+                    public void onSuccess(final List<T> entities) {
+                        runOnEventThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                pageLoaded(page, entities, requested);
+                            }
+                        });
+                    }
 
-        public List<Customer> getCustomers() {
-            return customers;
+                    @Override
+                    public void onFailure(Throwable cause) {
+                        logger.warn("Error when loading table page : {}", cause.getMessage(), cause);
+                        runOnEventThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                pending.remove(page);
+                            }
+                        });
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                pending.remove(page);
+            }
+        }
+        
+        private void pageLoaded(int page, List<T> entities, int requested) {
+            if (requested != generation)
+                return;
+            pending.remove(page);
+            if (!matchesIds(ids, page, entities)) {
+                refresh(true); // rows of the page were removed meanwhile
+                return;
+            }
+            pages.put(page, toMap(entities));
+            
+            for (Iterator<Integer> it = pages.keySet().iterator(); it.hasNext();) {
+                if (Math.abs(it.next() - page) > MAX_PAGE_DISTANCE)
+                    it.remove();
+            }
+            int first = page * PAGE_SIZE;
+            int last = Math.min(first + PAGE_SIZE, ids.length) - 1;
+            if (first <= last)
+                fireTableRowsUpdated(first, last);
+        }
+        
+        private Map<Long, T> toMap(List<T> entities) {
+            Map<Long, T> map = new HashMap<>();
+            for (T entity : entities) {
+                map.put(getId(entity), entity);
+            }
+            return map;
+        }
+        
+        /**
+         * Drops loaded pages from the given one on, e.g. when rows shifted.
+         */
+        private void invalidateFrom(int page) {
+            for (Iterator<Integer> it = pages.keySet().iterator(); it.hasNext();) {
+                if (it.next() >= page)
+                    it.remove();
+            }
+            pending.clear();
+            generation++;
+        }
+        
+        protected void rowInserted(final T entity) {
+            runOnEventThread(new Runnable() {
+                @Override
+                public void run() {
+                    long id = getId(entity);
+                    int row = Arrays.binarySearch(ids, id);
+                    if (row >= 0)
+                        return;
+                    row = -row - 1;
+                    
+                    long[] inserted = new long[ids.length + 1];
+                    System.arraycopy(ids, 0, inserted, 0, row);
+                    inserted[row] = id;
+                    System.arraycopy(ids, row, inserted, row + 1, ids.length - row);
+                    ids = inserted;
+                    
+                    Map<Long, T> page = pages.get(row / PAGE_SIZE);
+                    if (row == ids.length - 1 && page != null && row % PAGE_SIZE != 0) {
+                        page.put(id, entity);
+                    } else {
+                        invalidateFrom(row / PAGE_SIZE);
+                    }
+                    fireTableRowsInserted(row, row);
+                }
+            });
+        }
+        
+        protected void rowUpdated(final T entity) {
+            runOnEventThread(new Runnable() {
+                @Override
+                public void run() {
+                    int row = indexOf(getId(entity));
+                    if (row >= 0) {
+                        Map<Long, T> page = pages.get(row / PAGE_SIZE);
+                        if (page != null)
+                            page.put(getId(entity), entity);
+                        fireTableRowsUpdated(row, row);
+                    }
+                }
+            });
+        }
+        
+        protected void rowDeleted(final Long id) {
+            runOnEventThread(new Runnable() {
+                @Override
+                public void run() {
+                    int row = indexOf(id);
+                    if (row >= 0) {
+                        long[] deleted = new long[ids.length - 1];
+                        System.arraycopy(ids, 0, deleted, 0, row);
+                        System.arraycopy(ids, row + 1, deleted, row, ids.length - row - 1);
+                        ids = deleted;
+                        invalidateFrom(row / PAGE_SIZE);
+                        fireTableRowsDeleted(row, row);
+                    }
+                }
+            });
+        }
+        
+        /**
+         * Picks up the changes made by other users, if one of the tables
+         * showing the model is visible. Only the ids past the last known one
+         * and the loaded pages in view are read: new rows are appended, 
+         * changed rows in view are updated. Only if a reloaded page shows that 
+         * rows were removed, all ids are reloaded and the table is replaced.
+         */
+        public void refresh() {
+            refresh(false);
+        }
+        
+        private void refresh(final boolean reloadIds) {
+            final Set<Integer> visible = getVisiblePages();
+            if (visible == null && !reloadIds)
+                return;
+            
+            final long[] known = ids;
+            final Set<Integer> reloaded = new HashSet<>();
+            if (visible != null) {
+                reloaded.addAll(visible);
+                reloaded.retainAll(pages.keySet());
+            }
+            try {
+                executor.submit(new Callable<TableSnapshot<T>>() {
+                    @Override
+                    public TableSnapshot<T> call() {
+                        return loadSnapshot(known, reloaded, reloadIds);
+                    }
+                }, new AsyncCallback<TableSnapshot<T>>() {
+                    @Override
+                    public void onSuccess(final TableSnapshot<T> snapshot) {
+                        runOnEventThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                merge(snapshot);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Throwable cause) {
+                        logger.warn("Error when refreshing table : {}", cause.getMessage(), cause);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.debug("Table refresh skipped, too many pending tasks.");
+            }
+        }
+        
+        /**
+         * Returns pages of the rows in view of the visible tables showing the 
+         * model, <code>null</code> if no such table is visible.
+         */
+        private Set<Integer> getVisiblePages() {
+            Set<Integer> visible = null;
+            for (TableModelListener listener : getTableModelListeners()) {
+                if (!(listener instanceof JTable) || !((JTable) listener).isShowing())
+                    continue;
+                if (visible == null)
+                    visible = new HashSet<>();
+                
+                JTable table = (JTable) listener;
+                Rectangle view = table.getVisibleRect();
+                int first = table.rowAtPoint(view.getLocation());
+                int last = table.rowAtPoint(new Point(view.x, view.y + view.height - 1));
+                if (first < 0)
+                    continue;
+                if (last < 0)
+                    last = table.getRowCount() - 1;
+                for (int page = first / PAGE_SIZE; page <= last / PAGE_SIZE; page++) {
+                    visible.add(page);
+                }
+            }
+            return visible;
+        }
+        
+        /**
+         * Loads the new ids and the given pages, runs in the background.
+         */
+        private TableSnapshot<T> loadSnapshot(long[] known, Set<Integer> reloaded, boolean reloadIds) {
+            long[] fresh = known;
+            if (reloadIds) {
+                fresh = loadIds(null);
+            } else {
+                long[] added = loadIds(known.length == 0 ? null : known[known.length - 1]);
+                if (added.length > 0) {
+                    fresh = Arrays.copyOf(known, known.length + added.length);
+                    System.arraycopy(added, 0, fresh, known.length, added.length);
+                }
+            }
+            
+            Map<Integer, Map<Long, T>> pagesLoaded = new HashMap<>();
+            for (Integer page : reloaded) {
+                int first = page * PAGE_SIZE;
+                if (first >= fresh.length)
+                    continue;
+                List<T> entities = loadPage(first == 0 ? null : fresh[first - 1], PAGE_SIZE);
+                if (!reloadIds && !matchesIds(fresh, page, entities))
+                    return loadSnapshot(known, reloaded, true);
+                pagesLoaded.put(page, toMap(entities));
+            }
+            return new TableSnapshot<>(known, fresh, reloadIds, pagesLoaded);
+        }
+        
+        /**
+         * Checks that the loaded page holds the rows with the given ids, rows 
+         * added after the last id do not matter.
+         */
+        private boolean matchesIds(long[] rowIds, int page, List<T> entities) {
+            int first = page * PAGE_SIZE;
+            int last = Math.min(first + PAGE_SIZE, rowIds.length);
+            if (entities.size() < last - first)
+                return false;
+            for (int row = first; row < last; row++) {
+                if (rowIds[row] != getId(entities.get(row - first)))
+                    return false;
+            }
+            return true;
+        }
+        
+        private void merge(TableSnapshot<T> snapshot) {
+            if (ids != snapshot.known)
+                return; // changed through the window meanwhile, the next refresh catches up
+            
+            if (snapshot.replaced) {
+                ids = snapshot.ids;
+                pages.clear();
+                pages.putAll(snapshot.pages);
+                pending.clear();
+                generation++;
+                fireTableDataChanged();
+                return;
+            }
+            if (snapshot.ids.length > ids.length) {
+                int first = ids.length;
+                ids = snapshot.ids;
+                invalidateFrom(first / PAGE_SIZE);
+                fireTableRowsInserted(first, ids.length - 1);
+            }
+            for (Map.Entry<Integer, Map<Long, T>> entry : snapshot.pages.entrySet()) {
+                Map<Long, T> current = pages.put(entry.getKey(), entry.getValue());
+                int first = entry.getKey() * PAGE_SIZE;
+                int last = Math.min(first + PAGE_SIZE, ids.length);
+                for (int row = first; row < last; row++) {
+                    T entity = entry.getValue().get(ids[row]);
+                    if (current == null || !Objects.equals(entity, current.get(ids[row])))
+                        fireTableRowsUpdated(row, row);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ids and pages of a table loaded by {@link EntityTableModel#refresh()}.
+     * <code>known</code> are the ids the refresh started from, the new ids 
+     * either extend them or, if <code>replaced</code>, replace them.
+     */
+    private static final class TableSnapshot<T> {
+        
+        private final long[] known;
+        private final long[] ids;
+        private final boolean replaced;
+        private final Map<Integer, Map<Long, T>> pages;
+        
+        private TableSnapshot(long[] known, long[] ids, boolean replaced, Map<Integer, Map<Long, T>> pages) {
+            this.known = known;
+            this.ids = ids;
+            this.replaced = replaced;
+            this.pages = pages;
+        }
+    }
+    
+    private static void runOnEventThread(Runnable task) {
+        if (SwingUtilities.isEventDispatchThread())
+            task.run();
+        else
+            SwingUtilities.invokeLater(task);
+    }
+    
+    /**
+     * Refreshes the tables in view, see {@link EntityTableModel#refresh()}.
+     */
+    public void refreshTables() {
+        custModel.refresh();
+        vehModel.refresh();
+        resModel.refresh();
+    }
+    
+    public class CustomerTableModel extends EntityTableModel<Customer> {
+        
+        
+        @Override
+        protected Long getId(Customer customer) {
+            return customer.getId();
+        }
+        
+        @Override
+        protected long[] loadIds(Long afterId) {
+            return manager.getCustomerManager().getCustomerIds(afterId);
+        }
+        
+        @Override
+        protected List<Customer> loadPage(Long afterId, int pageSize) {
+            return manager.getCustomerManager().getCustomersPage(afterId, pageSize);
+        }
+        
+        @Override
+        protected Customer loadById(Long id) {
+            return manager.getCustomerManager().getCustomerById(id);
         }
         
         public void addCustomer(Customer customer) {
             if(manager.getCustomerManager() == null)
                 throw new NullPointerException("this should NEVER happen = null customerManager"); //
             manager.getCustomerManager().createCustomer(customer);
-            customers = (ArrayList)manager.getCustomerManager().getAllCustomers();
-            fireTableRowsInserted(customers.size()-1, customers.size()-1);
+            rowInserted(customer);
         }
         
         public void deleteCustomer(Customer customer, int row) {
             if(manager.getCustomerManager() == null)
                 throw new NullPointerException("this should NEVER happen = null customerManager"); //
+            Long id = customer.getId();
             manager.getCustomerManager().deleteCustomer(customer);
-            customers = (ArrayList)manager.getCustomerManager().getAllCustomers();
-            fireTableRowsDeleted(row, row); 
+            rowDeleted(id);
         }
         
         public void updateCustomer(Customer customer, int row) {
             if(manager.getCustomerManager() == null)
                 throw new NullPointerException("this should NEVER happen = null customerManager"); //
             manager.getCustomerManager().updateCustomer(customer); 
+            rowUpdated(customer);
         }
         
-        @Override
-        public int getRowCount() {
-            return customers.size();
-        }
-
         @Override
         public int getColumnCount() {
             return 5;
@@ -1164,10 +1594,13 @@ public class MainWindow extends javax.swing.JFrame {
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
-            if(rowIndex >= customers.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 5) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             
-            Customer customer = customers.get(rowIndex);
+            if (columnIndex == 0) return getIdAt(rowIndex);
+            Customer customer = getEntity(rowIndex);
+            if (customer == null)
+                return null;
             
             switch(columnIndex){
                 case 0: return customer.getId();
@@ -1184,11 +1617,12 @@ public class MainWindow extends javax.swing.JFrame {
          */
         @Override
         public void setValueAt(Object value, int rowIndex, int columnIndex){
-            if(rowIndex >= customers.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 5) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             if(value == null) throw new NullPointerException(bundle.getString("value"));
             
-            Customer customer = customers.get(rowIndex);
+            Customer customer = getEntity(rowIndex);
+            if (customer == null) throw new IllegalStateException(bundle.getString("rowIndex"));
             switch(columnIndex) {
                 case 1: customer.setName((String) value);
                     break;
@@ -1235,30 +1669,44 @@ public class MainWindow extends javax.swing.JFrame {
     }
 
     
-    private class VehicleTableModel extends AbstractTableModel {
+    private class VehicleTableModel extends EntityTableModel<Vehicle> {
         
-        private List<Vehicle> vehicles = (ArrayList)manager.getVehicleManager().getAllVehicles();
-        java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("Strings");
 
         
-        public List<Vehicle> getVehicles() {
-            return vehicles;
+        
+        @Override
+        protected Long getId(Vehicle vehicle) {
+            return vehicle.getId();
+        }
+        
+        @Override
+        protected long[] loadIds(Long afterId) {
+            return manager.getVehicleManager().getVehicleIds(afterId);
+        }
+        
+        @Override
+        protected List<Vehicle> loadPage(Long afterId, int pageSize) {
+            return manager.getVehicleManager().getVehiclesPage(afterId, pageSize);
+        }
+        
+        @Override
+        protected Vehicle loadById(Long id) {
+            return manager.getVehicleManager().getVehicleById(id);
         }
         
         public void addVehicle(Vehicle vehicle) {
             if(manager.getVehicleManager() == null)
                 throw new NullPointerException("this should NEVER happen = null VehicleManager"); //
             manager.getVehicleManager().createVehicle(vehicle);
-            vehicles = (ArrayList)manager.getVehicleManager().getAllVehicles();
-            fireTableRowsInserted(vehicles.size()-1, vehicles.size()-1); 
+            rowInserted(vehicle);
         }
         
         public void deleteVehicle(Vehicle vehicle, int row) {
             if(manager.getVehicleManager()== null)
                 throw new NullPointerException("this should NEVER happen = null VehicleManager"); //
+            Long id = vehicle.getId();
             manager.getVehicleManager().deleteVehicle(vehicle);
-            vehicles = (ArrayList)manager.getVehicleManager().getAllVehicles();
-            fireTableRowsDeleted(row, row); 
+            rowDeleted(id);
         }
         
         
@@ -1266,15 +1714,9 @@ public class MainWindow extends javax.swing.JFrame {
             if(manager.getVehicleManager()== null)
                 throw new NullPointerException("this should NEVER happen = null VehicleManager"); //
             manager.getVehicleManager().updateVehicle(vehicle);
-            vehicles = (ArrayList)manager.getVehicleManager().getAllVehicles();
-            fireTableRowsUpdated(row, row); 
+            rowUpdated(vehicle);
         }
         
-        @Override
-        public int getRowCount() {
-            return vehicles.size();
-        }
-
         @Override
         public int getColumnCount() {
             return 3;
@@ -1282,10 +1724,13 @@ public class MainWindow extends javax.swing.JFrame {
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
-            if(rowIndex >= vehicles.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 3) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             
-            Vehicle vehicle = vehicles.get(rowIndex);
+            if (columnIndex == 0) return getIdAt(rowIndex);
+            Vehicle vehicle = getEntity(rowIndex);
+            if (vehicle == null)
+                return null;
             
             switch(columnIndex){
                 case 0: return vehicle.getId();
@@ -1298,11 +1743,12 @@ public class MainWindow extends javax.swing.JFrame {
         
         @Override
         public void setValueAt(Object value, int rowIndex, int columnIndex){
-            if(rowIndex >= vehicles.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 3) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             if(value == null) throw new NullPointerException(bundle.getString("value"));
             
-            Vehicle vehicle = vehicles.get(rowIndex);
+            Vehicle vehicle = getEntity(rowIndex);
+            if (vehicle == null) throw new IllegalStateException(bundle.getString("rowIndex"));
             switch(columnIndex) {
                 case 1: vehicle.setBrand((Vehicle.Brand) value);
                     break;
@@ -1334,36 +1780,46 @@ public class MainWindow extends javax.swing.JFrame {
     }
 
     
-    private class ReservationTableModel extends AbstractTableModel {
+    private class ReservationTableModel extends EntityTableModel<Reservation> {
         
-        private List<Reservation> reservations = (ArrayList)manager.getAllReservations();
-        java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("Strings");
         
-        public List<Reservation> getReservations() {
-            return reservations;
+        
+        @Override
+        protected Long getId(Reservation res) {
+            return res.getId();
+        }
+        
+        @Override
+        protected long[] loadIds(Long afterId) {
+            return manager.getReservationIds(afterId);
+        }
+        
+        @Override
+        protected List<Reservation> loadPage(Long afterId, int pageSize) {
+            return manager.getReservationsPage(afterId, pageSize);
+        }
+        
+        @Override
+        protected Reservation loadById(Long id) {
+            return manager.getReservationById(id);
         }
         
         public void addReservation(Reservation res) {
             manager.createReservation(res);
-            reservations = (ArrayList)manager.getAllReservations();
-            fireTableRowsInserted(reservations.size()-1, reservations.size()-1);
+            rowInserted(res);
         }
         
         public void deleteReservation(Reservation res, int row) {
+            Long id = res.getId();
             manager.deleteReservation(res);
-            reservations = (ArrayList)manager.getAllReservations();
-            fireTableRowsDeleted(row, row);
+            rowDeleted(id);
         }
         
         public void updateReservation(Reservation res, int row) {
             manager.updateReservation(res);
+            rowUpdated(res);
         }
         
-        @Override
-        public int getRowCount() {
-            return reservations.size();
-        }
-
         @Override
         public int getColumnCount() {
             return 7;
@@ -1371,10 +1827,13 @@ public class MainWindow extends javax.swing.JFrame {
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
-            if(rowIndex >= reservations.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 7) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             
-            Reservation res = reservations.get(rowIndex);
+            if (columnIndex == 0) return getIdAt(rowIndex);
+            Reservation res = getEntity(rowIndex);
+            if (res == null)
+                return null;
             SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
 
             switch(columnIndex){
@@ -1405,10 +1864,12 @@ public class MainWindow extends javax.swing.JFrame {
         }
         
         public Object getCalendarValueAt(int rowIndex, int columnIndex) {
-            if(rowIndex >= reservations.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 6) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             
-            Reservation res = reservations.get(rowIndex);
+            Reservation res = getEntity(rowIndex);
+            if (res == null)
+                return null;
 
             switch(columnIndex){
                 case 3: return res.getStartDate();
@@ -1424,11 +1885,12 @@ public class MainWindow extends javax.swing.JFrame {
         
         @Override
         public void setValueAt(Object value, int rowIndex, int columnIndex){
-            if(rowIndex >= reservations.size()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
+            if(rowIndex >= getRowCount()) throw new IllegalArgumentException(bundle.getString("rowIndex"));
             if(columnIndex >= 7) throw new IllegalArgumentException(bundle.getString("columnIndex"));
             if(value == null) throw new NullPointerException(bundle.getString("value"));
             
-            Reservation res = reservations.get(rowIndex);     
+            Reservation res = getEntity(rowIndex);
+            if (res == null) throw new IllegalStateException(bundle.getString("rowIndex"));
             switch(columnIndex) {
                 case 3: res.setStartDate((Calendar) value);
                     break;
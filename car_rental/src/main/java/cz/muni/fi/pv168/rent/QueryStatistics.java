@@ -0,0 +1,226 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies and row counts of the SQL statements executed through a
+ * {@link TimingDataSource}, kept per SQL text, together with the time spent
+ * waiting for connections from the pool. All methods are thread safe.
+ */
+public final class QueryStatistics {
+
+    /**
+     * Maximal number of distinct SQL texts tracked, statements executed after
+     * the limit was reached are counted under {@link #OTHER_SQL}.
+     */
+    public static final int MAX_ENTRIES = 1000;
+    public static final String OTHER_SQL = "<other>";
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Entry connectionWait = new Entry("<connection wait>");
+
+    /**
+     * Records one execution of the statement.
+     *
+     * @param sql executed SQL
+     * @param nanos time of the execution
+     * @param rows number of returned or modified rows, negative if not known
+     * @param failed whether the execution threw an exception
+     */
+    public void record(String sql, long nanos, long rows, boolean failed) {
+        getOrCreate(sql).record(nanos, rows, failed);
+    }
+
+    public void recordConnectionWait(long nanos, boolean failed) {
+        connectionWait.record(nanos, -1, failed);
+    }
+
+    /**
+     * Returns statistics of the statement, <code>null</code> if it was not
+     * executed yet.
+     */
+    public Entry getEntry(String sql) {
+        return entries.get(sql);
+    }
+
+    /**
+     * Returns statistics of all executed statements, the statements taking
+     * the most time in total come first.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Long.compare(o2.getTotalNanos(), o1.getTotalNanos());
+            }
+        });
+        return sorted;
+    }
+
+    public Entry getConnectionWait() {
+        return connectionWait;
+    }
+
+    public void reset() {
+        entries.clear();
+        connectionWait.reset();
+    }
+
+    private Entry getOrCreate(String sql) {
+
+        Entry entry = entries.get(sql);
+        if (entry != null)
+            return entry;
+
+        if (entries.size() >= MAX_ENTRIES)
+            sql = OTHER_SQL;
+        entry = new Entry(sql);
+        Entry existing = entries.putIfAbsent(sql, entry);
+        return existing != null ? existing : entry;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(connectionWait.toString());
+        for (Entry entry : getEntries()) {
+            report.append('\n').append(entry);
+        }
+        return report.toString();
+    }
+
+    /**
+     * Statistics of one statement. The latency histogram has power of two
+     * buckets, bucket <i>i</i> counts executions taking less than
+     * 2<sup><i>i</i></sup> microseconds and at least half of it.
+     */
+    public static final class Entry {
+
+        public static final int BUCKETS = 32;
+
+        private final String sql;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, long rowCount, boolean failed) {
+
+            count.incrementAndGet();
+            if (failed)
+                failures.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            if (rowCount > 0)
+                rows.addAndGet(rowCount);
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+            histogram.incrementAndGet(bucket(nanos));
+        }
+
+        void reset() {
+            count.set(0);
+            failures.set(0);
+            totalNanos.set(0);
+            maxNanos.set(0);
+            rows.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        static int bucket(long nanos) {
+            long micros = Math.max(nanos, 0) / 1000;
+            return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getMeanNanos() {
+            long executions = count.get();
+            return executions == 0 ? 0 : totalNanos.get() / executions;
+        }
+
+        /**
+         * Returns the total number of rows read from the results or modified
+         * by the statement.
+         */
+        public long getRows() {
+            return rows.get();
+        }
+
+        public long[] getHistogram() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+            }
+            return counts;
+        }
+
+        /**
+         * Returns the upper bound of the histogram bucket holding the given
+         * percentile of the executions, in microseconds.
+         *
+         * @param percentile percentile between 0 and 100
+         */
+        public long getPercentileMicros(double percentile) {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("Percentile must be between 0 and 100 : " + percentile);
+
+            long[] counts = getHistogram();
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0)
+                    return 1L << i;
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d executions (%d failed), %d rows, mean %.3f ms, max %.3f ms, p95 < %d us : %s",
+                    getCount(), getFailures(), getRows(), getMeanNanos() / 1e6, getMaxNanos() / 1e6,
+                    getPercentileMicros(95), sql);
+        }
+    }
+}
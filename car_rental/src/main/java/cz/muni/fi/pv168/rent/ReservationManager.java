@@ -1,11 +1,21 @@
 package cz.muni.fi.pv168.rent;
 
+import java.math.BigDecimal;
+import java.util.Calendar;
 import java.util.Collection;
+import java.util.List;
 
 public interface ReservationManager {
     
     public void createReservation(Reservation reservation);
     
+    /**
+     * Creates all reservations in one transaction using JDBC batches and 
+     * assigns them their generated ids. Nothing is created if any of them is
+     * invalid or overlaps another reservation of the same vehicle.
+     */
+    public void createReservations(Collection<Reservation> reservations);
+    
     public void deleteReservation(Reservation reservation);
     
     public void updateReservation(Reservation reservation);
@@ -18,5 +28,40 @@ public interface ReservationManager {
     
     public Collection<Reservation> getAllReservations();
     
+    /**
+     * Returns at most <code>pageSize</code> reservations with id greater than
+     * <code>afterId</code> ordered by id. Pass <code>null</code> for the first
+     * page and the id of the last returned reservation for the next one.
+     */
+    public List<Reservation> getReservationsPage(Long afterId, int pageSize);
+    
+    /**
+     * Returns ids of all reservations in ascending order.
+     */
+    public long[] getReservationIds();
+    
+    /**
+     * Returns ids of the reservations with id greater than <code>afterId</code> 
+     * in ascending order, all ids for <code>null</code>. Reads only the end 
+     * of the primary key index, e.g. to find reservations added since.
+     */
+    public long[] getReservationIds(Long afterId);
+    
+    /**
+     * Passes every reservation to the callback, reading the table through a
+     * forward-only cursor with the given fetch size. The connection is 
+     * released when the method returns.
+     */
+    public void forEachReservation(EntityCallback<Reservation> callback, int fetchSize);
+    
     public Collection<Vehicle> getAvaibleVehicle();
+
+    /**
+     * Returns vehicles, ordered by id, which have no reservation colliding 
+     * with the range from <code>start</code> to <code>end</code>, i.e. which
+     * could be reserved for it. <code>brand</code> and <code>maxPrice</code> 
+     * further restrict the result, pass <code>null</code> to not filter by them.
+     */
+    public List<Vehicle> findAvailableVehicles(Calendar start, Calendar end, 
+                                               Vehicle.Brand brand, BigDecimal maxPrice);
 }
@@ -1,6 +1,7 @@
 package cz.muni.fi.pv168.rent;
 
 import cz.muni.fi.pv168.common.ServiceFailureException;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,8 +11,14 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.sql.DataSource;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +33,40 @@ public final class ReservationManagerImpl implements ReservationManager {
 
     java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("Strings");
     
+    private int batchSize = DBUtils.DEFAULT_BATCH_SIZE;
+    
+    /**
+     * Reservations are always loaded together with their vehicle and customer 
+     * in a single joined query, so listing N reservations costs one round trip
+     * instead of 2N extra lookups.
+     */
+    private static final String SELECT_RESERVATIONS = 
+              "SELECT r.id, r.vehicle, r.customer, r.startDate, r.endDate, r.realEndDate, r.info, "
+            + "v.brand AS vehicleBrand, v.price AS vehiclePrice, "
+            + "c.name AS customerName, c.address AS customerAddress, "
+            + "c.phone AS customerPhone, c.email AS customerEmail "
+            + "FROM Reservation r "
+            + "JOIN Vehicle v ON v.id = r.vehicle "
+            + "JOIN Customer c ON c.id = r.customer";
+    
     public ReservationManagerImpl(DataSource dataSource) {
         this.dataSource = dataSource;
         this.vehicleManager = new VehicleManagerImpl(dataSource);
         this.customerManager = new CustomerManagerImpl(dataSource);
     }
+    
+    /**
+     * Creates manager which hands out the given vehicle and customer managers,
+     * e.g. caching decorators of the default ones.
+     */
+    public ReservationManagerImpl(DataSource dataSource, VehicleManager vehicleManager, 
+                                  CustomerManager customerManager) {
+        if (vehicleManager == null || customerManager == null)
+            throw new IllegalArgumentException("Vehicle and customer managers can not be null.");
+        this.dataSource = dataSource;
+        this.vehicleManager = vehicleManager;
+        this.customerManager = customerManager;
+    }
        
     public VehicleManager getVehicleManager() {
         return vehicleManager;
@@ -44,6 +80,19 @@ public final class ReservationManagerImpl implements ReservationManager {
         return dataSource;
     }    
     
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of rows sent in one JDBC batch by {@link #createReservations(Collection)}.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be positive.");
+        this.batchSize = batchSize;
+    }
+    
     private void checkDataSource() {
         if (dataSource == null) {
             throw new IllegalStateException("DataSource is not set.");
@@ -59,55 +108,8 @@ public final class ReservationManagerImpl implements ReservationManager {
                            + "endDate, realEndDate, info) "
                            + "VALUES(?,?,?,?,?,?)";               
         
-        if (reservation == null)                 
-            throw new IllegalArgumentException(bundle.getString("ExNullRes"));       //Reservation can not be null.            
-                
-        if (reservation.getId() != null)                
-            throw new IllegalArgumentException(bundle.getString("ExResId"));      //("Reservation id can not be already assigned.");             
-                        
-        if (reservation.getCustomer() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExResCustomerNull"));  //("Reservation customer can not be null.");
-        
-        if (reservation.getCustomer().getId() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExResCustIdNull"));   //("Reservation customer id can not be null.");   
-        
-        if (reservation.getVehicle() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExResVehicleNull"));   //("Reservation vehicle can not be null."); 
-        
-        if (reservation.getVehicle().getId() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExResVehIdNull"));    //("Reservation vehicle id can not be null.");
-        
-        if (reservation.getStartDate() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExStartDateNull"));   //("Reservation starting date can not be null.");
-              
-        if(reservation.getStartDate().compareTo(reservation.getEndDate()) > 0)
-            throw new IllegalArgumentException(bundle.getString("ExEndBeforeStart")); //("Ending date is set before starting date");
-        
-        if (reservation.getEndDate() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExEndDateNull"));  //("Reservation ending date can not be null.");
-                    
-        if (reservation.getRealEndDate() != null)                
-            throw new IllegalArgumentException(bundle.getString("ExRealEndDateSet"));  //("Reservation real date can not be already set.");                                            
+        validateNewReservation(reservation);
           
-        List<Reservation> reservations = (ArrayList)getAllReservations();
-        for(Reservation res : reservations) {
-            if(res.getVehicle().equals(reservation.getVehicle())) {
-                if (reservation.getStartDate().compareTo(res.getStartDate()) <= 0) {
-                    if (reservation.getEndDate().compareTo(res.getStartDate()) < 0) {
-                        //OK
-                    } else {
-                        throw new IllegalArgumentException(bundle.getString("ExExistingRes"));   //("There is already a reservation for this vehicle");
-                    }
-                } else {
-                    if (reservation.getStartDate().compareTo(res.getEndDate()) >= 0) {
-                        //OK
-                    } else {
-                        throw new IllegalArgumentException(bundle.getString("ExExistingRes"));   //("There is already a reservation for this vehicle");
-                    }
-                }
-            }  
-        }       
-        
         PreparedStatement statement = null;
         Connection connection = null;                
         
@@ -115,6 +117,10 @@ public final class ReservationManagerImpl implements ReservationManager {
             
                 connection = dataSource.getConnection();
                 connection.setAutoCommit(false);
+                
+                lockVehicle(connection, reservation.getVehicle());
+                if (hasOverlappingReservation(connection, reservation))
+                    throw new IllegalArgumentException(bundle.getString("ExExistingRes"));   //("There is already a reservation for this vehicle");
 
                 statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);                                
                 
@@ -168,6 +174,267 @@ public final class ReservationManagerImpl implements ReservationManager {
         }           
     }
 
+    private void validateNewReservation(Reservation reservation) {
+        
+        if (reservation == null)                 
+            throw new IllegalArgumentException(bundle.getString("ExNullRes"));       //Reservation can not be null.            
+                
+        if (reservation.getId() != null)                
+            throw new IllegalArgumentException(bundle.getString("ExResId"));      //("Reservation id can not be already assigned.");             
+                        
+        if (reservation.getCustomer() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExResCustomerNull"));  //("Reservation customer can not be null.");
+        
+        if (reservation.getCustomer().getId() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExResCustIdNull"));   //("Reservation customer id can not be null.");   
+        
+        if (reservation.getVehicle() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExResVehicleNull"));   //("Reservation vehicle can not be null."); 
+        
+        if (reservation.getVehicle().getId() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExResVehIdNull"));    //("Reservation vehicle id can not be null.");
+        
+        if (reservation.getStartDate() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExStartDateNull"));   //("Reservation starting date can not be null.");
+              
+        if (reservation.getEndDate() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExEndDateNull"));  //("Reservation ending date can not be null.");
+                    
+        if(reservation.getStartDate().compareTo(reservation.getEndDate()) > 0)
+            throw new IllegalArgumentException(bundle.getString("ExEndBeforeStart")); //("Ending date is set before starting date");
+        
+        if (reservation.getRealEndDate() != null)                
+            throw new IllegalArgumentException(bundle.getString("ExRealEndDateSet"));  //("Reservation real date can not be already set.");                                            
+    }
+    
+    @Override
+    public void createReservations(Collection<Reservation> reservations) {
+        
+        checkDataSource();
+        final String query = "INSERT INTO Reservation "
+                           + "(vehicle, customer, startDate, "
+                           + "endDate, realEndDate, info) "
+                           + "VALUES(?,?,?,?,?,?)";
+        
+        if (reservations == null)
+            throw new IllegalArgumentException("Reservations can not be null.");
+        
+        Set<Reservation> unique = Collections.newSetFromMap(new IdentityHashMap<Reservation, Boolean>());
+        for (Reservation reservation : reservations) {
+            validateNewReservation(reservation);
+            if (!unique.add(reservation))
+                throw new IllegalArgumentException("Reservation is listed more than once : " + reservation.toString());
+        }
+        
+        if (reservations.isEmpty())
+            return;
+        
+        Map<Long, List<long[]>> added = toIntervalsByVehicle(reservations);
+        for (List<long[]> intervals : added.values()) {
+            if (hasOverlap(intervals))
+                throw new IllegalArgumentException(bundle.getString("ExExistingRes"));
+        }
+        
+        PreparedStatement statement = null;
+        Connection connection = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+                // keeps concurrent createReservation calls out until commit
+                DBUtils.lockTableExclusively(connection, "Reservation");
+                
+                Map<Long, List<long[]>> existing = loadIntervalsByVehicle(connection, added);
+                for (Map.Entry<Long, List<long[]>> entry : added.entrySet()) {
+                    List<long[]> booked = existing.get(entry.getKey());
+                    if (booked != null && hasOverlap(booked, entry.getValue()))
+                        throw new IllegalArgumentException(bundle.getString("ExExistingRes"));
+                }
+                
+                statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+                List<Reservation> chunk = new ArrayList<>(Math.min(batchSize, reservations.size()));
+                for (Reservation reservation : reservations) {
+                    statement.setLong(1, reservation.getVehicle().getId());
+                    statement.setLong(2, reservation.getCustomer().getId());
+                    Calendar startDate = reservation.getStartDate();
+                    statement.setTimestamp(3, new Timestamp(startDate.getTimeInMillis()), startDate);
+                    Calendar endDate = reservation.getEndDate();
+                    statement.setTimestamp(4, new Timestamp(endDate.getTimeInMillis()), endDate);
+                    statement.setTimestamp(5, null, endDate);
+                    statement.setString(6, reservation.getInfo());
+                    statement.addBatch();
+                    chunk.add(reservation);
+                    
+                    if (chunk.size() == batchSize) {
+                        assignIds(chunk, DBUtils.executeInsertBatch(statement, "Reservation", chunk.size()));
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    assignIds(chunk, DBUtils.executeInsertBatch(statement, "Reservation", chunk.size()));
+                }
+                
+                connection.commit();
+                logger.debug("{} reservations {}.", reservations.size(), bundle.getString("AddedInDB"));
+                
+        } catch (SQLException e) { 
+            
+                for (Reservation reservation : reservations) {
+                    reservation.setId(null);
+                }
+                String message = bundle.getString("ExDbInsertErr1") + " " + 
+                        reservations.size() + " " + bundle.getString("ExDbInsertErr2") 
+                        + " " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.doRollbackQuietly(connection);
+                DBUtils.closeQuietly(connection, statement);
+            
+        }
+    }
+    
+    private static void assignIds(List<Reservation> reservations, long[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            reservations.get(i).setId(ids[i]);
+        }
+    }
+    
+    /**
+     * Groups [start, end] intervals in milliseconds by vehicle id, each list 
+     * is sorted by start.
+     */
+    private static Map<Long, List<long[]>> toIntervalsByVehicle(Collection<Reservation> reservations) {
+        
+        Map<Long, List<long[]>> intervals = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            List<long[]> list = intervals.get(reservation.getVehicle().getId());
+            if (list == null) {
+                list = new ArrayList<>();
+                intervals.put(reservation.getVehicle().getId(), list);
+            }
+            list.add(new long[] { reservation.getStartDate().getTimeInMillis(), 
+                                  reservation.getEndDate().getTimeInMillis() });
+        }
+        for (List<long[]> list : intervals.values()) {
+            Collections.sort(list, INTERVAL_ORDER);
+        }
+        return intervals;
+    }
+    
+    private static final Comparator<long[]> INTERVAL_ORDER = new Comparator<long[]>() {
+        @Override
+        public int compare(long[] a, long[] b) {
+            return a[0] < b[0] ? -1 : (a[0] == b[0] ? 0 : 1);
+        }
+    };
+    
+    /**
+     * Loads reservations of the given vehicles which may collide with the
+     * given intervals, querying the vehicles in IN lists of bounded size.
+     */
+    private Map<Long, List<long[]>> loadIntervalsByVehicle(Connection connection, 
+                                                          Map<Long, List<long[]>> added) throws SQLException {
+        
+        long minStart = Long.MAX_VALUE;
+        long maxEnd = Long.MIN_VALUE;
+        for (List<long[]> intervals : added.values()) {
+            for (long[] interval : intervals) {
+                minStart = Math.min(minStart, interval[0]);
+                maxEnd = Math.max(maxEnd, interval[1]);
+            }
+        }
+        
+        List<Long> vehicles = new ArrayList<>(added.keySet());
+        Map<Long, List<long[]>> intervals = new HashMap<>();
+        for (int from = 0; from < vehicles.size(); from += batchSize) {
+            List<Long> ids = vehicles.subList(from, Math.min(from + batchSize, vehicles.size()));
+            StringBuilder query = new StringBuilder("SELECT vehicle, startDate, endDate FROM Reservation "
+                                                  + "WHERE startDate <= ? AND endDate >= ? AND vehicle IN (?");
+            for (int i = 1; i < ids.size(); i++) {
+                query.append(", ?");
+            }
+            query.append(")");
+            
+            PreparedStatement statement = null;
+            ResultSet rows = null;
+            try {
+                    statement = connection.prepareStatement(query.toString());
+                    statement.setTimestamp(1, new Timestamp(maxEnd));
+                    statement.setTimestamp(2, new Timestamp(minStart));
+                    for (int i = 0; i < ids.size(); i++) {
+                        statement.setLong(i + 3, ids.get(i));
+                    }
+                    rows = statement.executeQuery();
+                    while (rows.next()) {
+                        Long vehicle = rows.getLong(1);
+                        List<long[]> list = intervals.get(vehicle);
+                        if (list == null) {
+                            list = new ArrayList<>();
+                            intervals.put(vehicle, list);
+                        }
+                        list.add(new long[] { rows.getTimestamp(2).getTime(), rows.getTimestamp(3).getTime() });
+                    }
+            } finally {
+                    DBUtils.closeQuietly(rows);
+                    DBUtils.closeQuietly(statement);
+            }
+        }
+        for (List<long[]> list : intervals.values()) {
+            Collections.sort(list, INTERVAL_ORDER);
+        }
+        return intervals;
+    }
+    
+    /**
+     * Checks sorted intervals of one vehicle as if they were created one by 
+     * one in the order of their start, see {@link #hasOverlappingReservation}.
+     */
+    private static boolean hasOverlap(List<long[]> sorted) {
+        
+        for (int i = 1; i < sorted.size(); i++) {
+            long[] previous = sorted.get(i - 1);
+            long[] current = sorted.get(i);
+            if (current[0] == previous[0] || current[0] < previous[1])
+                return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Checks new intervals against already booked ones, both sorted by start. 
+     * Booked interval collides if it starts within the new one or starts 
+     * before it and ends after its start.
+     */
+    private static boolean hasOverlap(List<long[]> booked, List<long[]> added) {
+        
+        long[] maxEndBefore = new long[booked.size()];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < booked.size(); i++) {
+            maxEnd = Math.max(maxEnd, booked.get(i)[1]);
+            maxEndBefore[i] = maxEnd;
+        }
+        
+        for (long[] interval : added) {
+            int first = Collections.binarySearch(booked, interval, INTERVAL_ORDER);
+            if (first < 0) {
+                first = -first - 1;
+            } else {
+                while (first > 0 && booked.get(first - 1)[0] == interval[0]) {
+                    first--;
+                }
+            }
+            if (first < booked.size() && booked.get(first)[0] <= interval[1])
+                return true;
+            if (first > 0 && maxEndBefore[first - 1] > interval[0])
+                return true;
+        }
+        return false;
+    }
+    
     @Override
     public void deleteReservation(Reservation reservation) {
         
@@ -331,7 +598,7 @@ public final class ReservationManagerImpl implements ReservationManager {
     public Reservation getReservationById(Long id) {
         
         checkDataSource();
-        final String query = "SELECT * FROM Reservation WHERE id = ?";                    
+        final String query = SELECT_RESERVATIONS + " WHERE r.id = ?";                    
         
         if (id == null)            
             throw new IllegalArgumentException(bundle.getString("ExNullResId")); 
@@ -341,6 +608,7 @@ public final class ReservationManagerImpl implements ReservationManager {
                 
         PreparedStatement statement = null;
         Connection connection = null;        
+        ResultSet rset = null;
         
         try {
             
@@ -348,12 +616,12 @@ public final class ReservationManagerImpl implements ReservationManager {
                 statement = connection.prepareStatement(query);
                 statement.setLong(1, id);
 
-                String message = null;  
                 Reservation reservation = null;            
-                ResultSet rset = statement.executeQuery();            
+                rset = statement.executeQuery();            
 
                 if(rset.next()) {              
-                    reservation = resultSetToReservation(rset);
+                    reservation = resultSetToReservation(rset, 
+                            new HashMap<Long, Vehicle>(), new HashMap<Long, Customer>());
                     if(rset.next()) {
                         throw new ServiceFailureException("Multiple entities with id : " + id + " retreived from database.");                    
                     }                                
@@ -368,6 +636,7 @@ public final class ReservationManagerImpl implements ReservationManager {
               
         } finally {
             
+                DBUtils.closeQuietly(rset);
                 DBUtils.closeQuietly(connection, statement);
             
         }
@@ -377,33 +646,25 @@ public final class ReservationManagerImpl implements ReservationManager {
     public Collection<Reservation> getReservationsByVehicle(Vehicle vehicle) {
         
         checkDataSource();
-        final String query = "SELECT * "
-                           + "FROM Reservation "
-                           + "WHERE vehicle = ?";
+        final String query = SELECT_RESERVATIONS + " WHERE r.vehicle = ?";
         
         if (vehicle == null)                 
             throw new IllegalArgumentException("Vehicle can not be null.");            
         
-        if (vehicle.getId() != null)                
-            throw new IllegalArgumentException("Vehicle id can not be already assigned.");  
+        if (vehicle.getId() == null)                
+            throw new IllegalArgumentException("Vehicle id can not be null.");  
         
         PreparedStatement statement = null;
         Connection connection = null; 
+        ResultSet rows = null;
         
         try {
 
                 connection = dataSource.getConnection();
                 statement = connection.prepareStatement(query);
                 statement.setLong(1, vehicle.getId());
-
-                String message = null;  
-                List<Reservation> reservations = new ArrayList<>();            
-                ResultSet rows = statement.executeQuery();            
-
-                while (rows.next()) {
-                    reservations.add(resultSetToReservation(rows));
-                }              
-                return reservations;
+                rows = statement.executeQuery();            
+                return resultSetToReservations(rows);
                 
         } catch(SQLException e) {
             
@@ -413,6 +674,7 @@ public final class ReservationManagerImpl implements ReservationManager {
                 
         } finally {
             
+                DBUtils.closeQuietly(rows);
                 DBUtils.closeQuietly(connection, statement);   
             
         }
@@ -422,33 +684,25 @@ public final class ReservationManagerImpl implements ReservationManager {
     public Collection<Reservation> getReservationByCustomer(Customer customer) {
         
         checkDataSource();
-        final String query = "SELECT * "
-                           + "FROM Reservation "
-                           + "WHERE customer = ?";
+        final String query = SELECT_RESERVATIONS + " WHERE r.customer = ?";
         
         if (customer == null)                 
             throw new IllegalArgumentException("Customer can not be null.");            
         
-        if (customer.getId() != null)                
-            throw new IllegalArgumentException("Customer id can not be already assigned.");  
+        if (customer.getId() == null)                
+            throw new IllegalArgumentException("Customer id can not be null.");  
         
         PreparedStatement statement = null;
         Connection connection = null; 
+        ResultSet rows = null;
         
         try {
             
                 connection = dataSource.getConnection();
                 statement = connection.prepareStatement(query);
                 statement.setLong(1, customer.getId());
-
-                String message = null;  
-                List<Reservation> reservations = new ArrayList<>();            
-                ResultSet rows = statement.executeQuery();            
-
-                while (rows.next()) {
-                    reservations.add(resultSetToReservation(rows));
-                }              
-                return reservations;
+                rows = statement.executeQuery();            
+                return resultSetToReservations(rows);
                 
         } catch(SQLException e) {
             
@@ -458,6 +712,7 @@ public final class ReservationManagerImpl implements ReservationManager {
                 
         } finally {
             
+                DBUtils.closeQuietly(rows);
                 DBUtils.closeQuietly(connection, statement);    
                 
         }
@@ -467,22 +722,18 @@ public final class ReservationManagerImpl implements ReservationManager {
     public Collection<Reservation> getAllReservations() {
        
         checkDataSource();
-        final String query = "SELECT * FROM Reservation";                
+        final String query = SELECT_RESERVATIONS;                
         
         PreparedStatement statement = null;
         Connection connection = null;
+        ResultSet rows = null;
         
         try {
             
                 connection = dataSource.getConnection();            
                 statement = connection.prepareStatement(query);
-                List<Reservation> reservations = new ArrayList<>();            
-                ResultSet rows = statement.executeQuery();
-
-                while(rows.next()) {
-                    reservations.add(resultSetToReservation(rows));
-                }
-                return reservations;
+                rows = statement.executeQuery();
+                return resultSetToReservations(rows);
                 
         } catch (SQLException e) {
             
@@ -492,11 +743,121 @@ public final class ReservationManagerImpl implements ReservationManager {
                 
         } finally {
             
+                DBUtils.closeQuietly(rows);
                 DBUtils.closeQuietly(connection, statement);
                 
         } 
     }
 
+    @Override
+    public List<Reservation> getReservationsPage(Long afterId, int pageSize) {
+
+        checkDataSource();
+        final String query = SELECT_RESERVATIONS + " WHERE r.id > ? ORDER BY r.id FETCH FIRST ? ROWS ONLY";
+
+        if (afterId != null && afterId < 0L)
+            throw new IllegalArgumentException(bundle.getString("ExResNegVal"));
+
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("Page size must be positive.");
+
+        PreparedStatement statement = null;
+        Connection connection = null;
+        ResultSet rows = null;
+
+        try {
+
+                connection = dataSource.getConnection();
+                statement = connection.prepareStatement(query);
+                statement.setLong(1, afterId == null ? 0L : afterId);
+                statement.setInt(2, pageSize);
+                rows = statement.executeQuery();
+                return resultSetToReservations(rows);
+
+        } catch (SQLException e) {
+
+                String message = bundle.getString("ExGettingFromDb") + " : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e);
+
+        } finally {
+
+                DBUtils.closeQuietly(rows);
+                DBUtils.closeQuietly(connection, statement);
+
+        }
+    }
+
+    @Override
+    public long[] getReservationIds() {
+        return getReservationIds(null);
+    }
+    
+    @Override
+    public long[] getReservationIds(Long afterId) {
+        
+        checkDataSource();
+        Connection connection = null;
+        try {
+            
+                connection = dataSource.getConnection();
+                return DBUtils.selectIds(connection, "Reservation", afterId);
+                
+        } catch (SQLException e) {
+            
+                String message = "Error when getting reservation ids from database : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(connection);
+            
+        }
+    }
+    
+    @Override
+    public void forEachReservation(EntityCallback<Reservation> callback, int fetchSize) {
+
+        checkDataSource();
+        final String query = SELECT_RESERVATIONS;
+
+        if (callback == null)
+            throw new IllegalArgumentException("Callback can not be null.");
+
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("Fetch size must be positive.");
+
+        PreparedStatement statement = null;
+        Connection connection = null;
+        ResultSet rows = null;
+
+        try {
+
+                connection = dataSource.getConnection();
+                statement = connection.prepareStatement(query,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                rows = statement.executeQuery();
+                // no identity maps, they would grow with the number of rows
+                while (rows.next()) {
+                    callback.process(resultSetToReservation(rows, null, null));
+                }
+
+        } catch (SQLException e) {
+
+                String message = bundle.getString("ExGettingFromDb") + " : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e);
+
+        } finally {
+
+                DBUtils.closeQuietly(rows);
+                DBUtils.closeQuietly(connection, statement);
+
+        }
+    }
+
     @Override
     public Collection<Vehicle> getAvaibleVehicle() {
         
@@ -531,13 +892,182 @@ public final class ReservationManagerImpl implements ReservationManager {
             
         }    
     }
+
+    @Override
+    public List<Vehicle> findAvailableVehicles(Calendar start, Calendar end, 
+                                               Vehicle.Brand brand, BigDecimal maxPrice) {
+        
+        checkDataSource();
+        
+        if (start == null)                
+            throw new IllegalArgumentException(bundle.getString("ExStartDateNull"));
+        
+        if (end == null)                
+            throw new IllegalArgumentException(bundle.getString("ExEndDateNull"));
+        
+        if (start.compareTo(end) > 0)
+            throw new IllegalArgumentException(bundle.getString("ExEndBeforeStart"));
+        
+        if (maxPrice != null && maxPrice.signum() < 0)
+            throw new IllegalArgumentException(bundle.getString("ExNegativePrice"));
+        
+        // Anti-join probing RESERVATION_VEHICLE_DATES_IDX once per vehicle,
+        // the collision rule is the one of hasOverlappingReservation
+        StringBuilder query = new StringBuilder("SELECT v.* FROM Vehicle v WHERE NOT EXISTS ("
+                + "SELECT 1 FROM Reservation r WHERE r.vehicle = v.id AND r.startDate <= ? "
+                + "AND (r.startDate >= ? OR r.endDate > ?))");
+        if (brand != null)
+            query.append(" AND v.brand = ?");
+        if (maxPrice != null)
+            query.append(" AND v.price <= ?");
+        query.append(" ORDER BY v.id");
+        
+        PreparedStatement statement = null;
+        Connection connection = null;
+        ResultSet rows = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();
+                statement = connection.prepareStatement(query.toString());
+                
+                Timestamp startTime = new Timestamp(start.getTimeInMillis());
+                statement.setTimestamp(1, new Timestamp(end.getTimeInMillis()));
+                statement.setTimestamp(2, startTime);
+                statement.setTimestamp(3, startTime);
+                int index = 4;
+                if (brand != null)
+                    statement.setString(index++, brand.toString());
+                if (maxPrice != null)
+                    statement.setBigDecimal(index++, maxPrice);
+                rows = statement.executeQuery();
+
+                List<Vehicle> vehicles = new ArrayList<>();
+                while (rows.next()) {
+                    vehicles.add(DBUtils.resultSetToVehicle(rows));
+                }
+                return vehicles;
+                
+        } catch (SQLException e) {
+            
+                String message = "Error when searching available vehicles from database.";
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(rows);
+                DBUtils.closeQuietly(connection, statement);
+            
+        }
+    }
+      
+    /**
+     * Takes a row lock on the reserved vehicle for the rest of the transaction, 
+     * so concurrent bookings of the same vehicle are serialized and cannot 
+     * both pass the overlap check.
+     */
+    private void lockVehicle(Connection connection, Vehicle vehicle) throws SQLException {
+        
+        final String query = "UPDATE Vehicle SET price = price WHERE id = ?";
+        
+        PreparedStatement statement = null;
+        try {
+                statement = connection.prepareStatement(query);
+                statement.setLong(1, vehicle.getId());
+                if (statement.executeUpdate() == 0) {
+                    String message = bundle.getString("Entity") + " " + vehicle.toString() + " " + bundle.getString("NotExisting");
+                    throw new IllegalArgumentException(message);
+                }
+        } finally {
+                DBUtils.closeQuietly(statement);
+        }
+    }
+    
+    /**
+     * Looks for a reservation colliding with the given one, probing 
+     * RESERVATION_VEHICLE_DATES_IDX (migration V1) on the vehicle's rows. A 
+     * reservation starting inside the new interval always collides, one 
+     * starting before it collides if it ends after the new start. Every 
+     * earlier reservation is checked, as updateReservation does not keep the 
+     * stored reservations from overlapping each other.
+     */
+    private boolean hasOverlappingReservation(Connection connection, Reservation reservation) throws SQLException {
+        
+        final String query = "SELECT id FROM Reservation WHERE vehicle = ? AND startDate <= ? "
+                           + "AND (startDate >= ? OR endDate > ?)";
+        
+        PreparedStatement statement = null;
+        ResultSet rset = null;
+        try {
+                Timestamp start = new Timestamp(reservation.getStartDate().getTimeInMillis());
+            
+                statement = connection.prepareStatement(query);
+                statement.setMaxRows(1);
+                statement.setLong(1, reservation.getVehicle().getId());
+                statement.setTimestamp(2, new Timestamp(reservation.getEndDate().getTimeInMillis()));
+                statement.setTimestamp(3, start);
+                statement.setTimestamp(4, start);
+                rset = statement.executeQuery();
+                return rset.next();
+        } finally {
+                DBUtils.closeQuietly(rset);
+                DBUtils.closeQuietly(statement);
+        }
+    }
+    
+    /**
+     * Maps all rows of a {@link #SELECT_RESERVATIONS} result. Vehicles and 
+     * customers shared by several reservations are built only once.
+     */
+    private List<Reservation> resultSetToReservations(ResultSet rows) throws SQLException {
+        
+        Map<Long, Vehicle> vehicles = new HashMap<>();
+        Map<Long, Customer> customers = new HashMap<>();
+        List<Reservation> reservations = new ArrayList<>();
+        while (rows.next()) {
+            reservations.add(resultSetToReservation(rows, vehicles, customers));
+        }
+        return reservations;
+    }
       
-    private Reservation resultSetToReservation(ResultSet row) throws SQLException {
+    /**
+     * Maps the current row of a {@link #SELECT_RESERVATIONS} result. Vehicles 
+     * and customers are looked up in and added to the given identity maps, 
+     * <code>null</code> maps mean every row gets its own instances.
+     */
+    private Reservation resultSetToReservation(ResultSet row, 
+                                               Map<Long, Vehicle> vehicles, 
+                                               Map<Long, Customer> customers) throws SQLException {
         
         Reservation reservation = new Reservation();
         reservation.setId(row.getLong("id"));        
-        reservation.setVehicle(vehicleManager.getVehicleById(row.getLong("vehicle")));
-        reservation.setCustomer(customerManager.getCustomerById(row.getLong("customer")));
+        
+        Long vehicleId = row.getLong("vehicle");
+        Vehicle vehicle = vehicles == null ? null : vehicles.get(vehicleId);
+        if (vehicle == null) {
+            vehicle = new Vehicle();
+            vehicle.setId(vehicleId);
+            vehicle.setBrand(Vehicle.Brand.valueOf(row.getString("vehicleBrand").toUpperCase()));
+            vehicle.setPrice(row.getBigDecimal("vehiclePrice"));
+            if (vehicles != null)
+                vehicles.put(vehicleId, vehicle);
+        }
+        reservation.setVehicle(vehicle);
+        
+        Long customerId = row.getLong("customer");
+        Customer customer = customers == null ? null : customers.get(customerId);
+        if (customer == null) {
+            customer = new Customer();
+            customer.setId(customerId);
+            customer.setName(row.getString("customerName"));
+            customer.setAddress(row.getString("customerAddress"));
+            customer.setPhone(row.getString("customerPhone"));
+            customer.setEmail(row.getString("customerEmail"));
+            if (customers != null)
+                customers.put(customerId, customer);
+        }
+        reservation.setCustomer(customer);
         
         Calendar startDate = new GregorianCalendar();        
         startDate.setTimeInMillis(row.getTimestamp("startDate").getTime());        
@@ -547,11 +1077,12 @@ public final class ReservationManagerImpl implements ReservationManager {
         endDate.setTimeInMillis(row.getTimestamp("endDate").getTime());        
         reservation.setEndDate(endDate);
                
-        if (row.getTimestamp("realEndDate") == null) {
+        Timestamp realEnd = row.getTimestamp("realEndDate");
+        if (realEnd == null) {
             reservation.setRealEndDate(null);
         } else {
             Calendar realEndDate = new GregorianCalendar();
-            realEndDate.setTimeInMillis(row.getTimestamp("realEndDate").getTime());
+            realEndDate.setTimeInMillis(realEnd.getTime());
             reservation.setRealEndDate(realEndDate);
         }                       
                         
@@ -0,0 +1,180 @@
+package cz.muni.fi.pv168.rent;
+
+import cz.muni.fi.pv168.common.ServiceFailureException;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies versioned migration scripts on top of the schema created by
+ * <code>createTables.sql</code>. The version of the last applied script is
+ * kept in the <code>SCHEMA_VERSION</code> table, every script runs in its own
+ * transaction together with the version update.
+ */
+public final class SchemaMigrator {
+
+    public final static org.slf4j.Logger logger =
+            LoggerFactory.getLogger(SchemaMigrator.class.getName());
+
+    /**
+     * Migration scripts in the order they are applied, script at index i
+     * migrates the schema to version i + 1. Scripts may only be appended.
+     */
+    static final String[] MIGRATIONS = {
+        "/migrations/V1__reservation_indexes.sql",
+        "/migrations/V2__vehicle_brand_price_index.sql",
+    };
+
+    private SchemaMigrator() {
+    }
+
+    public static int getLatestVersion() {
+        return MIGRATIONS.length;
+    }
+
+    /**
+     * Returns version of the schema, 0 if no migration was applied yet.
+     */
+    public static int getCurrentVersion(DataSource dataSource) {
+
+        Connection connection = null;
+        try {
+                connection = dataSource.getConnection();
+                return getCurrentVersion(connection);
+
+        } catch (SQLException e) {
+
+                String message = "Error when reading schema version : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e);
+
+        } finally {
+
+                DBUtils.closeQuietly(connection);
+
+        }
+    }
+
+    /**
+     * Applies all migrations newer than the current schema version.
+     *
+     * @return version of the schema after migration
+     */
+    public static int migrate(DataSource dataSource) {
+        return migrate(dataSource, getLatestVersion());
+    }
+
+    /**
+     * Applies the migrations newer than the current schema version up to the
+     * given one, a schema of the given or a newer version is left as it is.
+     * Older versions are useful for measuring what the later migrations
+     * change.
+     *
+     * @return version of the schema after migration
+     */
+    public static int migrate(DataSource dataSource, int targetVersion) {
+
+        if (dataSource == null)
+            throw new IllegalArgumentException("DataSource can not be null.");
+
+        if (targetVersion < 0 || targetVersion > getLatestVersion())
+            throw new IllegalArgumentException("Unknown schema version " + targetVersion + ".");
+
+        Connection connection = null;
+        int version = 0;
+        try {
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+                createVersionTable(connection);
+                connection.commit();
+                version = getCurrentVersion(connection);
+
+                while (version < targetVersion) {
+                    URL script = SchemaMigrator.class.getResource(MIGRATIONS[version]);
+                    if (script == null)
+                        throw new IllegalStateException("Missing migration script " + MIGRATIONS[version]);
+
+                    DBUtils.executeSqlScript(connection, script);
+                    setCurrentVersion(connection, version + 1);
+                    connection.commit();
+                    version++;
+                    logger.info("Schema migrated to version {} by {}", version, MIGRATIONS[version - 1]);
+                }
+                return version;
+
+        } catch (SQLException e) {
+
+                String message = "Error when migrating schema from version " + version + " : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e);
+
+        } finally {
+
+                DBUtils.rollbackAndCloseQuietly(connection);
+
+        }
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        ResultSet tables = null;
+        try {
+                tables = metaData.getTables(null, null, "SCHEMA_VERSION", null);
+                if (tables.next())
+                    return;
+        } finally {
+                DBUtils.closeQuietly(tables);
+        }
+
+        Statement statement = null;
+        try {
+                statement = connection.createStatement();
+                statement.executeUpdate("CREATE TABLE \"SCHEMA_VERSION\" (\"VERSION\" INTEGER NOT NULL)");
+                statement.executeUpdate("INSERT INTO \"SCHEMA_VERSION\" (\"VERSION\") VALUES (0)");
+        } finally {
+                DBUtils.closeQuietly(statement);
+        }
+    }
+
+    private static int getCurrentVersion(Connection connection) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        ResultSet rset = metaData.getTables(null, null, "SCHEMA_VERSION", null);
+        try {
+                if (!rset.next())
+                    return 0;
+        } finally {
+                DBUtils.closeQuietly(rset);
+        }
+
+        Statement statement = null;
+        rset = null;
+        try {
+                statement = connection.createStatement();
+                rset = statement.executeQuery("SELECT MAX(\"VERSION\") FROM \"SCHEMA_VERSION\"");
+                return rset.next() ? rset.getInt(1) : 0;
+        } finally {
+                DBUtils.closeQuietly(rset);
+                DBUtils.closeQuietly(statement);
+        }
+    }
+
+    private static void setCurrentVersion(Connection connection, int version) throws SQLException {
+
+        PreparedStatement statement = null;
+        try {
+                statement = connection.prepareStatement("UPDATE \"SCHEMA_VERSION\" SET \"VERSION\" = ?");
+                statement.setInt(1, version);
+                statement.executeUpdate();
+        } finally {
+                DBUtils.closeQuietly(statement);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package cz.muni.fi.pv168.rent;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Data source recording how long the statements executed over its
+ * connections take into {@link QueryStatistics}. The time of a query
+ * includes reading its result set, the rows read are counted when the result
+ * set or its statement is closed. Executions taking at least the slow query
+ * threshold are logged to the <code>cz.muni.fi.pv168.rent.SlowQuery</code>
+ * logger together with the calling method.
+ */
+public class TimingDataSource implements DataSource {
+
+    public final static org.slf4j.Logger slowQueryLogger =
+            LoggerFactory.getLogger("cz.muni.fi.pv168.rent.SlowQuery");
+
+    private static final String BATCH_SQL = "<batch>";
+
+    private final DataSource delegate;
+    private final long slowQueryThresholdNanos;
+    private final QueryStatistics statistics = new QueryStatistics();
+
+    /**
+     * @param delegate data source providing the connections
+     * @param slowQueryThresholdMillis executions taking at least this time
+     *                                 are logged, negative value turns the
+     *                                 logging off
+     */
+    public TimingDataSource(DataSource delegate, long slowQueryThresholdMillis) {
+        if (delegate == null)
+            throw new IllegalArgumentException("DataSource can not be null.");
+        this.delegate = delegate;
+        this.slowQueryThresholdNanos = slowQueryThresholdMillis < 0
+                ? Long.MAX_VALUE : slowQueryThresholdMillis * 1000000L;
+    }
+
+    public DataSource getDelegate() {
+        return delegate;
+    }
+
+    public QueryStatistics getStatistics() {
+        return statistics;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdNanos == Long.MAX_VALUE ? -1 : slowQueryThresholdNanos / 1000000L;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+                Connection connection = wrap(delegate.getConnection());
+                failed = false;
+                return connection;
+        } finally {
+                statistics.recordConnectionWait(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+                Connection connection = wrap(delegate.getConnection(username, password));
+                failed = false;
+                return connection;
+        } finally {
+                statistics.recordConnectionWait(System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(delegate))
+            return iface.cast(delegate);
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(delegate) || delegate.isWrapperFor(iface);
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+    }
+
+    private void record(String sql, long nanos, long rows, boolean failed) {
+
+        statistics.record(sql, nanos, rows, failed);
+        if (nanos >= slowQueryThresholdNanos && slowQueryLogger.isWarnEnabled()) {
+            slowQueryLogger.warn("{} ms, {} rows{} in {} : {}", nanos / 1000000, rows < 0 ? "?" : rows,
+                    failed ? " (failed)" : "", findCaller(), sql);
+        }
+    }
+
+    /**
+     * Returns the first method on the stack outside of this class and of the
+     * JDBC proxies, usually the manager method executing the statement.
+     */
+    private static String findCaller() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.startsWith(TimingDataSource.class.getName()) || className.startsWith("com.sun.proxy")
+                    || className.startsWith("jdk.proxy") || className.startsWith("java.")
+                    || className.startsWith("sun.") || className.startsWith("jdk.")
+                    || className.startsWith(DBUtils.class.getName()))
+                continue;
+            return className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName()
+                    + ":" + element.getLineNumber();
+        }
+        return "?";
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+                return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+                throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            Object result = TimingDataSource.invoke(connection, method, args);
+            String name = method.getName();
+            if (name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                        new Class<?>[] { method.getReturnType() }, new StatementHandler((Statement) result, sql));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Times the execute methods of a statement. Calling the method with a
+     * SQL argument times that SQL, otherwise the SQL the statement was
+     * prepared with is used.
+     */
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private ResultSetHandler resultSet;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if (name.equals("close"))
+                finishResultSet();
+            if (!name.startsWith("execute"))
+                return TimingDataSource.invoke(statement, method, args);
+
+            finishResultSet();
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null)
+                sql = BATCH_SQL;
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                    result = TimingDataSource.invoke(statement, method, args);
+            } catch (Throwable e) {
+                    record(sql, System.nanoTime() - start, -1, true);
+                    throw e;
+            }
+            long nanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet) {
+                resultSet = new ResultSetHandler((ResultSet) result, sql, nanos);
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                        new Class<?>[] { ResultSet.class }, resultSet);
+            }
+            record(sql, nanos, countRows(result), false);
+            return result;
+        }
+
+        private void finishResultSet() {
+            if (resultSet != null) {
+                resultSet.finish();
+                resultSet = null;
+            }
+        }
+    }
+
+    private static long countRows(Object result) {
+        if (result instanceof Number)
+            return ((Number) result).longValue();
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                if (count > 0)
+                    rows += count;
+            }
+            return rows;
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the rows read from a query result and the time spent reading
+     * them, the query is recorded when the result set is closed.
+     */
+    private class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final String sql;
+        private long nanos;
+        private long rows;
+        private boolean failed;
+        private boolean finished;
+
+        ResultSetHandler(ResultSet resultSet, String sql, long executeNanos) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.nanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            String name = method.getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                try {
+                        Object hasNext = TimingDataSource.invoke(resultSet, method, args);
+                        if (Boolean.TRUE.equals(hasNext))
+                            rows++;
+                        return hasNext;
+                } catch (Throwable e) {
+                        failed = true;
+                        throw e;
+                } finally {
+                        nanos += System.nanoTime() - start;
+                }
+            }
+            if (name.equals("close"))
+                finish();
+            return TimingDataSource.invoke(resultSet, method, args);
+        }
+
+        synchronized void finish() {
+            if (finished)
+                return;
+            finished = true;
+            record(sql, nanos, rows, failed);
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package cz.muni.fi.pv168.rent;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface VehicleManager {
     
     public void createVehicle(Vehicle vehicle);   
     
+    /**
+     * Creates all vehicles in one transaction using JDBC batches and assigns
+     * them their generated ids. Nothing is created if any of them is invalid.
+     */
+    public void createVehicles(Collection<Vehicle> vehicles);
+    
     public void deleteVehicle(Vehicle vehicle);
     
     public void updateVehicle(Vehicle vehicle);
@@ -13,4 +20,30 @@ public interface VehicleManager {
     public Vehicle getVehicleById(Long id);
     
     public Collection<Vehicle> getAllVehicles();        
+    
+    /**
+     * Returns at most <code>pageSize</code> vehicles with id greater than
+     * <code>afterId</code> ordered by id. Pass <code>null</code> for the first
+     * page and the id of the last returned vehicle for the next one.
+     */
+    public List<Vehicle> getVehiclesPage(Long afterId, int pageSize);
+    
+    /**
+     * Returns ids of all vehicles in ascending order.
+     */
+    public long[] getVehicleIds();
+    
+    /**
+     * Returns ids of the vehicles with id greater than <code>afterId</code> 
+     * in ascending order, all ids for <code>null</code>. Reads only the end 
+     * of the primary key index, e.g. to find vehicles added since.
+     */
+    public long[] getVehicleIds(Long afterId);
+    
+    /**
+     * Passes every vehicle to the callback, reading the table through a
+     * forward-only cursor with the given fetch size. The connection is 
+     * released when the method returns.
+     */
+    public void forEachVehicle(EntityCallback<Vehicle> callback, int fetchSize);
 }
@@ -10,7 +10,10 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import javax.sql.DataSource;
 import org.slf4j.LoggerFactory;
 
@@ -22,6 +25,7 @@ public final class VehicleManagerImpl implements VehicleManager {
     
     java.util.ResourceBundle bundle = java.util.ResourceBundle.getBundle("Strings");    
     private DataSource dataSource;       
+    private int batchSize = DBUtils.DEFAULT_BATCH_SIZE;
 
     public VehicleManagerImpl(DataSource dataSource) {
         this.dataSource = dataSource;
@@ -35,6 +39,19 @@ public final class VehicleManagerImpl implements VehicleManager {
         this.dataSource = dataSource;
     }     
     
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of rows sent in one JDBC batch by {@link #createVehicles(Collection)}.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be positive.");
+        this.batchSize = batchSize;
+    }
+    
     private void checkDataSource() {
         if (dataSource == null) {
             throw new IllegalStateException("DataSource is not set.");
@@ -47,20 +64,7 @@ public final class VehicleManagerImpl implements VehicleManager {
         checkDataSource();
         final String query = "INSERT INTO Vehicle (Brand, Price) VALUES(?, ?)";               
         
-        if (vehicle == null)                 
-            throw new IllegalArgumentException(bundle.getString("ExNullVehicle"));   //("Vehicle can not be null.");            
-        
-        if (vehicle.getId() != null)                
-            throw new IllegalArgumentException(bundle.getString("ExVehicleId"));  //("Vehicle id can not be already assigned.");
-            
-        if (vehicle.getPrice() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExNullPrice"));  //("Vehicle price can not be null."); 
-        
-        if (vehicle.getPrice().compareTo(BigDecimal.ZERO) < 0)                
-            throw new IllegalArgumentException(bundle.getString("ExNegativePrice"));  //("Vehicle can not have negative price.");
-        
-        if (vehicle.getBrand() == null)                
-            throw new IllegalArgumentException(bundle.getString("ExNullBrand"));  //("Vehicle brand can not be null.");
+        validateNewVehicle(vehicle);
                                                 
         Connection connection = null;                
         PreparedStatement statement = null;
@@ -109,6 +113,96 @@ public final class VehicleManagerImpl implements VehicleManager {
     }
 
     
+    private void validateNewVehicle(Vehicle vehicle) {
+        
+        if (vehicle == null)                 
+            throw new IllegalArgumentException(bundle.getString("ExNullVehicle"));   //("Vehicle can not be null.");            
+        
+        if (vehicle.getId() != null)                
+            throw new IllegalArgumentException(bundle.getString("ExVehicleId"));  //("Vehicle id can not be already assigned.");
+            
+        if (vehicle.getPrice() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExNullPrice"));  //("Vehicle price can not be null."); 
+        
+        if (vehicle.getPrice().compareTo(BigDecimal.ZERO) < 0)                
+            throw new IllegalArgumentException(bundle.getString("ExNegativePrice"));  //("Vehicle can not have negative price.");
+        
+        if (vehicle.getBrand() == null)                
+            throw new IllegalArgumentException(bundle.getString("ExNullBrand"));  //("Vehicle brand can not be null.");
+    }
+    
+    @Override
+    public void createVehicles(Collection<Vehicle> vehicles) {
+        
+        checkDataSource();
+        final String query = "INSERT INTO Vehicle (Brand, Price) VALUES(?, ?)";
+        
+        if (vehicles == null)
+            throw new IllegalArgumentException("Vehicles can not be null.");
+        
+        Set<Vehicle> unique = Collections.newSetFromMap(new IdentityHashMap<Vehicle, Boolean>());
+        for (Vehicle vehicle : vehicles) {
+            validateNewVehicle(vehicle);
+            if (!unique.add(vehicle))
+                throw new IllegalArgumentException("Vehicle is listed more than once : " + vehicle.toString());
+        }
+        
+        if (vehicles.isEmpty())
+            return;
+        
+        Connection connection = null;        
+        PreparedStatement statement = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+                DBUtils.lockTableExclusively(connection, "Vehicle");
+                statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+                
+                List<Vehicle> chunk = new ArrayList<>(Math.min(batchSize, vehicles.size()));
+                for (Vehicle vehicle : vehicles) {
+                    statement.setString(1, vehicle.getBrand().toString());
+                    statement.setBigDecimal(2, vehicle.getPrice());
+                    statement.addBatch();
+                    chunk.add(vehicle);
+                    
+                    if (chunk.size() == batchSize) {
+                        assignIds(chunk, DBUtils.executeInsertBatch(statement, "Vehicle", chunk.size()));
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    assignIds(chunk, DBUtils.executeInsertBatch(statement, "Vehicle", chunk.size()));
+                }
+                
+                connection.commit();
+                logger.debug("{} vehicles {}.", vehicles.size(), bundle.getString("AddedInDB"));
+                connection.setAutoCommit(true);
+            
+        } catch (SQLException e) {          
+            
+                for (Vehicle vehicle : vehicles) {
+                    vehicle.setId(null);
+                }
+                String message = bundle.getString("ExDbInsertErr1") + " " + vehicles.size() + " " + bundle.getString("ExDbInsertErr2") + " " + e.getMessage();                
+                logger.warn(message, e);                
+                throw new ServiceFailureException(message, e);  
+                
+        } finally {
+            
+                DBUtils.closeQuietly(statement);             
+                DBUtils.rollbackAndCloseQuietly(connection);
+            
+        }
+    }
+    
+    private static void assignIds(List<Vehicle> vehicles, long[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            vehicles.get(i).setId(ids[i]);
+        }
+    }
+    
     @Override
     public void deleteVehicle(Vehicle vehicle) {
         
@@ -319,4 +413,118 @@ public final class VehicleManagerImpl implements VehicleManager {
             
         }                
     } 
+
+    @Override
+    public List<Vehicle> getVehiclesPage(Long afterId, int pageSize) {
+        
+        checkDataSource();
+        final String query = "SELECT * FROM Vehicle WHERE Id > ? ORDER BY Id FETCH FIRST ? ROWS ONLY";
+        
+        if (afterId != null && afterId < 0L)
+            throw new IllegalArgumentException("Vehicle id can not be negative.");
+        
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("Page size must be positive.");
+        
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet rset = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();            
+                statement = connection.prepareStatement(query);            
+                statement.setLong(1, afterId == null ? 0L : afterId);
+                statement.setInt(2, pageSize);
+                rset = statement.executeQuery();   
+                List<Vehicle> page = new ArrayList<>(Math.min(pageSize, 1024));
+                while(rset.next()) {                
+                    page.add(DBUtils.resultSetToVehicle(rset));
+                }                                                  
+                return page;  
+                
+        } catch (SQLException e) {
+            
+                String message = bundle.getString("ExGettingFromDb") + " : " + e.getMessage();                
+                logger.warn(message, e);             
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(rset);
+                DBUtils.closeQuietly(statement);             
+                DBUtils.closeQuietly(connection);
+            
+        } 
+    }
+    
+    @Override
+    public long[] getVehicleIds() {
+        return getVehicleIds(null);
+    }
+    
+    @Override
+    public long[] getVehicleIds(Long afterId) {
+        
+        checkDataSource();
+        Connection connection = null;
+        try {
+            
+                connection = dataSource.getConnection();
+                return DBUtils.selectIds(connection, "Vehicle", afterId);
+                
+        } catch (SQLException e) {
+            
+                String message = "Error when getting vehicle ids from database : " + e.getMessage();
+                logger.warn(message, e);
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(connection);
+            
+        }
+    }
+    
+    @Override
+    public void forEachVehicle(EntityCallback<Vehicle> callback, int fetchSize) {
+        
+        checkDataSource();
+        final String query = "SELECT * FROM Vehicle";
+        
+        if (callback == null)
+            throw new IllegalArgumentException("Callback can not be null.");
+        
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("Fetch size must be positive.");
+        
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet rset = null;
+        
+        try {
+            
+                connection = dataSource.getConnection();            
+                statement = connection.prepareStatement(query, 
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);            
+                statement.setFetchSize(fetchSize);
+                rset = statement.executeQuery();   
+                while(rset.next()) {                
+                    callback.process(DBUtils.resultSetToVehicle(rset));
+                }                                                  
+                
+        } catch (SQLException e) {
+            
+                String message = bundle.getString("ExGettingFromDb") + " : " + e.getMessage();                
+                logger.warn(message, e);             
+                throw new ServiceFailureException(message, e); 
+            
+        } finally {
+            
+                DBUtils.closeQuietly(rset);
+                DBUtils.closeQuietly(statement);             
+                DBUtils.closeQuietly(connection);
+            
+        } 
+    }
 }
@@ -0,0 +1 @@
+DROP TABLE "SCHEMA_VERSION";
@@ -0,0 +1,12 @@
+-- Secondary indexes for the queries of ReservationManagerImpl.
+-- RESERVATION(VEHICLE) and RESERVATION(CUSTOMER) are already covered by the
+-- backing indexes Derby creates for the foreign key constraints.
+
+-- Overlap check in createReservation and getReservationsByVehicle
+CREATE INDEX "RESERVATION_VEHICLE_DATES_IDX" ON "RESERVATION" ("VEHICLE", "STARTDATE", "ENDDATE");
+
+-- Reservations by date range
+CREATE INDEX "RESERVATION_DATES_IDX" ON "RESERVATION" ("STARTDATE", "ENDDATE");
+
+-- Open reservations in getAvaibleVehicle, covers the whole subquery
+CREATE INDEX "RESERVATION_REALENDDATE_IDX" ON "RESERVATION" ("REALENDDATE", "VEHICLE");
@@ -0,0 +1,2 @@
+-- Brand and price filters of ReservationManagerImpl.findAvailableVehicles
+CREATE INDEX "VEHICLE_BRAND_PRICE_IDX" ON "VEHICLE" ("BRAND", "PRICE");
@@ -0,0 +1,124 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncExecutorTest {
+
+    private AsyncExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new AsyncExecutor(1, 1);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void submit_SuccessfulCall_CallbackShouldGetResult() throws Exception {
+
+        final CountDownLatch notified = new CountDownLatch(1);
+        final AtomicReference<String> received = new AtomicReference<>();
+        Future<String> future = executor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        }, new AsyncCallback<String>() {
+            @Override
+            public void onSuccess(String result) {
+                received.set(result);
+                notified.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                notified.countDown();
+            }
+        });
+
+        assertThat(future.get(5, TimeUnit.SECONDS), is("done"));
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        assertThat(received.get(), is("done"));
+    }
+
+    @Test
+    public void submit_FailingCall_CallbackShouldGetException() throws Exception {
+
+        final CountDownLatch notified = new CountDownLatch(1);
+        final AtomicReference<Throwable> received = new AtomicReference<>();
+        Future<Void> future = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                throw new IllegalArgumentException("invalid");
+            }
+        }, new AsyncCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                notified.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                received.set(cause);
+                notified.countDown();
+            }
+        });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Exception of the call was not propagated.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        assertThat(received.get(), instanceOf(IllegalArgumentException.class));
+    }
+
+    @Test
+    public void submit_SaturatedExecutor_CallShouldBeRejected() throws Exception {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<Void> blocking = new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        };
+        executor.submit(blocking, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Void> queued = executor.submit(blocking, null);
+        try {
+            executor.submit(blocking, null);
+            fail("Call over the queue capacity was accepted.");
+        } catch (RejectedExecutionException e) {
+            //OK
+        } finally {
+            release.countDown();
+        }
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_ZeroThreads_ExceptionShouldBeThrown() {
+        new AsyncExecutor(0, 1);
+    }
+}
@@ -0,0 +1,81 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.GregorianCalendar;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncReservationManagerTest {
+
+    private ReservationManagerImpl delegate;
+    private AsyncExecutor executor;
+    private AsyncReservationManager manager;
+    private DataSource dataSource;
+
+    private static DataSource prepareDataSource() throws SQLException {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:derby:memory:vehiclemgr-test;create=true");
+        return dataSource;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = prepareDataSource();
+        DBUtils.executeSqlScript(dataSource, ReservationManager.class.getResource("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource);
+        delegate = new ReservationManagerImpl(dataSource);
+        executor = new AsyncExecutor(2, 10);
+        manager = new AsyncReservationManager(delegate, executor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        DBUtils.executeSqlScript(dataSource, ReservationManager.class.getResource("/dropTables.sql"));
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
+    }
+
+    @Test
+    public void createReservation_ValidReservation_FutureShouldComplete() throws Exception {
+
+        Vehicle vehicle = new Vehicle(null, new BigDecimal(2L), Vehicle.Brand.AUDI);
+        Customer customer = new Customer(null, "John Smith", "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+        delegate.getVehicleManager().createVehicle(vehicle);
+        delegate.getCustomerManager().createCustomer(customer);
+
+        Reservation reservation = new Reservation();
+        reservation.setVehicle(vehicle);
+        reservation.setCustomer(customer);
+        reservation.setStartDate(new GregorianCalendar(2014, 1, 10));
+        reservation.setEndDate(new GregorianCalendar(2014, 1, 20));
+        manager.createReservation(reservation, null).get(5, TimeUnit.SECONDS);
+
+        Future<Collection<Reservation>> all = manager.getAllReservations(null);
+        assertThat(all.get(5, TimeUnit.SECONDS), contains(reservation));
+    }
+
+    @Test
+    public void createReservation_PassingNull_FutureShouldFail() throws Exception {
+
+        try {
+            manager.createReservation(null, null).get(5, TimeUnit.SECONDS);
+            fail("Invalid reservation was created.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+        assertThat(delegate.getAllReservations().isEmpty(), is(true));
+    }
+}
@@ -0,0 +1,145 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AvailabilityIndexTest {
+
+    private AvailabilityIndex index;
+    private Vehicle vehicle1;
+    private Vehicle vehicle2;
+
+    @Before
+    public void setUp() {
+        index = new AvailabilityIndex();
+        vehicle1 = new Vehicle(1L, new BigDecimal(10), Vehicle.Brand.AUDI);
+        vehicle2 = new Vehicle(2L, new BigDecimal(20), Vehicle.Brand.FORD);
+    }
+
+    @Test
+    public void isAvailable_NoReservations_VehicleShouldBeFree() {
+        assertThat(index.isAvailable(1L, day(1), day(5)), is(true));
+    }
+
+    @Test
+    public void isAvailable_OverlappingRanges_VehicleShouldBeTaken() {
+
+        index.add(newReservation(1L, vehicle1, day(10), day(20)));
+
+        assertThat(index.isAvailable(1L, day(5), day(10)), is(false));
+        assertThat(index.isAvailable(1L, day(12), day(15)), is(false));
+        assertThat(index.isAvailable(1L, day(19), day(25)), is(false));
+        assertThat(index.isAvailable(1L, day(5), day(25)), is(false));
+    }
+
+    @Test
+    public void isAvailable_AdjacentRanges_VehicleShouldBeFree() {
+
+        index.add(newReservation(1L, vehicle1, day(10), day(20)));
+
+        assertThat(index.isAvailable(1L, day(1), day(9)), is(true));
+        assertThat(index.isAvailable(1L, day(20), day(25)), is(true));
+        assertThat(index.isAvailable(2L, day(12), day(15)), is(true));
+    }
+
+    @Test
+    public void remove_IndexedReservation_VehicleShouldBeFree() {
+
+        index.add(newReservation(1L, vehicle1, day(10), day(20)));
+
+        assertThat(index.remove(1L), is(true));
+        assertThat(index.remove(1L), is(false));
+        assertThat(index.isAvailable(1L, day(12), day(15)), is(true));
+        assertThat(index.size(), is(0));
+    }
+
+    @Test
+    public void add_UpdatedReservation_OldRangeShouldBeReplaced() {
+
+        Reservation reservation = newReservation(1L, vehicle1, day(10), day(20));
+        index.add(reservation);
+        reservation.setVehicle(vehicle2);
+        index.add(reservation);
+
+        assertThat(index.size(), is(1));
+        assertThat(index.isAvailable(1L, day(12), day(15)), is(true));
+        assertThat(index.isAvailable(2L, day(12), day(15)), is(false));
+    }
+
+    @Test
+    public void filterAvailable_SomeVehiclesTaken_OnlyFreeShouldBeReturned() {
+
+        index.add(newReservation(1L, vehicle1, day(10), day(20)));
+
+        assertThat(index.filterAvailable(Arrays.asList(vehicle1, vehicle2), day(12), day(15)), 
+                   contains(vehicle2));
+    }
+
+    @Test
+    public void isAvailable_RandomReservations_ResultShouldMatchLinearScan() {
+
+        Random random = new Random(42);
+        List<long[]> booked = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            long start = random.nextInt(1000);
+            long end = start + random.nextInt(30);
+            Reservation reservation = newReservation(id, vehicle1, millis(start), millis(end));
+            index.add(reservation);
+            booked.add(new long[] { id, start, end });
+            if (random.nextInt(4) == 0) {
+                long[] removed = booked.remove(random.nextInt(booked.size()));
+                index.remove(removed[0]);
+            }
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(1100);
+            long end = start + random.nextInt(40);
+            boolean expected = true;
+            for (long[] interval : booked) {
+                if (interval[1] <= end && (interval[1] >= start || interval[2] > start))
+                    expected = false;
+            }
+            assertThat(index.isAvailable(1L, millis(start), millis(end)), is(expected));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void isAvailable_EndBeforeStart_ExceptionShouldBeThrown() {
+        index.isAvailable(1L, day(5), day(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void add_ReservationWithoutId_ExceptionShouldBeThrown() {
+        index.add(newReservation(null, vehicle1, day(1), day(5)));
+    }
+
+    private static Calendar day(int day) {
+        return new GregorianCalendar(2014, 0, day);
+    }
+
+    private static Calendar millis(long millis) {
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+
+    private static Reservation newReservation(Long id, Vehicle vehicle, Calendar startDate, Calendar endDate) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setVehicle(vehicle);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(endDate);
+        return reservation;
+    }
+}
@@ -0,0 +1,92 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.IsNull.nullValue;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingVehicleManagerTest {
+
+    private CachingVehicleManager manager;
+    private DataSource dataSource;
+
+    private static DataSource prepareDataSource() throws SQLException {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:derby:memory:vehiclemgr-test;create=true");
+        return dataSource;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = prepareDataSource();
+        DBUtils.executeSqlScript(dataSource, VehicleManager.class.getResource("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource);
+        manager = new CachingVehicleManager(new VehicleManagerImpl(dataSource), 10, 0);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(dataSource, VehicleManager.class.getResource("/dropTables.sql"));
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
+    }
+
+    @Test
+    public void getVehicleById_RepeatedLookup_SecondShouldBeHit() {
+
+        Vehicle vehicle = new Vehicle(null, new BigDecimal(100), Vehicle.Brand.AUDI);
+        manager.createVehicle(vehicle);
+
+        Vehicle first = manager.getVehicleById(vehicle.getId());
+        Vehicle second = manager.getVehicleById(vehicle.getId());
+
+        assertThat(first, is(vehicle));
+        assertThat(second, is(vehicle));
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(manager.getCache().getMissCount(), is(1L));
+        assertThat(manager.getCache().getHitCount(), is(1L));
+    }
+
+    @Test
+    public void getVehicleById_ModifiedResult_CacheShouldNotChange() {
+
+        Vehicle vehicle = new Vehicle(null, new BigDecimal(100), Vehicle.Brand.AUDI);
+        manager.createVehicle(vehicle);
+
+        manager.getVehicleById(vehicle.getId()).setBrand(Vehicle.Brand.FORD);
+        assertThat(manager.getVehicleById(vehicle.getId()).getBrand(), is(Vehicle.Brand.AUDI));
+    }
+
+    @Test
+    public void updateVehicle_CachedVehicle_NewValuesShouldBeReturned() {
+
+        Vehicle vehicle = new Vehicle(null, new BigDecimal(100), Vehicle.Brand.AUDI);
+        manager.createVehicle(vehicle);
+        manager.getVehicleById(vehicle.getId());
+
+        vehicle.setPrice(new BigDecimal(250));
+        manager.updateVehicle(vehicle);
+
+        assertThat(manager.getVehicleById(vehicle.getId()), is(vehicle));
+    }
+
+    @Test
+    public void deleteVehicle_CachedVehicle_NullShouldBeReturned() {
+
+        Vehicle vehicle = new Vehicle(null, new BigDecimal(100), Vehicle.Brand.AUDI);
+        manager.createVehicle(vehicle);
+        Long id = vehicle.getId();
+        manager.getVehicleById(id);
+
+        manager.deleteVehicle(vehicle);
+
+        assertThat(manager.getVehicleById(id), is(nullValue()));
+    }
+}
@@ -2,6 +2,7 @@ package cz.muni.fi.pv168.rent;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import javax.sql.DataSource;
@@ -10,6 +11,7 @@ import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
@@ -40,12 +42,14 @@ public class CustomerManagerImplTest {
     public void setUp() throws SQLException {
         dataSource = prepareDataSource();
         DBUtils.executeSqlScript(dataSource, CustomerManager.class.getResource("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource);
         manager = new CustomerManagerImpl(dataSource);                     
     }
     
     @After
     public void tearDown() throws SQLException {
         DBUtils.executeSqlScript(dataSource, CustomerManager.class.getResource("/dropTables.sql"));       
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
     } 
         
     @Test
@@ -324,6 +328,94 @@ public class CustomerManagerImplTest {
         assertTrue(allCustomers.containsAll(list));
     }
     
+    @Test
+    public void createCustomers_ValidCustomers_CustomersShouldBeCreated() {
+        
+        final Customer customer1 = newCustomer("John Smith" , "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+        final Customer customer2 = newCustomer("Alan Herold", "Main St. 27", "368 987 124", "alan.herold@gmail.com");
+        final Customer customer3 = newCustomer("Tom Gober",   "Forest St. 51", "758 174 994", "tom.gober@gmail.com");
+        manager.setBatchSize(2);
+        manager.createCustomers(Arrays.asList(customer1, customer2, customer3));
+        
+        assertThat(customer1.getId(), is(not(nullValue())));
+        assertThat(manager.getCustomerById(customer1.getId()), is(customer1));
+        assertThat(manager.getCustomerById(customer2.getId()), is(customer2));
+        assertThat(manager.getCustomerById(customer3.getId()), is(customer3));
+        assertThat(manager.getAllCustomers(), hasSize(3));
+    }
+    
+    @Test
+    public void createCustomers_InvalidCustomer_NothingShouldBeCreated() {
+        
+        final Customer customer1 = newCustomer("John Smith" , "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+        final Customer customer2 = newCustomer("Alan Herold", "Main St. 27", "368 987 124", null);
+        try {
+            manager.createCustomers(Arrays.asList(customer1, customer2));
+            fail("Invalid customer was created.");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+        assertThat(customer1.getId(), is(nullValue()));
+        assertThat(manager.getAllCustomers(), is(empty()));
+    }
+    
+    @Test
+    public void getCustomersPage_ThreeCustomers_ShouldReturnPagesInIdOrder() {
+        
+        final Customer customer1 = newCustomer("John Smith" , "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+        final Customer customer2 = newCustomer("Alan Herold", "Main St. 27", "368 987 124", "alan.herold@gmail.com");
+        final Customer customer3 = newCustomer("Tom Gober",   "Forest St. 51", "758 174 994", "tom.gober@gmail.com");
+        manager.createCustomer(customer1);
+        manager.createCustomer(customer2);
+        manager.createCustomer(customer3);
+        
+        List<Customer> page = manager.getCustomersPage(null, 2);
+        assertThat(page, contains(customer1, customer2));
+        
+        page = manager.getCustomersPage(page.get(page.size() - 1).getId(), 2);
+        assertThat(page, contains(customer3));
+        
+        assertThat(manager.getCustomersPage(customer3.getId(), 2), is(empty()));
+    }
+    
+    @Test
+    public void getCustomerIds_AfterId_ShouldReturnGreaterIds() {
+        
+        final Customer customer1 = newCustomer("John Smith" , "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+        final Customer customer2 = newCustomer("Alan Herold", "Main St. 27", "368 987 124", "alan.herold@gmail.com");
+        manager.createCustomer(customer1);
+        manager.createCustomer(customer2);
+        
+        assertArrayEquals(new long[] { customer1.getId(), customer2.getId() }, manager.getCustomerIds(null));
+        assertArrayEquals(new long[] { customer2.getId() }, manager.getCustomerIds(customer1.getId()));
+        assertThat(manager.getCustomerIds(customer2.getId()).length, is(0));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void getCustomersPage_ZeroPageSize_ExceptionShouldBeThrown() {
+        manager.getCustomersPage(null, 0);
+    }
+    
+    @Test
+    public void forEachCustomer_ThreeCustomers_AllShouldBeProcessed() {
+        
+        final Customer customer1 = newCustomer("John Smith" , "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+        final Customer customer2 = newCustomer("Alan Herold", "Main St. 27", "368 987 124", "alan.herold@gmail.com");
+        final Customer customer3 = newCustomer("Tom Gober",   "Forest St. 51", "758 174 994", "tom.gober@gmail.com");
+        manager.createCustomer(customer1);
+        manager.createCustomer(customer2);
+        manager.createCustomer(customer3);
+        
+        final List<Customer> processed = new ArrayList<>();
+        manager.forEachCustomer(new EntityCallback<Customer>() {
+            @Override
+            public void process(Customer customer) {
+                processed.add(customer);
+            }
+        }, 1);
+        assertThat(processed, containsInAnyOrder(customer1, customer2, customer3));
+    }
+    
     
     private Customer newCustomer(String name, 
                                  String address, 
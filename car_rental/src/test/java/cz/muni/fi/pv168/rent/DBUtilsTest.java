@@ -0,0 +1,58 @@
+package cz.muni.fi.pv168.rent;
+
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import static org.hamcrest.CoreMatchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class DBUtilsTest {
+
+    private BasicDataSource dataSource;
+
+    @After
+    public void tearDown() throws Exception {
+        if (dataSource != null)
+            dataSource.close();
+    }
+
+    @Test
+    public void getDataSource_PoolSettings_SettingsShouldBeApplied() {
+
+        dataSource = (BasicDataSource) DBUtils.getDataSource("pool-test.properties");
+
+        assertThat(dataSource, is(notNullValue()));
+        assertThat(dataSource.getInitialSize(), is(3));
+        assertThat(dataSource.getMinIdle(), is(2));
+        assertThat(dataSource.getMaxIdle(), is(6));
+        assertThat(dataSource.getMaxTotal(), is(8));
+        assertThat(dataSource.getMaxWaitMillis(), is(2000L));
+        assertThat(dataSource.getValidationQuery(), is("VALUES 1"));
+        assertThat(dataSource.getTestOnBorrow(), is(true));
+        assertThat(dataSource.isPoolPreparedStatements(), is(true));
+        assertThat(dataSource.getMaxOpenPreparedStatements(), is(50));
+    }
+
+    @Test
+    public void getDataSource_InvalidNumber_NullShouldBeReturned() {
+
+        DataSource invalid = DBUtils.getDataSource("pool-invalid.properties");
+        assertThat(invalid, is(nullValue()));
+    }
+
+    @Test
+    public void warmUp_PooledDataSource_IdleConnectionsShouldBeOpened() {
+
+        dataSource = (BasicDataSource) DBUtils.getDataSource("pool-test.properties");
+
+        assertThat(DBUtils.warmUp(dataSource), is(3));
+        assertThat(dataSource.getNumIdle(), is(3));
+        assertThat(dataSource.getNumActive(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void warmUp_PassingNull_ExceptionShouldBeThrown() {
+        DBUtils.warmUp(null);
+    }
+}
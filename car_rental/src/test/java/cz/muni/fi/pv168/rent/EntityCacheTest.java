@@ -0,0 +1,78 @@
+package cz.muni.fi.pv168.rent;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class EntityCacheTest {
+
+    @Test
+    public void get_CachedEntity_HitShouldBeCounted() {
+
+        EntityCache<String> cache = new EntityCache<>(10, 0);
+        cache.put(1L, "one");
+
+        assertThat(cache.get(1L), is("one"));
+        assertThat(cache.get(2L), is(nullValue()));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void put_FullCache_LeastRecentlyUsedShouldBeEvicted() {
+
+        EntityCache<String> cache = new EntityCache<>(2, 0);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.get(1L);
+        cache.put(3L, "three");
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(2L), is(nullValue()));
+        assertThat(cache.get(1L), is("one"));
+        assertThat(cache.get(3L), is("three"));
+        assertThat(cache.getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void get_ExpiredEntity_EntityShouldBeEvicted() throws InterruptedException {
+
+        EntityCache<String> cache = new EntityCache<>(10, 1);
+        cache.put(1L, "one");
+        Thread.sleep(20);
+
+        assertThat(cache.get(1L), is(nullValue()));
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getEvictionCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void evictExpired_ExpiredEntities_AllShouldBeRemoved() throws InterruptedException {
+
+        EntityCache<String> cache = new EntityCache<>(10, 1);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        Thread.sleep(20);
+
+        assertThat(cache.evictExpired(), is(2));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void invalidate_CachedEntity_EntityShouldBeRemoved() {
+
+        EntityCache<String> cache = new EntityCache<>(10, 0);
+        cache.put(1L, "one");
+        cache.invalidate(1L);
+
+        assertThat(cache.get(1L), is(nullValue()));
+        assertThat(cache.getEvictionCount(), is(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_ZeroSize_ExceptionShouldBeThrown() {
+        new EntityCache<String>(0, 0);
+    }
+}
@@ -0,0 +1,125 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedReservationManagerTest {
+
+    private ReservationManagerImpl delegate;
+    private IndexedReservationManager manager;
+    private DataSource dataSource;
+
+    private final Vehicle vehicle1 = new Vehicle(null, new BigDecimal(2L), Vehicle.Brand.AUDI);
+    private final Vehicle vehicle2 = new Vehicle(null, new BigDecimal(1L), Vehicle.Brand.FORD);
+    private final Customer customer = new Customer(null, "John Smith", "Maple St. 3", "836 484 147", "john.smith@gmail.com");
+
+    private static DataSource prepareDataSource() throws SQLException {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:derby:memory:vehiclemgr-test;create=true");
+        return dataSource;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = prepareDataSource();
+        DBUtils.executeSqlScript(dataSource, ReservationManager.class.getResource("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource);
+        delegate = new ReservationManagerImpl(dataSource);
+        delegate.getVehicleManager().createVehicle(vehicle1);
+        delegate.getVehicleManager().createVehicle(vehicle2);
+        delegate.getCustomerManager().createCustomer(customer);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(dataSource, ReservationManager.class.getResource("/dropTables.sql"));
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
+    }
+
+    @Test
+    public void constructor_ExistingReservations_IndexShouldBeLoaded() {
+
+        delegate.createReservation(newReservation(vehicle1, day(10), day(20)));
+        manager = new IndexedReservationManager(delegate);
+
+        assertThat(manager.getIndex().size(), is(1));
+        assertThat(manager.getAvailableVehicles(Arrays.asList(vehicle1, vehicle2), day(12), day(15)),
+                   contains(vehicle2));
+    }
+
+    @Test
+    public void createReservation_NewReservation_IndexShouldBeUpdated() {
+
+        manager = new IndexedReservationManager(delegate);
+        manager.createReservation(newReservation(vehicle2, day(10), day(20)));
+
+        assertThat(manager.getAvailableVehicles(Arrays.asList(vehicle1, vehicle2), day(12), day(15)),
+                   contains(vehicle1));
+    }
+
+    @Test
+    public void updateReservation_ChangedVehicle_IndexShouldBeUpdated() {
+
+        manager = new IndexedReservationManager(delegate);
+        Reservation reservation = newReservation(vehicle1, day(10), day(20));
+        manager.createReservation(reservation);
+        reservation.setVehicle(vehicle2);
+        manager.updateReservation(reservation);
+
+        assertThat(manager.getIndex().isAvailable(vehicle1.getId(), day(12), day(15)), is(true));
+        assertThat(manager.getIndex().isAvailable(vehicle2.getId(), day(12), day(15)), is(false));
+    }
+
+    @Test
+    public void deleteReservation_IndexedReservation_VehicleShouldBeFree() {
+
+        manager = new IndexedReservationManager(delegate);
+        Reservation reservation = newReservation(vehicle1, day(10), day(20));
+        manager.createReservation(reservation);
+        manager.deleteReservation(reservation);
+
+        assertThat(manager.getAvailableVehicles(Arrays.asList(vehicle1, vehicle2), day(12), day(15)),
+                   containsInAnyOrder(vehicle1, vehicle2));
+    }
+
+    @Test
+    public void createReservation_OverlappingReservation_IndexShouldNotChange() {
+
+        manager = new IndexedReservationManager(delegate);
+        manager.createReservation(newReservation(vehicle1, day(10), day(20)));
+        try {
+            manager.createReservation(newReservation(vehicle1, day(15), day(25)));
+            fail("Overlapping reservation was created.");
+        } catch (IllegalArgumentException e) {
+        }
+
+        assertThat(manager.getIndex().size(), is(1));
+        assertThat(manager.getIndex().isAvailable(vehicle1.getId(), day(21), day(25)), is(true));
+    }
+
+    private static Calendar day(int day) {
+        return new GregorianCalendar(2014, 0, day);
+    }
+
+    private Reservation newReservation(Vehicle vehicle, Calendar startDate, Calendar endDate) {
+        Reservation reservation = new Reservation();
+        reservation.setVehicle(vehicle);
+        reservation.setCustomer(customer);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(endDate);
+        reservation.setInfo("info");
+        return reservation;
+    }
+}
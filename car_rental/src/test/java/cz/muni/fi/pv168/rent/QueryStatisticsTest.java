@@ -0,0 +1,68 @@
+package cz.muni.fi.pv168.rent;
+
+import java.util.List;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class QueryStatisticsTest {
+
+    @Test
+    public void record_SeveralExecutions_TotalsShouldBeSummed() {
+
+        QueryStatistics statistics = new QueryStatistics();
+        statistics.record("SELECT 1", 3000000, 5, false);
+        statistics.record("SELECT 1", 1000000, 2, false);
+        statistics.record("SELECT 1", 2000000, -1, true);
+
+        QueryStatistics.Entry entry = statistics.getEntry("SELECT 1");
+        assertThat(entry.getCount(), is(3L));
+        assertThat(entry.getFailures(), is(1L));
+        assertThat(entry.getRows(), is(7L));
+        assertThat(entry.getTotalNanos(), is(6000000L));
+        assertThat(entry.getMaxNanos(), is(3000000L));
+        assertThat(entry.getMeanNanos(), is(2000000L));
+    }
+
+    @Test
+    public void getPercentileMicros_RecordedLatencies_BucketBoundShouldBeReturned() {
+
+        QueryStatistics statistics = new QueryStatistics();
+        for (int i = 0; i < 99; i++) {
+            statistics.record("SELECT 1", 100000, 1, false);       // 100 us
+        }
+        statistics.record("SELECT 1", 50000000, 1, false);         // 50 ms
+
+        QueryStatistics.Entry entry = statistics.getEntry("SELECT 1");
+        assertThat(entry.getPercentileMicros(50), is(128L));
+        assertThat(entry.getPercentileMicros(99), is(128L));
+        assertThat(entry.getPercentileMicros(100), is(65536L));
+        assertThat(QueryStatistics.Entry.bucket(0), is(0));
+    }
+
+    @Test
+    public void getEntries_SeveralStatements_SlowestTotalShouldBeFirst() {
+
+        QueryStatistics statistics = new QueryStatistics();
+        statistics.record("fast", 1000, 1, false);
+        statistics.record("slow", 9000, 1, false);
+        statistics.record("fast", 1000, 1, false);
+
+        List<QueryStatistics.Entry> entries = statistics.getEntries();
+        assertThat(entries.size(), is(2));
+        assertThat(entries.get(0).getSql(), is("slow"));
+        assertThat(entries.get(1).getSql(), is("fast"));
+    }
+
+    @Test
+    public void record_TooManyStatements_RestShouldBeCountedTogether() {
+
+        QueryStatistics statistics = new QueryStatistics();
+        for (int i = 0; i < QueryStatistics.MAX_ENTRIES + 10; i++) {
+            statistics.record("SELECT " + i, 1000, 1, false);
+        }
+
+        assertThat(statistics.getEntries().size(), is(QueryStatistics.MAX_ENTRIES + 1));
+        assertThat(statistics.getEntry(QueryStatistics.OTHER_SQL).getCount(), is(10L));
+    }
+}
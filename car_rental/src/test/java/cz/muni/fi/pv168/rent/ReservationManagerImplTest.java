@@ -2,8 +2,12 @@ package cz.muni.fi.pv168.rent;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
 import javax.sql.DataSource;
 import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -11,6 +15,7 @@ import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.IsNull.nullValue;
@@ -44,12 +49,14 @@ public class ReservationManagerImplTest {
     public void setUp() throws SQLException {
         dataSource = prepareDataSource();
         DBUtils.executeSqlScript(dataSource, ReservationManager.class.getResource("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource);
         manager = new ReservationManagerImpl(dataSource);                     
     }
     
     @After
     public void tearDown() throws SQLException {
         DBUtils.executeSqlScript(dataSource, ReservationManager.class.getResource("/dropTables.sql"));       
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
     }      
     
     @Test(expected = IllegalArgumentException.class)
@@ -318,10 +325,288 @@ public class ReservationManagerImplTest {
         assertThat(manager.getAllReservations(), is(not(nullValue())));
         assertThat(manager.getAllReservations(), hasSize(3)); 
         assertEquals(reservation3.getStartDate(), manager.getReservationById(reservation3.getId()).getStartDate());         
-        assertThat(manager.getAllReservations(), containsInAnyOrder(reservation1, reservation2, reservation3));                
-    }    
-    
-    
+        assertThat(manager.getAllReservations(), containsInAnyOrder(reservation1, reservation2, reservation3));
+    }
+
+    @Test
+    public void createReservation_OverlappingDates_ReservationShouldNotBeCreated() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getVehicleManager().createVehicle(validVehicle2);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 10), new GregorianCalendar(2014, 1, 20), null, "info"));
+
+        Calendar[][] overlapping = {
+            { new GregorianCalendar(2014, 1, 5),  new GregorianCalendar(2014, 1, 10) },
+            { new GregorianCalendar(2014, 1, 12), new GregorianCalendar(2014, 1, 15) },
+            { new GregorianCalendar(2014, 1, 15), new GregorianCalendar(2014, 1, 25) },
+            { new GregorianCalendar(2014, 1, 1),  new GregorianCalendar(2014, 1, 28) }
+        };
+        for (Calendar[] dates : overlapping) {
+            try {
+                manager.createReservation(newReservation(validVehicle1, validCustomer1, dates[0], dates[1], null, "info"));
+                fail("Overlapping reservation was created.");
+            } catch (IllegalArgumentException ex) {
+                //OK
+            }
+        }
+        assertThat(manager.getAllReservations(), hasSize(1));
+
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 20), new GregorianCalendar(2014, 1, 25), null, "info"));
+        manager.createReservation(newReservation(validVehicle2, validCustomer1,
+                new GregorianCalendar(2014, 1, 12), new GregorianCalendar(2014, 1, 15), null, "info"));
+        assertThat(manager.getAllReservations(), hasSize(3));
+    }
+
+    @Test
+    public void createReservation_AfterEarlierReservations_OverlappingEarlierShouldCollide() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 3), null, "info"));
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 10), new GregorianCalendar(2014, 1, 20), null, "info"));
+
+        try {
+            manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                    new GregorianCalendar(2014, 1, 19), new GregorianCalendar(2014, 1, 25), null, "info"));
+            fail("Reservation overlapping the latest earlier one was created.");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 4), new GregorianCalendar(2014, 1, 9), null, "info"));
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 20), new GregorianCalendar(2014, 1, 25), null, "info"));
+        assertThat(manager.getAllReservations(), hasSize(4));
+    }
+
+    @Test
+    public void createReservation_AfterUpdateOverlappingLaterReservation_ShouldCollide() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        final Reservation reservation1 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 3), null, "info");
+        manager.createReservation(reservation1);
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 10), new GregorianCalendar(2014, 1, 12), null, "info"));
+
+        // updateReservation does not check overlaps, reservation1 now spans the second one
+        reservation1.setEndDate(new GregorianCalendar(2014, 2, 30));
+        manager.updateReservation(reservation1);
+
+        try {
+            manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                    new GregorianCalendar(2014, 1, 20), new GregorianCalendar(2014, 1, 25), null, "info"));
+            fail("Reservation inside an updated earlier one was created.");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+        assertThat(manager.getAllReservations(), hasSize(2));
+    }
+
+    @Test
+    public void createReservations_ValidReservations_ReservationsShouldBeCreated() {
+
+        manager.getVehicleManager().createVehicles(Arrays.asList(validVehicle1, validVehicle2));
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        final Reservation reservation1 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 5), null, "info");
+        final Reservation reservation2 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 5), new GregorianCalendar(2014, 1, 9), null, "info");
+        final Reservation reservation3 = newReservation(validVehicle2, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 5), null, "info");
+        manager.setBatchSize(2);
+        manager.createReservations(Arrays.asList(reservation1, reservation2, reservation3));
+
+        assertThat(manager.getReservationById(reservation1.getId()), is(reservation1));
+        assertThat(manager.getReservationById(reservation2.getId()), is(reservation2));
+        assertThat(manager.getReservationById(reservation3.getId()), is(reservation3));
+        assertThat(manager.getAllReservations(), hasSize(3));
+    }
+
+    @Test
+    public void createReservations_OtherTimeZone_ShouldStoreSameDatesAsCreateReservation() {
+
+        manager.getVehicleManager().createVehicles(Arrays.asList(validVehicle1, validVehicle2));
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        final TimeZone zone = TimeZone.getTimeZone("Pacific/Kiritimati");
+        final Reservation single = newReservation(validVehicle1, validCustomer1,
+                newCalendar(zone, 2014, 1, 1), newCalendar(zone, 2014, 1, 5), null, "info");
+        final Reservation batched = newReservation(validVehicle2, validCustomer1,
+                newCalendar(zone, 2014, 1, 1), newCalendar(zone, 2014, 1, 5), null, "info");
+        manager.createReservation(single);
+        manager.createReservations(Arrays.asList(batched));
+
+        final Reservation storedSingle = manager.getReservationById(single.getId());
+        final Reservation storedBatched = manager.getReservationById(batched.getId());
+        assertThat(storedBatched.getStartDate().getTimeInMillis(), is(storedSingle.getStartDate().getTimeInMillis()));
+        assertThat(storedBatched.getEndDate().getTimeInMillis(), is(storedSingle.getEndDate().getTimeInMillis()));
+    }
+
+    @Test
+    public void createReservations_OverlappingReservations_NothingShouldBeCreated() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 10), new GregorianCalendar(2014, 1, 20), null, "info"));
+
+        // overlapping each other
+        final Reservation reservation1 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 2, 1), new GregorianCalendar(2014, 2, 10), null, "info");
+        final Reservation reservation2 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 2, 5), new GregorianCalendar(2014, 2, 15), null, "info");
+        try {
+            manager.createReservations(Arrays.asList(reservation1, reservation2));
+            fail("Overlapping reservations were created.");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+
+        // overlapping the existing one
+        final Reservation reservation3 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 0, 1), new GregorianCalendar(2014, 0, 5), null, "info");
+        final Reservation reservation4 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 15), new GregorianCalendar(2014, 1, 25), null, "info");
+        try {
+            manager.createReservations(Arrays.asList(reservation3, reservation4));
+            fail("Reservation overlapping an existing one was created.");
+        } catch (IllegalArgumentException ex) {
+            //OK
+        }
+
+        assertThat(reservation3.getId(), is(nullValue()));
+        assertThat(manager.getAllReservations(), hasSize(1));
+    }
+
+    @Test
+    public void getReservationsPage_ThreeReservations_ShouldReturnPagesInIdOrder() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        final Reservation reservation1 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 5), null, "info");
+        final Reservation reservation2 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 2, 1), new GregorianCalendar(2014, 2, 5), null, "info");
+        final Reservation reservation3 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 3, 1), new GregorianCalendar(2014, 3, 5), null, "info");
+        manager.createReservation(reservation1);
+        manager.createReservation(reservation2);
+        manager.createReservation(reservation3);
+
+        assertThat(manager.getReservationsPage(null, 2), contains(reservation1, reservation2));
+        assertThat(manager.getReservationsPage(reservation2.getId(), 2), contains(reservation3));
+        assertThat(manager.getReservationsPage(reservation3.getId(), 2), hasSize(0));
+        assertArrayEquals(new long[] { reservation1.getId(), reservation2.getId(), reservation3.getId() }, 
+                          manager.getReservationIds());
+        assertArrayEquals(new long[] { reservation3.getId() }, manager.getReservationIds(reservation2.getId()));
+    }
+
+    @Test
+    public void forEachReservation_ThreeReservations_AllShouldBeProcessed() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        final Reservation reservation1 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 5), null, "info");
+        final Reservation reservation2 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 2, 1), new GregorianCalendar(2014, 2, 5), null, "info");
+        final Reservation reservation3 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 3, 1), new GregorianCalendar(2014, 3, 5), null, "info");
+        manager.createReservation(reservation1);
+        manager.createReservation(reservation2);
+        manager.createReservation(reservation3);
+
+        final List<Reservation> processed = new ArrayList<>();
+        manager.forEachReservation(new EntityCallback<Reservation>() {
+            @Override
+            public void process(Reservation reservation) {
+                processed.add(reservation);
+            }
+        }, 2);
+        assertThat(processed, containsInAnyOrder(reservation1, reservation2, reservation3));
+    }
+
+    @Test
+    public void findAvailableVehicles_ReservedVehicle_OnlyFreeShouldBeReturned() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getVehicleManager().createVehicle(validVehicle2);
+        manager.getVehicleManager().createVehicle(validVehicle3);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        manager.createReservation(newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 10), new GregorianCalendar(2014, 1, 20), null, "info"));
+
+        assertThat(manager.findAvailableVehicles(new GregorianCalendar(2014, 1, 12), 
+                                                 new GregorianCalendar(2014, 1, 15), null, null),
+                   contains(validVehicle2, validVehicle3));
+        assertThat(manager.findAvailableVehicles(new GregorianCalendar(2014, 1, 20), 
+                                                 new GregorianCalendar(2014, 1, 25), null, null),
+                   contains(validVehicle1, validVehicle2, validVehicle3));
+        assertThat(manager.findAvailableVehicles(new GregorianCalendar(2014, 1, 5), 
+                                                 new GregorianCalendar(2014, 1, 10), null, null),
+                   contains(validVehicle2, validVehicle3));
+    }
+
+    @Test
+    public void findAvailableVehicles_BrandAndPrice_VehiclesShouldBeFiltered() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getVehicleManager().createVehicle(validVehicle2);
+        manager.getVehicleManager().createVehicle(validVehicle3);
+
+        assertThat(manager.findAvailableVehicles(validStartDate, validEndDate, Vehicle.Brand.FORD, null),
+                   contains(validVehicle2));
+        assertThat(manager.findAvailableVehicles(validStartDate, validEndDate, null, new BigDecimal(2L)),
+                   contains(validVehicle1, validVehicle2));
+        assertThat(manager.findAvailableVehicles(validStartDate, validEndDate, Vehicle.Brand.SKODA, new BigDecimal(2L)),
+                   hasSize(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findAvailableVehicles_EndBeforeStart_ExceptionShouldBeThrown() {
+        manager.findAvailableVehicles(validEndDate, validStartDate, null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forEachReservation_PassingNull_ExceptionShouldBeThrown() {
+        manager.forEachReservation(null, 100);
+    }
+
+    @Test
+    public void getReservationsByVehicleAndCustomer_SharedEntities_ShouldBeLoadedOnce() {
+
+        manager.getVehicleManager().createVehicle(validVehicle1);
+        manager.getVehicleManager().createVehicle(validVehicle2);
+        manager.getCustomerManager().createCustomer(validCustomer1);
+        final Reservation reservation1 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 5), null, "info");
+        final Reservation reservation2 = newReservation(validVehicle1, validCustomer1,
+                new GregorianCalendar(2014, 2, 1), new GregorianCalendar(2014, 2, 5), null, "info");
+        final Reservation reservation3 = newReservation(validVehicle2, validCustomer1,
+                new GregorianCalendar(2014, 1, 1), new GregorianCalendar(2014, 1, 5), null, "info");
+        manager.createReservation(reservation1);
+        manager.createReservation(reservation2);
+        manager.createReservation(reservation3);
+
+        assertThat(manager.getReservationsByVehicle(validVehicle1), containsInAnyOrder(reservation1, reservation2));
+        assertThat(manager.getReservationsByVehicle(validVehicle2), containsInAnyOrder(reservation3));
+        assertThat(manager.getReservationByCustomer(validCustomer1), containsInAnyOrder(reservation1, reservation2, reservation3));
+
+        List<Reservation> all = new ArrayList<>(manager.getAllReservations());
+        assertThat(all, hasSize(3));
+        for (Reservation reservation : all) {
+            assertThat(reservation.getCustomer(), sameInstance(all.get(0).getCustomer()));
+        }
+    }
+
+
     private Reservation newReservation(Vehicle vehicle, 
                                        Customer customer, 
                                        Calendar startDate, 
@@ -339,6 +624,13 @@ public class ReservationManagerImplTest {
         return reservation;
     }
    
+    private static Calendar newCalendar(TimeZone zone, int year, int month, int day) {
+        Calendar calendar = new GregorianCalendar(zone);
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar;
+    }
+   
     private static Vehicle newVehicle(BigDecimal price,Vehicle.Brand brand) {
         Vehicle vehicle = new Vehicle();             
         vehicle.setPrice(price);
@@ -0,0 +1,108 @@
+package cz.muni.fi.pv168.rent;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.hasItems;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaMigratorTest {
+
+    private DataSource dataSource;
+
+    private static DataSource prepareDataSource() throws SQLException {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:derby:memory:schemamigrator-test;create=true");
+        return dataSource;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = prepareDataSource();
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/createTables.sql"));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropTables.sql"));
+        if (hasVersionTable()) // not created when migrate fails on its arguments
+            DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
+    }
+
+    @Test
+    public void migrate_NewSchema_AllMigrationsShouldBeApplied() throws SQLException {
+
+        assertThat(SchemaMigrator.getCurrentVersion(dataSource), is(0));
+        assertThat(SchemaMigrator.migrate(dataSource), is(SchemaMigrator.getLatestVersion()));
+        assertThat(SchemaMigrator.getCurrentVersion(dataSource), is(SchemaMigrator.getLatestVersion()));
+        assertThat(getReservationIndexes(), hasItems("RESERVATION_VEHICLE_DATES_IDX",
+                                                     "RESERVATION_DATES_IDX",
+                                                     "RESERVATION_REALENDDATE_IDX"));
+    }
+
+    @Test
+    public void migrate_MigratedSchema_NothingShouldBeApplied() {
+
+        SchemaMigrator.migrate(dataSource);
+        assertThat(SchemaMigrator.migrate(dataSource), is(SchemaMigrator.getLatestVersion()));
+        assertThat(SchemaMigrator.getCurrentVersion(dataSource), is(SchemaMigrator.getLatestVersion()));
+    }
+
+    @Test
+    public void migrate_TargetVersion_OnlyOlderMigrationsShouldBeApplied() throws SQLException {
+
+        assertThat(SchemaMigrator.migrate(dataSource, 1), is(1));
+        assertThat(SchemaMigrator.getCurrentVersion(dataSource), is(1));
+        assertThat(getReservationIndexes(), hasItems("RESERVATION_VEHICLE_DATES_IDX"));
+
+        assertThat(SchemaMigrator.migrate(dataSource, 0), is(1));
+        assertThat(SchemaMigrator.migrate(dataSource), is(SchemaMigrator.getLatestVersion()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void migrate_UnknownTargetVersion_ExceptionShouldBeThrown() {
+        SchemaMigrator.migrate(dataSource, SchemaMigrator.getLatestVersion() + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void migrate_PassingNull_ExceptionShouldBeThrown() {
+        SchemaMigrator.migrate(null);
+    }
+
+    private boolean hasVersionTable() throws SQLException {
+
+        Connection connection = dataSource.getConnection();
+        try {
+            ResultSet rset = connection.getMetaData().getTables(null, null, "SCHEMA_VERSION", null);
+            boolean found = rset.next();
+            rset.close();
+            return found;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private Set<String> getReservationIndexes() throws SQLException {
+
+        Set<String> indexes = new HashSet<>();
+        Connection connection = dataSource.getConnection();
+        try {
+            ResultSet rset = connection.getMetaData().getIndexInfo(null, null, "RESERVATION", false, false);
+            while (rset.next()) {
+                indexes.add(rset.getString("INDEX_NAME"));
+            }
+            rset.close();
+        } finally {
+            connection.close();
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,117 @@
+package cz.muni.fi.pv168.rent;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
+import static org.hamcrest.CoreMatchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingDataSourceTest {
+
+    private static final String INSERT = "INSERT INTO Vehicle (Brand, Price) VALUES(?, ?)";
+    private static final String SELECT_ALL = "SELECT * FROM Vehicle";
+
+    private BasicDataSource pool;
+    private TimingDataSource dataSource;
+    private VehicleManagerImpl manager;
+
+    @Before
+    public void setUp() throws SQLException {
+        pool = new BasicDataSource();
+        pool.setUrl("jdbc:derby:memory:vehiclemgr-test;create=true");
+        DBUtils.executeSqlScript(pool, VehicleManager.class.getResource("/createTables.sql"));
+        dataSource = new TimingDataSource(pool, 0);
+        manager = new VehicleManagerImpl(dataSource);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(pool, VehicleManager.class.getResource("/dropTables.sql"));
+        pool.close();
+    }
+
+    @Test
+    public void executeUpdate_CreatingVehicles_ExecutionsAndRowsShouldBeRecorded() {
+
+        manager.createVehicle(new Vehicle(null, BigDecimal.valueOf(500), Vehicle.Brand.AUDI));
+        manager.createVehicle(new Vehicle(null, BigDecimal.valueOf(800), Vehicle.Brand.FORD));
+
+        QueryStatistics.Entry insert = dataSource.getStatistics().getEntry(INSERT);
+        assertThat(insert, is(notNullValue()));
+        assertThat(insert.getCount(), is(2L));
+        assertThat(insert.getRows(), is(2L));
+        assertThat(insert.getFailures(), is(0L));
+        assertThat(insert.getTotalNanos() >= insert.getMaxNanos(), is(true));
+    }
+
+    @Test
+    public void executeQuery_ReadingAllVehicles_RowsShouldBeCountedOnClose() {
+
+        manager.createVehicle(new Vehicle(null, BigDecimal.valueOf(500), Vehicle.Brand.AUDI));
+        manager.createVehicle(new Vehicle(null, BigDecimal.valueOf(800), Vehicle.Brand.FORD));
+        manager.createVehicle(new Vehicle(null, BigDecimal.valueOf(900), Vehicle.Brand.SEAT));
+
+        assertThat(manager.getAllVehicles().size(), is(3));
+
+        QueryStatistics.Entry select = dataSource.getStatistics().getEntry(SELECT_ALL);
+        assertThat(select.getCount(), is(1L));
+        assertThat(select.getRows(), is(3L));
+    }
+
+    @Test
+    public void getConnection_BorrowingConnections_WaitShouldBeRecorded() {
+
+        manager.getAllVehicles();
+        manager.getAllVehicles();
+
+        assertThat(dataSource.getStatistics().getConnectionWait().getCount(), is(2L));
+        assertThat(dataSource.getStatistics().getEntry(SELECT_ALL).getCount(), is(2L));
+    }
+
+    @Test
+    public void execute_InvalidStatement_FailureShouldBeRecorded() throws SQLException {
+
+        String sql = "SELECT * FROM NotExisting";
+        Connection connection = dataSource.getConnection();
+        Statement statement = null;
+        try {
+            statement = connection.createStatement();
+            statement.executeQuery(sql);
+            fail("Query of a missing table should fail.");
+        } catch (SQLException e) {
+            // expected, the driver exception is passed unchanged
+        } finally {
+            DBUtils.closeQuietly(connection, statement);
+        }
+
+        QueryStatistics.Entry entry = dataSource.getStatistics().getEntry(sql);
+        assertThat(entry.getCount(), is(1L));
+        assertThat(entry.getFailures(), is(1L));
+    }
+
+    @Test
+    public void unwrap_WrappedPool_PoolShouldBeReturned() throws SQLException {
+
+        assertThat(dataSource.isWrapperFor(BasicDataSource.class), is(true));
+        assertThat(dataSource.unwrap(BasicDataSource.class), is(sameInstance(pool)));
+    }
+
+    @Test
+    public void getDataSource_SlowQueryThreshold_TimingDataSourceShouldBeCreated() throws SQLException {
+
+        DataSource configured = DBUtils.getDataSource("timing-test.properties");
+        try {
+            assertThat(configured, is(instanceOf(TimingDataSource.class)));
+            assertThat(((TimingDataSource) configured).getSlowQueryThresholdMillis(), is(0L));
+            assertThat(DBUtils.warmUp(configured), is(2));
+        } finally {
+            configured.unwrap(BasicDataSource.class).close();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package cz.muni.fi.pv168.rent;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.Arrays;
 import javax.sql.DataSource;
 import org.apache.tomcat.dbcp.dbcp2.BasicDataSource;
 import static org.hamcrest.CoreMatchers.hasItem;
@@ -36,12 +37,14 @@ public class VehicleManagerImplTest {
     public void setUp() throws SQLException {
         dataSource = prepareDataSource();        
         DBUtils.executeSqlScript(dataSource, VehicleManager.class.getResource("/createTables.sql"));
+        SchemaMigrator.migrate(dataSource);
         manager = new VehicleManagerImpl(dataSource);                        
     }
     
     @After
     public void tearDown() throws SQLException {
         DBUtils.executeSqlScript(dataSource, VehicleManager.class.getResource("/dropTables.sql"));       
+        DBUtils.executeSqlScript(dataSource, SchemaMigrator.class.getResource("/dropSchemaVersion.sql"));
     }
     
     @Test
@@ -265,6 +268,55 @@ public class VehicleManagerImplTest {
         assertThat(manager.getAllVehicles(), hasSize(3));
         assertThat(manager.getAllVehicles(), containsInAnyOrder(vehicle1, vehicle2, vehicle3));                       
     }
+    
+    @Test
+    public void createVehicles_ValidVehicles_VehiclesShouldBeCreated() {
+        
+        final Vehicle vehicle1 = newVehicle(validPrice, Vehicle.Brand.AUDI);
+        final Vehicle vehicle2 = newVehicle(validPrice, Vehicle.Brand.FORD);
+        final Vehicle vehicle3 = newVehicle(validPrice, Vehicle.Brand.SKODA);
+        manager.setBatchSize(2);
+        manager.createVehicles(Arrays.asList(vehicle1, vehicle2, vehicle3));
+        
+        assertThat(manager.getVehicleById(vehicle1.getId()), is(vehicle1));
+        assertThat(manager.getVehicleById(vehicle2.getId()), is(vehicle2));
+        assertThat(manager.getVehicleById(vehicle3.getId()), is(vehicle3));
+        assertThat(manager.getAllVehicles(), hasSize(3));
+    }
+    
+    @Test
+    public void getVehiclesPage_ThreeVehicles_ShouldReturnPagesInIdOrder() {
+        
+        final Vehicle vehicle1 = newVehicle(validPrice, Vehicle.Brand.AUDI);
+        final Vehicle vehicle2 = newVehicle(validPrice, Vehicle.Brand.FORD);
+        final Vehicle vehicle3 = newVehicle(validPrice, Vehicle.Brand.SKODA);
+        manager.createVehicle(vehicle1);
+        manager.createVehicle(vehicle2);
+        manager.createVehicle(vehicle3);
+        
+        assertThat(manager.getVehiclesPage(null, 2), contains(vehicle1, vehicle2));
+        assertThat(manager.getVehiclesPage(vehicle2.getId(), 2), contains(vehicle3));
+        assertThat(manager.getVehiclesPage(vehicle3.getId(), 2), is(empty()));
+    }
+    
+    @Test
+    public void getVehicleIds_ThreeVehicles_ShouldReturnSortedIds() {
+        
+        assertThat(manager.getVehicleIds().length, is(0));
+        
+        final Vehicle vehicle1 = newVehicle(validPrice, Vehicle.Brand.AUDI);
+        final Vehicle vehicle2 = newVehicle(validPrice, Vehicle.Brand.FORD);
+        final Vehicle vehicle3 = newVehicle(validPrice, Vehicle.Brand.SKODA);
+        manager.createVehicle(vehicle1);
+        manager.createVehicle(vehicle2);
+        manager.createVehicle(vehicle3);
+        manager.deleteVehicle(vehicle2);
+        
+        assertArrayEquals(new long[] { vehicle1.getId(), vehicle3.getId() }, manager.getVehicleIds());
+        assertArrayEquals(new long[] { vehicle1.getId(), vehicle3.getId() }, manager.getVehicleIds(null));
+        assertArrayEquals(new long[] { vehicle3.getId() }, manager.getVehicleIds(vehicle1.getId()));
+        assertThat(manager.getVehicleIds(vehicle3.getId()).length, is(0));
+    }
 
     private static Vehicle newVehicle(BigDecimal price,Vehicle.Brand brand) {                            
         return new Vehicle(null, price, brand); 
@@ -0,0 +1,464 @@
+package Model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Compares many pairs of XML files, given one by one, as two directory trees
+ * or as a manifest, on a fixed number of worker threads. Each worker takes
+ * the next pair not compared yet, so at most one pair per worker is held in
+ * memory at a time. Differences are detached, counted and only the first of
+ * them are kept for each pair, so the memory used by the results does not
+ * grow with the number of differences. The result is a BatchSummary with
+ * difference counts and times of all pairs.
+ *
+ * Pairs are compared sequentially each, the parallelism is between pairs.
+ */
+public class BatchComparison {
+
+    /**
+     * Default number of difference records kept for each pair.
+     */
+    public static final int DEFAULT_KEPT_DIFFERENCES = 10;
+
+    private final List<File[]> pairs = new ArrayList<File[]>();
+    private int threads;
+    private int keptDifferences;
+    private int maxDifferences;
+    private boolean streaming;
+
+    /**
+     * Constructor for class BatchComparison. Initializes the settings to
+     * default values: one thread per available processor, DOM comparison,
+     * DEFAULT_KEPT_DIFFERENCES records kept and no limit of differences.
+     */
+    public BatchComparison() {
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.keptDifferences = DEFAULT_KEPT_DIFFERENCES;
+        this.maxDifferences = 0;
+        this.streaming = false;
+    }
+
+    /**
+     * Adds a pair of files to compare.
+     *
+     * @param firstFile First file of the pair
+     * @param secondFile Second file of the pair
+     * @throws IllegalArgumentException
+     */
+    public void addPair(File firstFile, File secondFile) throws IllegalArgumentException {
+
+        if (null == firstFile) {
+            throw new IllegalArgumentException("AddPair: First file is null.");
+        }
+        if (null == secondFile) {
+            throw new IllegalArgumentException("AddPair: Second file is null.");
+        }
+
+        pairs.add(new File[] { firstFile, secondFile });
+    }
+
+    /**
+     * Adds a pair of files to compare.
+     *
+     * @param URIfirstFile Path of the first file of the pair
+     * @param URIsecondFile Path of the second file of the pair
+     * @throws IllegalArgumentException
+     */
+    public void addPair(String URIfirstFile, String URIsecondFile) throws IllegalArgumentException {
+
+        if (null == URIfirstFile) {
+            throw new IllegalArgumentException("AddPair: First file URI is null.");
+        }
+        if (null == URIsecondFile) {
+            throw new IllegalArgumentException("AddPair: Second file URI is null.");
+        }
+
+        addPair(new File(URIfirstFile), new File(URIsecondFile));
+    }
+
+    /**
+     * Adds pairs of files with the same relative path in both directory
+     * trees. All files with the .xml extension are paired, in the order of
+     * their relative paths. A file present in one tree only is paired with
+     * the missing file of the other tree, comparing such pair fails.
+     *
+     * @param firstDirectory Root of the first tree
+     * @param secondDirectory Root of the second tree
+     * @throws IllegalArgumentException
+     */
+    public void addDirectories(File firstDirectory, File secondDirectory) throws IllegalArgumentException {
+
+        if (null == firstDirectory || false == firstDirectory.isDirectory()) {
+            throw new IllegalArgumentException("AddDirectories: First directory does not exist.");
+        }
+        if (null == secondDirectory || false == secondDirectory.isDirectory()) {
+            throw new IllegalArgumentException("AddDirectories: Second directory does not exist.");
+        }
+
+        SortedSet<String> paths = new TreeSet<String>();
+        collectXmlFiles(firstDirectory, "", paths);
+        collectXmlFiles(secondDirectory, "", paths);
+        for (String path : paths) {
+            addPair(new File(firstDirectory, path), new File(secondDirectory, path));
+        }
+    }
+
+    private static void collectXmlFiles(File directory, String prefix, SortedSet<String> paths) {
+
+        File[] files = directory.listFiles();
+        if (null == files) {
+            return;
+        }
+
+        Arrays.sort(files);
+        for (File file : files) {
+            if (true == file.isDirectory()) {
+                collectXmlFiles(file, prefix + file.getName() + "/", paths);
+            } else if (true == file.getName().toLowerCase(Locale.ROOT).endsWith(".xml")) {
+                paths.add(prefix + file.getName());
+            }
+        }
+    }
+
+    /**
+     * Adds pairs listed in the manifest file. Each line holds paths of the
+     * first and the second file separated by a tab, relative paths are
+     * resolved against the directory of the manifest. Empty lines and lines
+     * starting with # are skipped.
+     *
+     * @param manifest Manifest file in UTF-8
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    public void addManifest(File manifest) throws IllegalArgumentException, IOException {
+
+        if (null == manifest) {
+            throw new IllegalArgumentException("AddManifest: Manifest is null.");
+        }
+
+        File base = manifest.getAbsoluteFile().getParentFile();
+        List<File[]> manifestPairs = new ArrayList<File[]>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+
+            int lineNumber = 0;
+            for (String line = reader.readLine(); null != line; line = reader.readLine()) {
+                lineNumber++;
+                if (true == line.trim().isEmpty() || true == line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] paths = line.split("\t");
+                if (2 != paths.length || true == paths[0].isEmpty() || true == paths[1].isEmpty()) {
+                    throw new IllegalArgumentException("AddManifest: Line " + lineNumber + " is not a tab separated pair.");
+                }
+                manifestPairs.add(new File[] { resolve(base, paths[0]), resolve(base, paths[1]) });
+            }
+        }
+        pairs.addAll(manifestPairs);
+    }
+
+    private static File resolve(File base, String path) {
+        File file = new File(path);
+        return (true == file.isAbsolute()) ? file : new File(base, path);
+    }
+
+    /**
+     * Returns number of pairs added.
+     *
+     * @return Number of pairs.
+     */
+    public int getPairCount() {
+        return pairs.size();
+    }
+
+    /**
+     * Sets number of worker threads comparing pairs at the same time, which
+     * also bounds the number of documents held in memory.
+     *
+     * @param threads Number of threads
+     * @throws IllegalArgumentException
+     */
+    public void setThreads(int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("SetThreads: Number of threads is not positive.");
+        }
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Sets number of difference records kept for each pair, the remaining
+     * differences are only counted.
+     *
+     * @param keptDifferences Number of kept records
+     * @throws IllegalArgumentException
+     */
+    public void setKeptDifferences(int keptDifferences) throws IllegalArgumentException {
+        if (keptDifferences < 0) {
+            throw new IllegalArgumentException("SetKeptDifferences: Number of kept differences is negative.");
+        }
+        this.keptDifferences = keptDifferences;
+    }
+
+    public int getKeptDifferences() {
+        return this.keptDifferences;
+    }
+
+    /**
+     * Sets maximal number of differences found in one pair, see
+     * XmlComparison.setMaxDifferences().
+     *
+     * @param maxDifferences Maximal number of differences, 0 for no limit.
+     * @throws IllegalArgumentException
+     */
+    public void setMaxDifferences(int maxDifferences) throws IllegalArgumentException {
+        if (maxDifferences < 0) {
+            throw new IllegalArgumentException("SetMaxDifferences: Maximal number of differences is negative.");
+        }
+        this.maxDifferences = maxDifferences;
+    }
+
+    public int getMaxDifferences() {
+        return this.maxDifferences;
+    }
+
+    /**
+     * Enables or disables comparing pairs by StreamingXmlComparison, which
+     * does not load whole documents to memory.
+     *
+     * @param streaming true to compare by streaming, false to compare loaded
+     * documents.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean streaming() {
+        return this.streaming;
+    }
+
+    /**
+     * Compares all pairs with default settings of XmlComparison.
+     *
+     * @return Summary of the batch.
+     */
+    public BatchSummary compare() {
+        return compare(false, true, false);
+    }
+
+    /**
+     * Compares all pairs with given settings, see
+     * XmlComparator.compareXmlDocuments(). A pair which cannot be compared is
+     * reported as failed, the remaining pairs are compared anyway.
+     *
+     * @param trimText Whether texts are compared trimmed
+     * @param strictElementOrder Whether element order is important
+     * @param checkAttributeValues Whether attribute values are compared
+     * @return Summary of the batch.
+     * @throws IllegalStateException if the comparing thread was interrupted
+     */
+    public BatchSummary compare(final boolean trimText, final boolean strictElementOrder,
+            final boolean checkAttributeValues) throws IllegalStateException {
+
+        final List<File[]> comparedPairs = new ArrayList<File[]>(pairs);
+        final FileComparisonResult[] results = new FileComparisonResult[comparedPairs.size()];
+        final AtomicInteger nextPair = new AtomicInteger();
+        int workers = Math.max(1, Math.min(threads, comparedPairs.size()));
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int index = nextPair.getAndIncrement(); index < results.length; index = nextPair.getAndIncrement()) {
+                        File[] pair = comparedPairs.get(index);
+                        results[index] = comparePair(pair[0], pair[1], trimText, strictElementOrder, checkAttributeValues);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compare: Comparison was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Compare: Comparison failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new BatchSummary(Arrays.asList(results), workers, System.nanoTime() - start);
+    }
+
+    /**
+     * Compares one pair, catching any problem with the files so that it does
+     * not stop the batch.
+     */
+    private FileComparisonResult comparePair(File firstFile, File secondFile,
+            boolean trimText, boolean strictElementOrder, boolean checkAttributeValues) {
+
+        long start = System.nanoTime();
+        final DifferenceCounter counter = new DifferenceCounter();
+        final FirstDifferences firstDifferences = new FirstDifferences(keptDifferences);
+
+        try {
+            XmlComparison comparison = createComparison(firstFile, secondFile);
+            comparison.setDetachDifferences(true);
+            comparison.setMaxDifferences(maxDifferences);
+            comparison.setDifferenceListener(new DifferenceListener() {
+                @Override
+                public void differenceFound(XmlDifference difference) {
+                    counter.differenceFound(difference);
+                    firstDifferences.differenceFound(difference);
+                }
+            });
+            comparison.compareXmlDocuments(trimText, strictElementOrder, checkAttributeValues);
+
+            List<DifferenceRecord> records = new ArrayList<DifferenceRecord>();
+            for (XmlDifference difference : firstDifferences.getDifferences()) {
+                records.add(difference.toRecord());
+            }
+            return new FileComparisonResult(firstFile.getPath(), secondFile.getPath(), counter.getCounts(),
+                    records, comparison.differenceLimitReached(), System.nanoTime() - start, null);
+
+        } catch (SAXException | IOException | RuntimeException e) {
+            return new FileComparisonResult(firstFile.getPath(), secondFile.getPath(), counter.getCounts(),
+                    Collections.<DifferenceRecord>emptyList(), false, System.nanoTime() - start, describe(e));
+        }
+    }
+
+    private XmlComparison createComparison(File firstFile, File secondFile) throws SAXException, IOException {
+
+        if (true == streaming) {
+            checkReadable(firstFile);
+            checkReadable(secondFile);
+            return new StreamingXmlComparison(firstFile.getPath(), secondFile.getPath());
+        }
+
+        return new XmlComparison(parse(firstFile), parse(secondFile));
+    }
+
+    private static Document parse(File file) throws SAXException, IOException {
+        checkReadable(file);
+        try (InputStream input = new FileInputStream(file)) {
+            return DocumentParser.parse(input);
+        }
+    }
+
+    private static void checkReadable(File file) throws IOException {
+        if (false == file.isFile()) {
+            throw new IOException("File not found: " + file.getPath());
+        }
+    }
+
+    private static String describe(Exception e) {
+
+        StringBuilder description = new StringBuilder();
+        for (Throwable cause = e; null != cause; cause = cause.getCause()) {
+            if (0 != description.length()) {
+                description.append(": ");
+            }
+            description.append((null == cause.getMessage()) ? cause.getClass().getSimpleName() : cause.getMessage());
+        }
+        return description.toString();
+    }
+
+    /**
+     * Compares two directory trees or the pairs of a manifest and prints the
+     * summary. Exits with status 0 if all pairs are equal, 1 otherwise.
+     *
+     * Usage: BatchComparison [-threads n] [-keep n] [-max n] [-streaming]
+     * [-trim] [-unordered] [-values] (firstDirectory secondDirectory |
+     * -manifest file)
+     *
+     * @param args Command line arguments
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+
+        BatchComparison batch = new BatchComparison();
+        boolean trimText = false;
+        boolean strictElementOrder = true;
+        boolean checkAttributeValues = false;
+        List<String> directories = new ArrayList<String>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-threads":
+                        batch.setThreads(Integer.parseInt(args[++i]));
+                        break;
+                    case "-keep":
+                        batch.setKeptDifferences(Integer.parseInt(args[++i]));
+                        break;
+                    case "-max":
+                        batch.setMaxDifferences(Integer.parseInt(args[++i]));
+                        break;
+                    case "-streaming":
+                        batch.setStreaming(true);
+                        break;
+                    case "-trim":
+                        trimText = true;
+                        break;
+                    case "-unordered":
+                        strictElementOrder = false;
+                        break;
+                    case "-values":
+                        checkAttributeValues = true;
+                        break;
+                    case "-manifest":
+                        batch.addManifest(new File(args[++i]));
+                        break;
+                    default:
+                        directories.add(args[i]);
+                }
+            }
+            if (2 == directories.size()) {
+                batch.addDirectories(new File(directories.get(0)), new File(directories.get(1)));
+            } else if (false == directories.isEmpty() || 0 == batch.getPairCount()) {
+                throw new IllegalArgumentException("Main: Two directories or a manifest expected.");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(describe(e));
+            System.err.println("Usage: BatchComparison [-threads n] [-keep n] [-max n] [-streaming] [-trim] [-unordered] [-values]"
+                    + " (firstDirectory secondDirectory | -manifest file)");
+            System.exit(2);
+        }
+
+        BatchSummary summary = batch.compare(trimText, strictElementOrder, checkAttributeValues);
+        summary.printSummary();
+        System.exit((true == summary.allEqual()) ? 0 : 1);
+    }
+}
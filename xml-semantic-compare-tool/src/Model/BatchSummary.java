@@ -0,0 +1,189 @@
+package Model;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated result of a BatchComparison: results of all file pairs in the
+ * order the pairs were added, totals over the whole batch and its times.
+ */
+public final class BatchSummary {
+
+    private final List<FileComparisonResult> results;
+    private final int threads;
+    private final long timeNanos;
+
+    /**
+     * Constructor for class BatchSummary.
+     *
+     * @param results Results of the compared pairs
+     * @param threads Number of threads comparing the pairs
+     * @param timeNanos Elapsed time of the whole batch in nanoseconds
+     * @throws IllegalArgumentException
+     */
+    public BatchSummary(List<FileComparisonResult> results, int threads, long timeNanos) throws IllegalArgumentException {
+
+        if (null == results) {
+            throw new IllegalArgumentException("BatchSummary: Results are null.");
+        }
+
+        this.results = Collections.unmodifiableList(new ArrayList<FileComparisonResult>(results));
+        this.threads = threads;
+        this.timeNanos = timeNanos;
+    }
+
+    public List<FileComparisonResult> getResults() {
+        return results;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns elapsed time of the whole batch.
+     *
+     * @return Time in nanoseconds.
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Returns sum of the times of all pairs, greater than the elapsed time
+     * when pairs were compared in parallel.
+     *
+     * @return Time in nanoseconds.
+     */
+    public long getComparisonTimeNanos() {
+        long total = 0;
+        for (FileComparisonResult result : results) {
+            total += result.getTimeNanos();
+        }
+        return total;
+    }
+
+    public int getPairCount() {
+        return results.size();
+    }
+
+    /**
+     * Returns number of pairs compared without differences.
+     *
+     * @return Number of equal pairs.
+     */
+    public int getEqualCount() {
+        int count = 0;
+        for (FileComparisonResult result : results) {
+            if (true == result.isEqual()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns number of pairs which could not be compared.
+     *
+     * @return Number of failed pairs.
+     */
+    public int getFailedCount() {
+        int count = 0;
+        for (FileComparisonResult result : results) {
+            if (true == result.isFailed()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns number of pairs compared with differences.
+     *
+     * @return Number of different pairs.
+     */
+    public int getDifferentCount() {
+        return getPairCount() - getEqualCount() - getFailedCount();
+    }
+
+    /**
+     * Returns number of differences found in all pairs.
+     *
+     * @return Number of differences.
+     */
+    public long getDifferenceCount() {
+        long total = 0;
+        for (FileComparisonResult result : results) {
+            total += result.getDifferenceCount();
+        }
+        return total;
+    }
+
+    /**
+     * Returns numbers of differences of the types found at least once in any
+     * pair.
+     *
+     * @return Numbers of differences by their type.
+     */
+    public Map<XmlDifferenceType, Long> getDifferenceCounts() {
+        Map<XmlDifferenceType, Long> counts = new EnumMap<XmlDifferenceType, Long>(XmlDifferenceType.class);
+        for (FileComparisonResult result : results) {
+            for (Map.Entry<XmlDifferenceType, Long> entry : result.getDifferenceCounts().entrySet()) {
+                Long count = counts.get(entry.getKey());
+                counts.put(entry.getKey(), (null == count) ? entry.getValue() : count + entry.getValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns whether all pairs were compared without differences.
+     *
+     * @return True if all pairs are equal.
+     */
+    public boolean allEqual() {
+        return getEqualCount() == getPairCount();
+    }
+
+    /**
+     * Prints results of all pairs followed by the totals on standard output
+     * stream.
+     */
+    public void printSummary() {
+        printSummary(System.out);
+    }
+
+    /**
+     * Prints results of all pairs followed by the totals.
+     *
+     * @param out Stream to print to
+     * @throws IllegalArgumentException
+     */
+    public void printSummary(PrintStream out) throws IllegalArgumentException {
+
+        if (null == out) {
+            throw new IllegalArgumentException("PrintSummary: Output stream is null.");
+        }
+
+        for (FileComparisonResult result : results) {
+            out.println(result.toString());
+            for (DifferenceRecord record : result.getDifferences()) {
+                out.println("    " + record.toString());
+            }
+        }
+        out.println(toString());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d pairs: %d equal, %d different, %d failed; %d differences %s; "
+                + "%.3f ms elapsed, %.3f ms comparing on %d threads",
+                getPairCount(), getEqualCount(), getDifferentCount(), getFailedCount(),
+                getDifferenceCount(), getDifferenceCounts(),
+                timeNanos / 1e6, getComparisonTimeNanos() / 1e6, threads);
+    }
+}
@@ -0,0 +1,63 @@
+package Model;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Difference listener counting differences by their type. Thread safe, one
+ * counter can be shared by several comparisons.
+ */
+public class DifferenceCounter implements DifferenceListener {
+
+    private final AtomicLongArray counts = new AtomicLongArray(XmlDifferenceType.values().length);
+
+    @Override
+    public void differenceFound(XmlDifference difference) {
+        counts.incrementAndGet(difference.getType().ordinal());
+    }
+
+    /**
+     * Returns number of differences of given type.
+     *
+     * @param type Difference type
+     * @return Number of differences of the type.
+     */
+    public long getCount(XmlDifferenceType type) {
+        return counts.get(type.ordinal());
+    }
+
+    /**
+     * Returns number of all differences.
+     *
+     * @return Number of differences.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns numbers of differences of the types found at least once.
+     *
+     * @return Numbers of differences by their type.
+     */
+    public Map<XmlDifferenceType, Long> getCounts() {
+        Map<XmlDifferenceType, Long> result = new EnumMap<XmlDifferenceType, Long>(XmlDifferenceType.class);
+        for (XmlDifferenceType type : XmlDifferenceType.values()) {
+            long count = getCount(type);
+            if (0 != count) {
+                result.put(type, count);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getTotal() + " differences " + getCounts();
+    }
+}
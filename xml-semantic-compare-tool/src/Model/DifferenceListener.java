@@ -0,0 +1,21 @@
+package Model;
+
+/**
+ * Receives differences as they are found by a comparison, see
+ * XmlComparison.setDifferenceListener(). Differences of one comparison are
+ * passed from the thread running the comparison in document order,
+ * implementations shared by comparisons running at the same time have to be
+ * thread safe.
+ */
+public interface DifferenceListener {
+
+    /**
+     * Called for every difference found. The difference may be kept after
+     * the call without copying: StreamingXmlComparison passes nodes already
+     * copied out of the elements being read, and detached differences (see
+     * XmlComparison.setDetachDifferences()) hold no nodes at all.
+     *
+     * @param difference Difference found.
+     */
+    public void differenceFound(XmlDifference difference);
+}
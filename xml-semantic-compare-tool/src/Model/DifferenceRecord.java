@@ -0,0 +1,281 @@
+package Model;
+
+import java.io.Serializable;
+import java.util.Objects;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Detached description of a single XML difference. Holds only strings and
+ * numbers, no DOM nodes, so it can be kept, serialized or aggregated after
+ * the compared documents are gone. Nodes are described by an XPath-like
+ * location (e.g. /xt:contacts[1]/xt:contact[2]/@id), name and value, which is
+ * the text of a text element or the value of an attribute. Line and column
+ * of the expected node are known only when the comparison recorded them (see
+ * StreamingXmlComparison), -1 otherwise.
+ */
+public final class DifferenceRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Keys of the node user data holding the line, column and position among
+     * siblings of the same name, set by comparisons which know them.
+     */
+    static final String LINE_KEY = "Model.DifferenceRecord.line";
+    static final String COLUMN_KEY = "Model.DifferenceRecord.column";
+    static final String POSITION_KEY = "Model.DifferenceRecord.position";
+
+    private final XmlDifferenceType type;
+    private final String expectedLocation;
+    private final String expectedName;
+    private final String expectedValue;
+    private final String foundLocation;
+    private final String foundName;
+    private final String foundValue;
+    private final int line;
+    private final int column;
+
+    /**
+     * Constructor for class DifferenceRecord.
+     *
+     * @param type Type of the difference
+     * @param expectedLocation Location of the expected node, null if none
+     * @param expectedName Name of the expected node, null if none
+     * @param expectedValue Value of the expected node, null if none
+     * @param foundLocation Location of the found node, null if none
+     * @param foundName Name of the found node, null if none
+     * @param foundValue Value of the found node, null if none
+     * @param line Line of the expected node, -1 if not known
+     * @param column Column of the expected node, -1 if not known
+     * @throws IllegalArgumentException
+     */
+    public DifferenceRecord(XmlDifferenceType type, String expectedLocation, String expectedName, String expectedValue,
+            String foundLocation, String foundName, String foundValue, int line, int column) throws IllegalArgumentException {
+
+        if (null == type) {
+            throw new IllegalArgumentException("DifferenceRecord: Difference type is null.");
+        }
+
+        this.type = type;
+        this.expectedLocation = expectedLocation;
+        this.expectedName = intern(expectedName);
+        this.expectedValue = expectedValue;
+        this.foundLocation = foundLocation;
+        this.foundName = intern(foundName);
+        this.foundValue = foundValue;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Creates record describing nodes of the difference.
+     *
+     * @param difference Described difference
+     * @return Record of the difference.
+     * @throws IllegalArgumentException
+     */
+    public static DifferenceRecord of(XmlDifference difference) throws IllegalArgumentException {
+
+        if (null == difference) {
+            throw new IllegalArgumentException("Of: Difference is null.");
+        }
+
+        Node expected = difference.getExpectedNode();
+        Node found = difference.getFoundNode();
+        Node located = (null != expected) ? expected : found;
+
+        return new DifferenceRecord(difference.getType(),
+                getLocation(expected), getName(expected), getValue(expected),
+                getLocation(found), getName(found), getValue(found),
+                getNumber(located, LINE_KEY), getNumber(located, COLUMN_KEY));
+    }
+
+    public XmlDifferenceType getType() {
+        return type;
+    }
+
+    public String getExpectedLocation() {
+        return expectedLocation;
+    }
+
+    public String getExpectedName() {
+        return expectedName;
+    }
+
+    public String getExpectedValue() {
+        return expectedValue;
+    }
+
+    public String getFoundLocation() {
+        return foundLocation;
+    }
+
+    public String getFoundName() {
+        return foundName;
+    }
+
+    public String getFoundValue() {
+        return foundValue;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns XPath-like location of the node. Elements are identified by
+     * their name and position among siblings of the same name, attributes by
+     * their name. Other nodes are located by their parent element.
+     *
+     * @param node Located node
+     * @return Location of the node, null if the node is null.
+     */
+    public static String getLocation(Node node) {
+
+        if (null == node) {
+            return null;
+        }
+
+        if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            Element owner = ((Attr) node).getOwnerElement();
+            return ((null == owner) ? "" : getLocation(owner)) + "/@" + node.getNodeName();
+        }
+
+        StringBuilder location = new StringBuilder();
+        Node element = (node.getNodeType() == Node.ELEMENT_NODE) ? node : node.getParentNode();
+        for (Node current = element; null != current && current.getNodeType() == Node.ELEMENT_NODE;
+                current = current.getParentNode()) {
+            location.insert(0, "/" + current.getNodeName() + "[" + getPosition(current) + "]");
+        }
+        return (0 == location.length()) ? "/" : location.toString();
+    }
+
+    private static int getPosition(Node element) {
+
+        Object position = element.getUserData(POSITION_KEY);
+        if (position instanceof Integer) {
+            return (Integer) position;
+        }
+
+        int count = 1;
+        for (Node sibling = element.getPreviousSibling(); null != sibling; sibling = sibling.getPreviousSibling()) {
+            if (sibling.getNodeType() == Node.ELEMENT_NODE && sibling.getNodeName().equals(element.getNodeName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String getName(Node node) {
+        return (null == node) ? null : node.getNodeName();
+    }
+
+    /**
+     * Returns value of an attribute or text of a text element, null for other
+     * nodes.
+     */
+    private static String getValue(Node node) {
+
+        if (null == node) {
+            return null;
+        }
+        if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            return node.getNodeValue();
+        }
+
+        Node firstChild = node.getFirstChild();
+        if (null != firstChild && null == firstChild.getNextSibling() && firstChild.getNodeType() == Node.TEXT_NODE) {
+            return firstChild.getNodeValue();
+        }
+        return null;
+    }
+
+    private static int getNumber(Node node, String key) {
+
+        if (null != node && node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            node = ((Attr) node).getOwnerElement();
+        }
+        Object number = (null == node) ? null : node.getUserData(key);
+        return (number instanceof Integer) ? (Integer) number : -1;
+    }
+
+    /**
+     * Copies location user data of the node to its copy, DOM does not clone
+     * user data.
+     */
+    static void copyLocation(Node node, Node copy) {
+        for (String key : new String[] { LINE_KEY, COLUMN_KEY, POSITION_KEY }) {
+            Object value = node.getUserData(key);
+            if (null != value) {
+                copy.setUserData(key, value, null);
+            }
+        }
+    }
+
+    /**
+     * Names repeat in most documents, interning them lets many records share
+     * them.
+     */
+    private static String intern(String name) {
+        return (null == name) ? null : name.intern();
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder description = new StringBuilder(type.toString());
+        if (null != expectedLocation) {
+            description.append(' ').append(expectedLocation);
+            if (-1 != line) {
+                description.append(" (").append(line).append(':').append(column).append(')');
+            }
+        }
+        if (null != expectedValue) {
+            description.append(" '").append(expectedValue).append('\'');
+        }
+        if (null != foundLocation) {
+            description.append(" / ").append(foundLocation);
+        }
+        if (null != foundValue) {
+            description.append(" '").append(foundValue).append('\'');
+        }
+        return description.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 59 * hash + type.hashCode();
+        hash = 59 * hash + Objects.hashCode(this.expectedLocation);
+        hash = 59 * hash + Objects.hashCode(this.expectedValue);
+        hash = 59 * hash + Objects.hashCode(this.foundLocation);
+        hash = 59 * hash + Objects.hashCode(this.foundValue);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final DifferenceRecord other = (DifferenceRecord) obj;
+        return this.type == other.type
+                && this.line == other.line
+                && this.column == other.column
+                && Objects.equals(this.expectedLocation, other.expectedLocation)
+                && Objects.equals(this.expectedName, other.expectedName)
+                && Objects.equals(this.expectedValue, other.expectedValue)
+                && Objects.equals(this.foundLocation, other.foundLocation)
+                && Objects.equals(this.foundName, other.foundName)
+                && Objects.equals(this.foundValue, other.foundValue);
+    }
+}
@@ -0,0 +1,101 @@
+package Model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Parses XML documents with cached DocumentBuilder instances. The namespace
+ * aware factory is looked up and configured once, each thread creates its
+ * own builder on first use and reuses it afterwards, the builder is reset
+ * after every document. Parse errors are thrown to the caller without being
+ * printed to the standard error stream. Methods are thread safe.
+ */
+public final class DocumentParser {
+
+    private static final DocumentBuilderFactory FACTORY = createFactory();
+
+    /**
+     * Rethrows errors and fatal errors, ignores warnings. The default handler
+     * of the parser prints every error before throwing it.
+     */
+    private static final ErrorHandler ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+    };
+
+    private static final ThreadLocal<DocumentBuilder> BUILDERS = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                DocumentBuilder builder;
+                synchronized (FACTORY) { // factories are not required to be thread safe
+                    builder = FACTORY.newDocumentBuilder();
+                }
+                builder.setErrorHandler(ERROR_HANDLER);
+                return builder;
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException("DocumentParser: Cannot create document builder.", e);
+            }
+        }
+    };
+
+    private DocumentParser() {
+    }
+
+    private static DocumentBuilderFactory createFactory() {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true); // needed in order for namespace functions to work (getLocalName, getPrefix, ..)
+        return factory;
+    }
+
+    /**
+     * Parses document from the stream, the stream is not closed.
+     *
+     * @param input Stream with the document
+     * @return Parsed document.
+     * @throws IllegalArgumentException
+     * @throws SAXException
+     * @throws IOException
+     */
+    public static Document parse(InputStream input) throws IllegalArgumentException, SAXException, IOException {
+
+        if (null == input) {
+            throw new IllegalArgumentException("Parse: Input stream is null.");
+        }
+
+        DocumentBuilder builder = BUILDERS.get();
+        try {
+            return builder.parse(input);
+        } finally {
+            builder.reset(); // also restores the default error handler
+            builder.setErrorHandler(ERROR_HANDLER);
+        }
+    }
+
+    /**
+     * Creates new empty document.
+     *
+     * @return Empty document.
+     */
+    public static Document newDocument() {
+        return BUILDERS.get().newDocument();
+    }
+}
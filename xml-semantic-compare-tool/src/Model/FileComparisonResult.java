@@ -0,0 +1,164 @@
+package Model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of comparing one pair of files by BatchComparison. Holds the
+ * numbers of differences by their type, records of the first differences
+ * and the time taken, no DOM nodes, so results of many pairs can be kept
+ * until the whole batch is compared. A pair which could not be compared
+ * (missing file, malformed document, ..) has an error message instead.
+ */
+public final class FileComparisonResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String firstFile;
+    private final String secondFile;
+    private final Map<XmlDifferenceType, Long> differenceCounts;
+    private final long differenceCount;
+    private final List<DifferenceRecord> differences;
+    private final boolean limitReached;
+    private final long timeNanos;
+    private final String error;
+
+    /**
+     * Constructor for class FileComparisonResult.
+     *
+     * @param firstFile Path of the first compared file
+     * @param secondFile Path of the second compared file
+     * @param differenceCounts Numbers of differences by their type
+     * @param differences Records of the first differences found
+     * @param limitReached Whether the comparison stopped at the maximal
+     * number of differences
+     * @param timeNanos Time of parsing and comparing the files in nanoseconds
+     * @param error Reason why the files could not be compared, null if they
+     * were compared
+     * @throws IllegalArgumentException
+     */
+    public FileComparisonResult(String firstFile, String secondFile, Map<XmlDifferenceType, Long> differenceCounts,
+            List<DifferenceRecord> differences, boolean limitReached, long timeNanos, String error)
+            throws IllegalArgumentException {
+
+        if (null == firstFile) {
+            throw new IllegalArgumentException("FileComparisonResult: First file is null.");
+        }
+        if (null == secondFile) {
+            throw new IllegalArgumentException("FileComparisonResult: Second file is null.");
+        }
+        if (null == differenceCounts) {
+            throw new IllegalArgumentException("FileComparisonResult: Difference counts are null.");
+        }
+        if (null == differences) {
+            throw new IllegalArgumentException("FileComparisonResult: Differences are null.");
+        }
+
+        this.firstFile = firstFile;
+        this.secondFile = secondFile;
+        this.differenceCounts = new EnumMap<XmlDifferenceType, Long>(XmlDifferenceType.class);
+        this.differenceCounts.putAll(differenceCounts);
+        long count = 0;
+        for (Long typeCount : differenceCounts.values()) {
+            count += typeCount;
+        }
+        this.differenceCount = count;
+        this.differences = Collections.unmodifiableList(differences);
+        this.limitReached = limitReached;
+        this.timeNanos = timeNanos;
+        this.error = error;
+    }
+
+    public String getFirstFile() {
+        return firstFile;
+    }
+
+    public String getSecondFile() {
+        return secondFile;
+    }
+
+    /**
+     * Returns numbers of differences of the types found at least once.
+     *
+     * @return Numbers of differences by their type.
+     */
+    public Map<XmlDifferenceType, Long> getDifferenceCounts() {
+        return Collections.unmodifiableMap(differenceCounts);
+    }
+
+    /**
+     * Returns number of all differences found, including those whose
+     * records were not kept.
+     *
+     * @return Number of differences.
+     */
+    public long getDifferenceCount() {
+        return differenceCount;
+    }
+
+    /**
+     * Returns records of the first differences found, see
+     * BatchComparison.setKeptDifferences().
+     *
+     * @return Difference records in the order they were found.
+     */
+    public List<DifferenceRecord> getDifferences() {
+        return differences;
+    }
+
+    public boolean differenceLimitReached() {
+        return limitReached;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns whether the files were compared and no differences were found.
+     *
+     * @return True if the files are equal.
+     */
+    public boolean isEqual() {
+        return null == error && 0 == differenceCount;
+    }
+
+    /**
+     * Returns whether the files could not be compared.
+     *
+     * @return True if comparing the files failed.
+     */
+    public boolean isFailed() {
+        return null != error;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder description = new StringBuilder();
+        if (true == isFailed()) {
+            description.append("FAILED    ");
+        } else if (true == isEqual()) {
+            description.append("EQUAL     ");
+        } else {
+            description.append("DIFFERENT ");
+        }
+        description.append(String.format("%10.3f ms  ", timeNanos / 1e6));
+        description.append(firstFile).append(" / ").append(secondFile);
+
+        if (true == isFailed()) {
+            description.append(": ").append(error);
+        } else if (false == isEqual()) {
+            description.append(": ").append(differenceCount).append((true == limitReached) ? "+" : "")
+                    .append(" differences ").append(differenceCounts);
+        }
+        return description.toString();
+    }
+}
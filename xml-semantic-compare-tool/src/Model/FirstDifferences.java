@@ -0,0 +1,60 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Difference listener keeping only the first differences found and counting
+ * the rest. Thread safe. Kept differences hold their nodes unless the
+ * comparison detaches them, see XmlComparison.setDetachDifferences().
+ */
+public class FirstDifferences implements DifferenceListener {
+
+    private final int limit;
+    private final List<XmlDifference> differences = new ArrayList<XmlDifference>();
+    private long total;
+
+    /**
+     * Constructor for class FirstDifferences.
+     *
+     * @param limit Number of differences kept
+     * @throws IllegalArgumentException
+     */
+    public FirstDifferences(int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("FirstDifferences: Limit is negative.");
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public synchronized void differenceFound(XmlDifference difference) {
+        total++;
+        if (differences.size() < limit) {
+            differences.add(difference);
+        }
+    }
+
+    /**
+     * Returns the first differences found.
+     *
+     * @return At most limit differences in the order they were found.
+     */
+    public synchronized List<XmlDifference> getDifferences() {
+        return Collections.unmodifiableList(new ArrayList<XmlDifference>(differences));
+    }
+
+    /**
+     * Returns number of all differences found, including those not kept.
+     *
+     * @return Number of differences.
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,111 @@
+package Model;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Difference listener writing every difference as one line of JSON in UTF-8,
+ * e.g. {"type":"TEXT_DIFFERENCE","expectedLocation":"/a[1]/b[2]",...}. Keys
+ * are the properties of DifferenceRecord, unknown values are left out.
+ * Output is buffered, close() or flush() the writer after the comparison.
+ * Thread safe.
+ */
+public class JsonLinesDifferenceWriter implements DifferenceListener, Flushable, Closeable {
+
+    private final Writer writer;
+
+    /**
+     * Constructor for class JsonLinesDifferenceWriter.
+     *
+     * @param output Stream the differences are written to, closed by close()
+     * @throws IllegalArgumentException
+     */
+    public JsonLinesDifferenceWriter(OutputStream output) throws IllegalArgumentException {
+        if (null == output) {
+            throw new IllegalArgumentException("JsonLinesDifferenceWriter: Output stream is null.");
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void differenceFound(XmlDifference difference) {
+
+        DifferenceRecord record = difference.toRecord();
+        StringBuilder line = new StringBuilder("{\"type\":\"").append(record.getType()).append('"');
+        appendProperty(line, "expectedLocation", record.getExpectedLocation());
+        appendProperty(line, "expectedName", record.getExpectedName());
+        appendProperty(line, "expectedValue", record.getExpectedValue());
+        appendProperty(line, "foundLocation", record.getFoundLocation());
+        appendProperty(line, "foundName", record.getFoundName());
+        appendProperty(line, "foundValue", record.getFoundValue());
+        if (-1 != record.getLine()) {
+            line.append(",\"line\":").append(record.getLine()).append(",\"column\":").append(record.getColumn());
+        }
+        line.append("}\n");
+
+        try {
+            synchronized (writer) {
+                writer.write(line.toString());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("DifferenceFound: Error writing difference.", e);
+        }
+    }
+
+    private static void appendProperty(StringBuilder line, String name, String value) {
+
+        if (null == value) {
+            return;
+        }
+
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                    break;
+            }
+        }
+        line.append('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (writer) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
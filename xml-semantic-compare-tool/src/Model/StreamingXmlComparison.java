@@ -0,0 +1,548 @@
+package Model;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Provides the streaming implementation of XmlComparator. Both documents are
+ * read in lockstep by StAX pull parsers, so only the elements currently open
+ * in each document are held in memory and the memory used is bounded by the
+ * nesting depth instead of the document size. Children of elements are paired
+ * by their position as in XmlComparison with strictElementOrder on, the same
+ * differences are reported in the same order. Matching children regardless
+ * of their order needs all siblings at once, so with strictElementOrder off
+ * the documents are loaded to DOM and compared by XmlComparison instead.
+ *
+ * Each element read is represented by a shallow copy holding its name,
+ * attributes and, in case of a text element, its text. Copies of the open
+ * elements are linked to their parents, nodes of differences are detached
+ * together with their ancestors, so getParentNode() of a difference node
+ * works after the comparison. Methods comparing single elements are inherited
+ * from XmlComparison, getFirstDocument() and getSecondDocument() return null.
+ */
+public class StreamingXmlComparison extends XmlComparison {
+
+    private static final String DEFAULT_VERSION = "1.0";
+    private static final String REPORT_CDATA_PROPERTY = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    /**
+     * Marks the end of the children of the element being read.
+     */
+    private static final Object END_OF_CHILDREN = new Object();
+
+    private final String URIdocumentA;
+    private final String URIdocumentB;
+    private final XMLInputFactory inputFactory;
+    private DocumentCursor cursorA;
+    private DocumentCursor cursorB;
+
+    /**
+     * Constructor for class StreamingXmlComparison. The documents are opened
+     * again by every comparison.
+     *
+     * @param URIdocumentA First document URI required for comparison
+     * @param URIdocumentB Second document URI required for comparison
+     * @throws IllegalArgumentException
+     */
+    public StreamingXmlComparison(String URIdocumentA, String URIdocumentB) throws IllegalArgumentException {
+
+        if (null == URIdocumentA) {
+            throw new IllegalArgumentException("StreamingXmlComparison: Document A URI is null.");
+        }
+        if (null == URIdocumentB) {
+            throw new IllegalArgumentException("StreamingXmlComparison: Document B URI is null.");
+        }
+
+        this.URIdocumentA = URIdocumentA;
+        this.URIdocumentB = URIdocumentB;
+        this.inputFactory = XMLInputFactory.newInstance();
+        this.inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        this.inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        if (this.inputFactory.isPropertySupported(REPORT_CDATA_PROPERTY)) {
+            // CDATA sections are separate nodes in DOM, not a part of the text
+            this.inputFactory.setProperty(REPORT_CDATA_PROPERTY, true);
+        }
+    }
+
+    /**
+     * Returns URI of the first compared document.
+     *
+     * @return URI of the first document.
+     */
+    public String getFirstDocumentURI() {
+        return this.URIdocumentA;
+    }
+
+    /**
+     * Returns URI of the second compared document.
+     *
+     * @return URI of the second document.
+     */
+    public String getSecondDocumentURI() {
+        return this.URIdocumentB;
+    }
+
+    @Override
+    protected void compareDocuments() throws IllegalArgumentException {
+
+        if (false == strictElementOrder()) {
+            XmlComparison comparison = new XmlComparison(URIdocumentA, URIdocumentB);
+            comparison.setMaxDifferences(getMaxDifferences());
+            comparison.compareXmlDocuments(trimText(), false, checkAttributeValues());
+            for (XmlDifference difference : comparison.getDifferences()) {
+                super.addDifference(difference);
+            }
+            return;
+        }
+
+        InputStream inputA = null;
+        InputStream inputB = null;
+
+        try {
+            inputA = new FileInputStream(URIdocumentA);
+            inputB = new FileInputStream(URIdocumentB);
+            cursorA = new DocumentCursor(inputFactory.createXMLStreamReader(inputA));
+            cursorB = new DocumentCursor(inputFactory.createXMLStreamReader(inputB));
+
+            if (false == Objects.equals(cursorA.getVersion(), cursorB.getVersion())) {
+                addDifference(new XmlDifference(XmlDifferenceType.VERSION_DIFFERENCE, null, null));
+            }
+
+            if (false == Objects.equals(cursorA.getEncoding(), cursorB.getEncoding())) {
+                addDifference(new XmlDifference(XmlDifferenceType.ENCODING_DIFFERENCE, null, null));
+            }
+
+            compareElements(cursorA.readDocumentElement(), cursorB.readDocumentElement());
+
+        } catch (XMLStreamException | IOException e) {
+            throw new IllegalArgumentException("CompareDocuments: Error reading documents.", e);
+        } finally {
+            closeQuietly(cursorA);
+            closeQuietly(cursorB);
+            closeQuietly(inputA);
+            closeQuietly(inputB);
+            cursorA = null;
+            cursorB = null;
+        }
+    }
+
+    /**
+     * Replaces nodes of the difference by copies detached from the elements
+     * being read, the copies keep the ancestors of the nodes.
+     *
+     * @param newDifference new difference to be added.
+     * @throws IllegalArgumentException
+     */
+    @Override
+    public void addDifference(XmlDifference newDifference) throws IllegalArgumentException {
+
+        if (null == newDifference) {
+            throw new IllegalArgumentException("AddDifference: New difference is null.");
+        }
+
+        if (true == detachDifferences()) {
+            super.addDifference(newDifference); // the record is taken before reading goes on
+            return;
+        }
+
+        super.addDifference(new XmlDifference(newDifference.getType(),
+                detachNode(newDifference.getExpectedNode()),
+                detachNode(newDifference.getFoundNode())));
+    }
+
+    /**
+     * Compares two elements whose start tags were just read, reads both
+     * elements up to and including their end tags.
+     */
+    private void compareElements(Element elementA, Element elementB) throws XMLStreamException {
+
+        if (true == differenceLimitReached()) {
+            return; // the rest of the documents is not read
+        }
+
+        cursorA.readTextContent(elementA);
+        cursorB.readTextContent(elementB);
+
+        boolean elementsEquality = equalsElements(elementA, elementB, false);
+        if (true == differenceLimitReached()) {
+            return;
+        }
+        if (false == elementsEquality
+                || (true == isTextElement(elementA) && true == isTextElement(elementB))) {
+            cursorA.skipElement();
+            cursorB.skipElement();
+            return;
+        }
+
+        Node currentNodeA;
+        Node currentNodeB;
+
+        while (true) {
+
+            if (true == differenceLimitReached()) {
+                return;
+            }
+
+            currentNodeA = cursorA.readChild();
+            currentNodeB = cursorB.readChild();
+
+            if (null == currentNodeA
+                    || null == currentNodeB) {
+                break;
+            }
+
+            if (currentNodeA.getNodeType() == Node.ELEMENT_NODE) {
+                if (currentNodeB.getNodeType() == Node.ELEMENT_NODE) {
+                    compareElements((Element) currentNodeA, (Element) currentNodeB);
+                } else {
+                    reportMissingElement(cursorA, (Element) currentNodeA);
+                }
+            } else {
+                if (currentNodeB.getNodeType() == Node.ELEMENT_NODE) {
+                    reportMissingElement(cursorB, (Element) currentNodeB);
+                }
+            }
+        }
+
+        reportRemainingChildren(cursorA, currentNodeA);
+        reportRemainingChildren(cursorB, currentNodeB);
+        if (true == differenceLimitReached()) {
+            return;
+        }
+
+        cursorA.skipElement();
+        cursorB.skipElement();
+    }
+
+    /**
+     * Reports all remaining child elements of the element being read as
+     * missing, starting with the given already read child.
+     */
+    private void reportRemainingChildren(DocumentCursor cursor, Node currentNode) throws XMLStreamException {
+
+        while (null != currentNode && false == differenceLimitReached()) {
+            if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
+                reportMissingElement(cursor, (Element) currentNode);
+            }
+            currentNode = cursor.readChild();
+        }
+    }
+
+    /**
+     * Reports the element whose start tag was just read as missing and skips
+     * it, the reported copy keeps the text of a text element.
+     */
+    private void reportMissingElement(DocumentCursor cursor, Element element) throws XMLStreamException {
+
+        cursor.readTextContent(element);
+        addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, element, null));
+        cursor.skipElement();
+    }
+
+    /**
+     * Returns a copy of the node which does not change when reading goes on.
+     * Ancestors of the node are copied without their other children, an
+     * attribute is copied together with its element.
+     */
+    private static Node detachNode(Node node) {
+
+        if (null == node) {
+            return null;
+        }
+
+        if (node.getNodeType() == Node.ATTRIBUTE_NODE) {
+            Attr attribute = (Attr) node;
+            Element element = (Element) detachNode(attribute.getOwnerElement());
+            return (null == attribute.getNamespaceURI())
+                    ? element.getAttributeNode(attribute.getName())
+                    : element.getAttributeNodeNS(attribute.getNamespaceURI(), attribute.getLocalName());
+        }
+
+        List<Node> ancestors = new ArrayList<>();
+        for (Node parent = node.getParentNode(); null != parent; parent = parent.getParentNode()) {
+            ancestors.add(parent);
+        }
+
+        Node copy = null;
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            Node parentCopy = ancestors.get(i).cloneNode(false);
+            DifferenceRecord.copyLocation(ancestors.get(i), parentCopy);
+            if (null != copy) {
+                copy.appendChild(parentCopy);
+            }
+            copy = parentCopy;
+        }
+
+        Node nodeCopy = node.cloneNode(true);
+        DifferenceRecord.copyLocation(node, nodeCopy);
+        if (null != copy) {
+            copy.appendChild(nodeCopy);
+        }
+        return nodeCopy;
+    }
+
+    private static void closeQuietly(DocumentCursor cursor) {
+        if (null != cursor) {
+            try {
+                cursor.reader.close();
+            } catch (XMLStreamException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void closeQuietly(InputStream input) {
+        if (null != input) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return (null == value || value.isEmpty()) ? null : value;
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return (null == prefix || prefix.isEmpty()) ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * Reads children of the elements of one document as DOM nodes. Elements
+     * are returned as shallow copies right after their start tag was read,
+     * consecutive character data are merged into a single text node as the
+     * DOM parser does. The copies of the open elements form a path from the
+     * document element to the element being read.
+     */
+    private static class DocumentCursor {
+
+        private final XMLStreamReader reader;
+        private final Document nodeFactory;
+        private final String version;
+        private final String encoding;
+        private final Deque<Element> openElements = new ArrayDeque<>();
+        private final Deque<Object> readAhead = new ArrayDeque<>();
+        private final Deque<Map<String, Integer>> childCounts = new ArrayDeque<>();
+
+        DocumentCursor(XMLStreamReader reader) {
+            this.reader = reader;
+            this.nodeFactory = DocumentParser.newDocument();
+            this.childCounts.push(new HashMap<String, Integer>()); // the document element
+            this.version = (null == reader.getVersion()) ? DEFAULT_VERSION : reader.getVersion();
+            // some readers do not report the declared encoding of XML 1.1 documents
+            this.encoding = (null == reader.getCharacterEncodingScheme())
+                    ? reader.getEncoding() : reader.getCharacterEncodingScheme();
+        }
+
+        String getVersion() {
+            return version;
+        }
+
+        String getEncoding() {
+            return encoding;
+        }
+
+        Element readDocumentElement() throws XMLStreamException {
+
+            while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                if (reader.getEventType() == XMLStreamConstants.END_DOCUMENT) {
+                    throw new XMLStreamException("Document has no element.");
+                }
+                reader.next();
+            }
+            return openElement();
+        }
+
+        /**
+         * Appends the text child to the element just opened if it is a text
+         * element, i.e. its only child is a text node.
+         */
+        void readTextContent(Element element) throws XMLStreamException {
+
+            Object firstChild = peek(0);
+            if (firstChild instanceof Node
+                    && ((Node) firstChild).getNodeType() == Node.TEXT_NODE
+                    && peek(1) == END_OF_CHILDREN) {
+                element.appendChild((Node) firstChild);
+            }
+        }
+
+        /**
+         * Returns the next child of the element being read, null after the
+         * last one. A returned element has to be compared or skipped before
+         * reading the next child.
+         */
+        Node readChild() throws XMLStreamException {
+
+            Object child = readAhead.isEmpty() ? read() : readAhead.poll();
+            if (child == END_OF_CHILDREN) {
+                readAhead.push(child);
+                return null;
+            }
+            return (Node) child;
+        }
+
+        /**
+         * Skips the rest of the element being read including its end tag.
+         */
+        void skipElement() throws XMLStreamException {
+
+            int depth = 1;
+            while (false == readAhead.isEmpty()) {
+                if (readAhead.poll() instanceof Element) {
+                    depth++;
+                    closeElement();
+                }
+            }
+
+            while (depth > 0) {
+                switch (reader.getEventType()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        break;
+                    case XMLStreamConstants.END_DOCUMENT:
+                        throw new XMLStreamException("Unexpected end of document.");
+                    default:
+                        break;
+                }
+                reader.next();
+            }
+            closeElement();
+        }
+
+        private Object peek(int index) throws XMLStreamException {
+            while (readAhead.size() <= index) {
+                readAhead.add(read());
+            }
+            int i = 0;
+            for (Object child : readAhead) {
+                if (i++ == index) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private Object read() throws XMLStreamException {
+
+            StringBuilder text = null;
+            while (true) {
+                switch (reader.getEventType()) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        if (null == text) {
+                            text = new StringBuilder();
+                        }
+                        text.append(reader.getText());
+                        reader.next();
+                        continue;
+                    default:
+                        break;
+                }
+
+                if (null != text) {
+                    return nodeFactory.createTextNode(text.toString());
+                }
+
+                Node node;
+                switch (reader.getEventType()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        return openElement();
+                    case XMLStreamConstants.END_ELEMENT:
+                    case XMLStreamConstants.END_DOCUMENT:
+                        return END_OF_CHILDREN;
+                    case XMLStreamConstants.CDATA:
+                        node = nodeFactory.createCDATASection(reader.getText());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        node = nodeFactory.createComment(reader.getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        node = nodeFactory.createProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                        break;
+                    default:
+                        reader.next();
+                        continue;
+                }
+                reader.next();
+                return node;
+            }
+        }
+
+        /**
+         * Creates a copy of the element whose start tag is the current event
+         * and moves to its first child.
+         */
+        private Element openElement() throws XMLStreamException {
+
+            Element element = nodeFactory.createElementNS(emptyToNull(reader.getNamespaceURI()),
+                    qualifiedName(reader.getPrefix(), reader.getLocalName()));
+
+            for (int i = 0, len = reader.getNamespaceCount(); i < len; i++) {
+                String prefix = emptyToNull(reader.getNamespacePrefix(i));
+                element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                        (null == prefix) ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix,
+                        reader.getNamespaceURI(i));
+            }
+
+            for (int i = 0, len = reader.getAttributeCount(); i < len; i++) {
+                element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)),
+                        qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                        reader.getAttributeValue(i));
+            }
+
+            // location of the element for difference records, siblings are not kept
+            Location location = reader.getLocation();
+            Integer position = childCounts.peek().get(element.getNodeName());
+            position = (null == position) ? 1 : position + 1;
+            childCounts.peek().put(element.getNodeName(), position);
+            childCounts.push(new HashMap<String, Integer>());
+            element.setUserData(DifferenceRecord.POSITION_KEY, position, null);
+            element.setUserData(DifferenceRecord.LINE_KEY, location.getLineNumber(), null);
+            element.setUserData(DifferenceRecord.COLUMN_KEY, location.getColumnNumber(), null);
+
+            if (false == openElements.isEmpty()) {
+                openElements.peek().appendChild(element);
+            }
+            openElements.push(element);
+            reader.next();
+            return element;
+        }
+
+        private void closeElement() {
+            Element element = openElements.pop();
+            if (null != element.getParentNode()) {
+                element.getParentNode().removeChild(element);
+            }
+            childCounts.pop();
+            // the document keeps user data of its nodes until they are removed
+            element.setUserData(DifferenceRecord.POSITION_KEY, null, null);
+            element.setUserData(DifferenceRecord.LINE_KEY, null, null);
+            element.setUserData(DifferenceRecord.COLUMN_KEY, null, null);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package Model;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Canonical 64-bit hashes of all element subtrees of a document, computed
+ * bottom-up from the hashes of child elements. The hash covers exactly what
+ * XmlComparison compares with given settings: namespace and local name of
+ * the element, its attributes (unordered, values only if checked, namespace
+ * declarations skipped), the text of text elements (trimmed if set) and the
+ * hashes of child elements. With strict element order the positions of child
+ * elements among all child nodes are hashed as well, otherwise the hashes of
+ * child elements are combined regardless of their order and other child
+ * nodes are left out, as they are not compared then. Subtrees which would be
+ * compared without differences have equal hashes. Instances are immutable
+ * and safe to read from several threads.
+ */
+final class SubtreeHashes {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long TEXT_ELEMENT = 1;
+    private static final long PARENT_ELEMENT = 2;
+
+    private final Map<Node, Long> hashes = new IdentityHashMap<Node, Long>();
+    private final boolean trimText;
+    private final boolean checkAttributeValues;
+    private final boolean strictElementOrder;
+
+    /**
+     * Computes hashes of all elements of the document.
+     *
+     * @param document Hashed document
+     * @param trimText Whether texts are compared trimmed
+     * @param checkAttributeValues Whether attribute values are compared
+     * @param strictElementOrder Whether child elements are compared by their
+     * position
+     * @throws IllegalArgumentException
+     */
+    SubtreeHashes(Document document, boolean trimText, boolean checkAttributeValues, boolean strictElementOrder)
+            throws IllegalArgumentException {
+
+        if (null == document) {
+            throw new IllegalArgumentException("SubtreeHashes: Document is null.");
+        }
+
+        this.trimText = trimText;
+        this.checkAttributeValues = checkAttributeValues;
+        this.strictElementOrder = strictElementOrder;
+        if (null != document.getDocumentElement()) {
+            hashElement(document.getDocumentElement());
+        }
+    }
+
+    boolean trimText() {
+        return this.trimText;
+    }
+
+    boolean checkAttributeValues() {
+        return this.checkAttributeValues;
+    }
+
+    boolean strictElementOrder() {
+        return this.strictElementOrder;
+    }
+
+    /**
+     * Returns hash of the element subtree.
+     *
+     * @param element Element of the hashed document
+     * @return Hash of the subtree, null if the element is not in the document.
+     */
+    Long getHash(Node element) {
+        return this.hashes.get(element);
+    }
+
+    /**
+     * Returns hash of the element alone: its name, attributes and text of a
+     * text element, but not its child elements.
+     *
+     * @param element Hashed element
+     * @return Hash of the element without its child elements.
+     */
+    long getElementHash(Element element) {
+
+        long hash = FNV_OFFSET;
+        hash = hashString(hash, element.getNamespaceURI());
+        hash = hashString(hash, element.getLocalName());
+        hash = hashLong(hash, hashAttributes(element));
+
+        Node firstChild = element.getFirstChild();
+        if (null != firstChild && null == firstChild.getNextSibling() && firstChild.getNodeType() == Node.TEXT_NODE) {
+            String text = firstChild.getNodeValue();
+            hash = hashLong(hash, TEXT_ELEMENT);
+            hash = hashString(hash, (true == trimText) ? text.trim() : text);
+        } else {
+            hash = hashLong(hash, PARENT_ELEMENT);
+        }
+        return hash;
+    }
+
+    private long hashElement(Element element) {
+
+        long hash = getElementHash(element);
+        Node firstChild = element.getFirstChild();
+        if (null == firstChild || null != firstChild.getNextSibling() || firstChild.getNodeType() != Node.TEXT_NODE) {
+            long unorderedSum = 0;
+            int position = 0;
+            for (Node child = firstChild; null != child; child = child.getNextSibling(), position++) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    long childHash = hashElement((Element) child);
+                    if (true == strictElementOrder) {
+                        hash = hashLong(hash, position);
+                        hash = hashLong(hash, childHash);
+                    } else {
+                        unorderedSum += mix(childHash);
+                    }
+                }
+            }
+            if (false == strictElementOrder) {
+                hash = hashLong(hash, unorderedSum);
+            }
+        }
+
+        this.hashes.put(element, hash);
+        return hash;
+    }
+
+    /**
+     * Attributes are matched by name regardless of their order, so their
+     * hashes are combined by addition.
+     */
+    private long hashAttributes(Element element) {
+
+        NamedNodeMap attributes = element.getAttributes();
+        long sum = 0;
+        for (int i = 0, len = attributes.getLength(); i < len; i++) {
+
+            Attr attribute = (Attr) attributes.item(i);
+            if (true == XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                continue;
+            }
+
+            long hash = FNV_OFFSET;
+            if (null == attribute.getNamespaceURI()) {
+                hash = hashString(hash, attribute.getName());
+            } else {
+                hash = hashString(hash, attribute.getNamespaceURI());
+                hash = hashString(hash, attribute.getLocalName());
+            }
+            if (true == checkAttributeValues) {
+                hash = hashString(hash, attribute.getValue());
+            }
+            sum += mix(hash);
+        }
+        return sum;
+    }
+
+    private static long hashString(long hash, String value) {
+
+        if (null == value) {
+            return hashLong(hash, -1);
+        }
+        for (int i = 0, len = value.length(); i < len; i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hashLong(hash, value.length());
+    }
+
+    private static long hashLong(long hash, long value) {
+        return (hash ^ mix(value)) * FNV_PRIME;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads every input bit over the
+     * whole result.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
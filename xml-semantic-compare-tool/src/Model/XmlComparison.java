@@ -3,18 +3,26 @@ package Model;
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.XMLConstants;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
@@ -29,12 +37,45 @@ import org.xml.sax.SAXException;
  */
 public class XmlComparison implements XmlComparator {
 
+    /**
+     * Default minimal number of child nodes an element must have for its
+     * children to be compared in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    private static ForkJoinPool defaultParallelPool;
+
+    /**
+     * Elements with more compared attributes are matched through a hash index
+     * instead of a linear search.
+     */
+    private static final int LINEAR_ATTRIBUTE_LOOKUP_LIMIT = 8;
+    /**
+     * Maximal number of pairs of same-named sibling elements whose similarity
+     * is computed in unordered comparison, larger groups are paired in
+     * document order.
+     */
+    private static final int MAX_SIMILARITY_PAIRS = 1 << 14;
+    private static final Attr[] NO_ATTRIBUTES = new Attr[0];
+
     private Document documentA;
     private Document documentB;
     private boolean trimText;
     private boolean strictElementOrder;
     private boolean checkAttributeValues;
     private List<XmlDifference> differences;
+    private ForkJoinPool parallelPool;
+    private int parallelThreshold;
+    private boolean documentsExpanded;
+    private boolean subtreeHashing;
+    private int maxDifferences;
+    private boolean detachDifferences;
+    private DifferenceListener differenceListener;
+    private int deliveredDifferences;
+    private volatile boolean limitReached;
+    private final AtomicInteger foundDifferences = new AtomicInteger();
+    private SubtreeHashes hashesA;
+    private SubtreeHashes hashesB;
+    private final ThreadLocal<List<XmlDifference>> taskDifferences = new ThreadLocal<List<XmlDifference>>();
 
     /**
      * Constructor for class XmlComparison. Performs initialization process of
@@ -58,7 +99,21 @@ public class XmlComparison implements XmlComparator {
         this.trimText = false;
         this.strictElementOrder = true;
         this.checkAttributeValues = false;
-        this.differences = new ArrayList();
+        this.differences = new ArrayList<XmlDifference>();
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Constructor for subclasses which do not hold the compared documents in
+     * memory (see StreamingXmlComparison). Initializes the settings to default
+     * values, getFirstDocument() and getSecondDocument() return null.
+     */
+    protected XmlComparison() {
+        this.trimText = false;
+        this.strictElementOrder = true;
+        this.checkAttributeValues = false;
+        this.differences = new ArrayList<XmlDifference>();
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
     }
 
     /**
@@ -129,7 +184,240 @@ public class XmlComparison implements XmlComparator {
         if (null == newDifference) {
             throw new IllegalArgumentException("AddDifference: New difference is null.");
         }
-        this.differences.add(newDifference);
+        collectDifference((true == detachDifferences) ? newDifference.detach() : newDifference);
+        if (foundDifferences.incrementAndGet() >= maxDifferences && 0 < maxDifferences) {
+            limitReached = true;
+        }
+    }
+
+    /**
+     * Stores the difference to the list of the running fork/join task.
+     * Outside of tasks the difference is passed to the difference listener,
+     * or stored to the comparison's list if there is none, unless maximal
+     * number of differences was passed already.
+     */
+    private void collectDifference(XmlDifference newDifference) {
+        List<XmlDifference> buffer = taskDifferences.get();
+        if (null != buffer) {
+            buffer.add(newDifference);
+            return;
+        }
+
+        if (0 < maxDifferences && deliveredDifferences >= maxDifferences) {
+            return;
+        }
+        deliveredDifferences++;
+        if (null != differenceListener) {
+            differenceListener.differenceFound(newDifference);
+        } else {
+            this.differences.add(newDifference);
+        }
+    }
+
+    /**
+     * Sets listener receiving differences as they are found instead of
+     * collecting them to the list returned by getDifferences(), so the memory
+     * used does not grow with the number of differences. Differences are
+     * passed in the same order as they would be collected, in parallel
+     * comparison those of a large sibling list are passed after the whole
+     * list is compared. Until then each fork/join task buffers the
+     * differences of its part of the list in a thread local list, so in
+     * parallel comparison the memory used still grows with the number of
+     * differences found within one large sibling list.
+     *
+     * @param differenceListener Listener receiving differences, null to
+     * collect differences to the list.
+     */
+    public void setDifferenceListener(DifferenceListener differenceListener) {
+        this.differenceListener = differenceListener;
+    }
+
+    /**
+     * Returns listener receiving differences, null if they are collected to
+     * the list.
+     *
+     * @return DifferenceListener Listener receiving differences.
+     */
+    public DifferenceListener getDifferenceListener() {
+        return this.differenceListener;
+    }
+
+    /**
+     * Sets maximal number of differences collected by one comparison. The
+     * comparison stops once the limit is reached, so documents differing in
+     * many places are not compared till their end. In parallel comparison,
+     * tasks running at the same time may find more differences before they
+     * stop; only the first ones in document order are kept, but these may
+     * be different ones than in a sequential comparison.
+     *
+     * @param maxDifferences Maximal number of differences, 0 for no limit.
+     * @throws IllegalArgumentException
+     */
+    public void setMaxDifferences(int maxDifferences) throws IllegalArgumentException {
+        if (maxDifferences < 0) {
+            throw new IllegalArgumentException("SetMaxDifferences: Maximal number of differences is negative.");
+        }
+        this.maxDifferences = maxDifferences;
+    }
+
+    /**
+     * Returns maximal number of differences collected by one comparison.
+     *
+     * @return int Maximal number of differences, 0 for no limit.
+     */
+    public int getMaxDifferences() {
+        return this.maxDifferences;
+    }
+
+    /**
+     * Enables or disables stopping the comparison at the first difference,
+     * same as setting maximal number of differences to 1 or to no limit.
+     *
+     * @param failFast true to stop at the first difference.
+     */
+    public void setFailFast(boolean failFast) {
+        setMaxDifferences((true == failFast) ? 1 : 0);
+    }
+
+    /**
+     * Returns whether the comparison stops at the first difference.
+     *
+     * @return boolean Fail fast setting.
+     */
+    public boolean failFast() {
+        return 1 == this.maxDifferences;
+    }
+
+    /**
+     * Returns whether the last comparison stopped before comparing the whole
+     * documents because maximal number of differences was reached.
+     *
+     * @return boolean True if the comparison was stopped.
+     */
+    public boolean differenceLimitReached() {
+        return this.limitReached;
+    }
+
+    /**
+     * Enables or disables parallel comparison of large sibling lists using a
+     * fork/join pool shared by all comparisons with the default threshold.
+     * Differences are reported in the same order as by sequential
+     * comparison.
+     *
+     * @param parallel true to compare in parallel, false to compare
+     * sequentially.
+     */
+    public void setParallelComparison(boolean parallel) {
+        if (true == parallel) {
+            setParallelComparison(getDefaultParallelPool(), DEFAULT_PARALLEL_THRESHOLD);
+        } else {
+            this.parallelPool = null;
+        }
+    }
+
+    /**
+     * Enables parallel comparison using given pool. Children of an element
+     * are split into fork/join tasks when the element has more children than
+     * the threshold, each task compares at most threshold children pairs.
+     *
+     * @param pool Pool running the comparison tasks, null disables parallel
+     * comparison.
+     * @param threshold Minimal number of children compared in parallel.
+     * @throws IllegalArgumentException
+     */
+    public void setParallelComparison(ForkJoinPool pool, int threshold) throws IllegalArgumentException {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("SetParallelComparison: Threshold is not positive.");
+        }
+        this.parallelPool = pool;
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * Returns whether large sibling lists are compared in parallel.
+     *
+     * @return boolean Parallel comparison setting.
+     */
+    public boolean parallelComparison() {
+        return null != this.parallelPool;
+    }
+
+    /**
+     * Returns minimal number of children compared in parallel.
+     *
+     * @return int Parallel comparison threshold.
+     */
+    public int getParallelThreshold() {
+        return this.parallelThreshold;
+    }
+
+    private static synchronized ForkJoinPool getDefaultParallelPool() {
+        if (null == defaultParallelPool) {
+            defaultParallelPool = new ForkJoinPool();
+        }
+        return defaultParallelPool;
+    }
+
+    /**
+     * Enables or disables skipping of identical subtrees. Before the
+     * comparison, hashes of all element subtrees of both documents are
+     * computed and subtrees with equal hashes are not compared. Hashes are
+     * recomputed only when trimText or checkAttributeValues setting changes.
+     * Subtrees differing only in a hash collision would be skipped, which is
+     * improbable for 64-bit hashes.
+     *
+     * @param subtreeHashing true to skip subtrees with equal hashes.
+     */
+    public void setSubtreeHashing(boolean subtreeHashing) {
+        this.subtreeHashing = subtreeHashing;
+        if (false == subtreeHashing) {
+            this.hashesA = null;
+            this.hashesB = null;
+        }
+    }
+
+    /**
+     * Returns whether subtrees with equal hashes are skipped.
+     *
+     * @return boolean Subtree hashing setting.
+     */
+    public boolean subtreeHashing() {
+        return this.subtreeHashing;
+    }
+
+    /**
+     * Enables or disables storing detached differences. Detached differences
+     * hold only a DifferenceRecord with locations, names and values of the
+     * nodes, so the collected differences do not keep the compared documents
+     * in memory; getExpectedNode() and getFoundNode() of such differences
+     * return null.
+     *
+     * @param detachDifferences true to store detached differences.
+     */
+    public void setDetachDifferences(boolean detachDifferences) {
+        this.detachDifferences = detachDifferences;
+    }
+
+    /**
+     * Returns whether detached differences are stored.
+     *
+     * @return boolean Detach differences setting.
+     */
+    public boolean detachDifferences() {
+        return this.detachDifferences;
+    }
+
+    /**
+     * Returns records of all differences collected, see DifferenceRecord.
+     *
+     * @return List of difference records.
+     */
+    public List<DifferenceRecord> getDifferenceRecords() {
+        List<DifferenceRecord> records = new ArrayList<DifferenceRecord>(differences.size());
+        for (XmlDifference difference : differences) {
+            records.add(difference.toRecord());
+        }
+        return records;
     }
 
     /**
@@ -172,13 +460,10 @@ public class XmlComparison implements XmlComparator {
             throw new IllegalArgumentException("CreateDocument: Document URI is null.");
         }
 
-        try {
-            DocumentBuilderFactory builderFactory = DocumentBuilderFactory.newInstance();
-            builderFactory.setNamespaceAware(true); // needed in order for namespace functions to work (getLocalName, getPrefix, ..)
-            DocumentBuilder builder = builderFactory.newDocumentBuilder();
-            document = builder.parse(new FileInputStream(documentURI));
+        try (InputStream input = new FileInputStream(documentURI)) {
+            document = DocumentParser.parse(input);
 
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+        } catch (SAXException | IOException e) {
             e.printStackTrace();
         }
 
@@ -201,13 +486,10 @@ public class XmlComparison implements XmlComparator {
         }
 
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            factory.setNamespaceAware(true); // needed in order for namespace functions to work (getLocalName, getPrefix, ..)
-            DocumentBuilder builder = factory.newDocumentBuilder();
             ByteArrayInputStream bis = new ByteArrayInputStream(documentSource.getBytes());
 
-            document = builder.parse(bis);
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+            document = DocumentParser.parse(bis);
+        } catch (SAXException | IOException e) {
             e.printStackTrace();
         }
 
@@ -219,6 +501,20 @@ public class XmlComparison implements XmlComparator {
         this.trimText = trimText;
         this.strictElementOrder = strictElementOrder;
         this.checkAttributeValues = checkAttributeValues;
+        this.foundDifferences.set(0);
+        this.deliveredDifferences = 0;
+        this.limitReached = false;
+
+        compareDocuments();
+        return (0 == getDifferences().size()) && (0 == this.deliveredDifferences);
+    }
+
+    /**
+     * Compares the documents with current settings, differences found are
+     * passed to addDifference(). Subclasses reading the documents in a
+     * different way override this method.
+     */
+    protected void compareDocuments() {
 
         if (false == equalsDocumentVersion(documentA, documentB)) {
             addDifference(new XmlDifference(XmlDifferenceType.VERSION_DIFFERENCE, null, null));
@@ -228,8 +524,50 @@ public class XmlComparison implements XmlComparator {
             addDifference(new XmlDifference(XmlDifferenceType.ENCODING_DIFFERENCE, null, null));
         }
 
+        if ((true == subtreeHashing() || false == strictElementOrder()) && null != getFirstDocument()) {
+            computeSubtreeHashes();
+        }
+
+        if (true == parallelComparison() && false == documentsExpanded) {
+            expandNodes(documentA);
+            expandNodes(documentB);
+            documentsExpanded = true;
+        }
+
         equalsElements(getFirstDocument().getDocumentElement(), getSecondDocument().getDocumentElement(), true);
-        return (0 == getDifferences().size());
+    }
+
+    /**
+     * Computes hashes of both documents unless they were computed with the
+     * current settings already.
+     */
+    private void computeSubtreeHashes() {
+
+        if (null != hashesA
+                && hashesA.trimText() == trimText()
+                && hashesA.checkAttributeValues() == checkAttributeValues()
+                && hashesA.strictElementOrder() == strictElementOrder()) {
+            return;
+        }
+
+        hashesA = new SubtreeHashes(documentA, trimText(), checkAttributeValues(), strictElementOrder());
+        hashesB = new SubtreeHashes(documentB, trimText(), checkAttributeValues(), strictElementOrder());
+    }
+
+    /**
+     * Returns whether the elements are known to be equal from their subtree
+     * hashes.
+     */
+    private boolean equalsSubtreeHashes(Element elementA, Element elementB) {
+
+        SubtreeHashes currentHashesA = this.hashesA;
+        SubtreeHashes currentHashesB = this.hashesB;
+        if (false == subtreeHashing() || null == currentHashesA || null == currentHashesB) {
+            return false;
+        }
+
+        Long hashA = currentHashesA.getHash(elementA);
+        return null != hashA && hashA.equals(currentHashesB.getHash(elementB));
     }
 
     @Override
@@ -276,6 +614,14 @@ public class XmlComparison implements XmlComparator {
             throw new IllegalArgumentException("EqualsElement: Element B is null.");
         }
 
+        if (true == equalsSubtreeHashes(elementA, elementB)) {
+            return true;
+        }
+
+        if (true == limitReached) {
+            return false;
+        }
+
         boolean elementsEquality = equalsElementNamespace(elementA, elementB); // check the namespace location first, if false, bail the rest
         if (true == elementsEquality) {
 
@@ -291,56 +637,9 @@ public class XmlComparison implements XmlComparator {
                         elementsEquality = equalsElementText(elementA, elementB);
                     } else {
                         if (true == applyRecursion) {
-
-                            Node currentNodeA = null;
-                            Node currentNodeB = null;
-                            NodeList childrenListA = elementA.getChildNodes();
-                            NodeList childrenListB = elementB.getChildNodes();
-
-                            int i = 0;
-                            while (true) {
-
-                                currentNodeA = childrenListA.item(i);
-                                currentNodeB = childrenListB.item(i);
-
-                                if (null == currentNodeA
-                                        || null == currentNodeB) {
-                                    break;
-                                }
-
-                                if (currentNodeA.getNodeType() == Node.ELEMENT_NODE) {
-                                    if (currentNodeB.getNodeType() == Node.ELEMENT_NODE) {
-                                        elementsEquality = equalsElements((Element) currentNodeA, (Element) currentNodeB, applyRecursion);
-                                    } else {
-                                        addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, currentNodeA, null));
-                                    }
-                                } else {
-                                    if (currentNodeB.getNodeType() == Node.ELEMENT_NODE) {
-                                        addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, currentNodeB, null));
-                                    }
-                                }
-                                i++;
-                            }
-
-                            while (true) {
-                                if (null == currentNodeA
-                                        && null == currentNodeB) {
-                                    break;
-                                }
-
-                                if (null == currentNodeA && null != currentNodeB) {
-                                    if (currentNodeB.getNodeType() == Node.ELEMENT_NODE) {
-                                        addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, currentNodeB, null));
-                                    }
-                                } else {
-                                    if (currentNodeA.getNodeType() == Node.ELEMENT_NODE) {
-                                        addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, currentNodeA, null));
-                                    }
-                                }
-
-                                i++;
-                                currentNodeA = childrenListA.item(i);
-                                currentNodeB = childrenListB.item(i);
+                            Boolean childrenEquality = compareChildren(elementA, elementB);
+                            if (null != childrenEquality) {
+                                elementsEquality = childrenEquality;
                             }
                         }
                     }
@@ -350,6 +649,430 @@ public class XmlComparison implements XmlComparator {
         return elementsEquality;
     }
 
+    /**
+     * Compares children of two elements. With strict element order the
+     * children are paired by their position, otherwise child elements are
+     * matched regardless of their order (see compareUnorderedChildren).
+     * Pairs of elements are compared recursively, an element paired with a
+     * non-element node or with no node at all is reported as missing.
+     *
+     * @param elementA First compared element
+     * @param elementB Second compared element
+     * @return Result of the last compared pair of elements, null if there was
+     * no such pair.
+     */
+    private Boolean compareChildren(Element elementA, Element elementB) {
+
+        Node[] childrenA = getChildren(elementA);
+        Node[] childrenB = getChildren(elementB);
+        if (false == strictElementOrder()) {
+            return compareUnorderedChildren(getElements(childrenA), getElements(childrenB));
+        }
+
+        int commonLength = Math.min(childrenA.length, childrenB.length);
+        Boolean lastEquality = comparePairs(childrenA, childrenB, commonLength);
+
+        reportMissingElements(childrenA, commonLength);
+        reportMissingElements(childrenB, commonLength);
+        return lastEquality;
+    }
+
+    /**
+     * Matches child elements regardless of their order. Elements with equal
+     * subtree hashes are matched first, they are equal and need no further
+     * comparison. Remaining elements of the same namespace and local name are
+     * paired by their similarity (see matchSimilarElements), elements left
+     * after that are paired in document order, so a renamed element is
+     * reported as a different name, not as missing. Surplus elements are
+     * reported as missing.
+     *
+     * @param elementsA Child elements of the first element
+     * @param elementsB Child elements of the second element
+     * @return Result of the last compared pair of elements in order of the
+     * first element's children, null if there was no such pair.
+     */
+    private Boolean compareUnorderedChildren(Node[] elementsA, Node[] elementsB) {
+
+        int[] matchA = new int[elementsA.length];
+        int[] matchB = new int[elementsB.length];
+        Arrays.fill(matchA, -1);
+        Arrays.fill(matchB, -1);
+        boolean[] equalA = new boolean[elementsA.length];
+
+        Map<Long, Deque<Integer>> hashBuckets = new HashMap<Long, Deque<Integer>>();
+        for (int j = 0; j < elementsB.length; j++) {
+            addToBucket(hashBuckets, getSubtreeHash(hashesB, elementsB[j]), j);
+        }
+        int lastEqualIndex = -1;
+        for (int i = 0; i < elementsA.length; i++) {
+            Integer j = pollBucket(hashBuckets, getSubtreeHash(hashesA, elementsA[i]));
+            if (null != j) {
+                matchA[i] = j;
+                matchB[j] = i;
+                equalA[i] = true;
+                lastEqualIndex = i;
+            }
+        }
+
+        Map<String, Deque<Integer>> nameBucketsA = new LinkedHashMap<String, Deque<Integer>>();
+        Map<String, Deque<Integer>> nameBucketsB = new HashMap<String, Deque<Integer>>();
+        for (int i = 0; i < elementsA.length; i++) {
+            if (-1 == matchA[i]) {
+                addToBucket(nameBucketsA, getQualifiedName(elementsA[i]), i);
+            }
+        }
+        for (int j = 0; j < elementsB.length; j++) {
+            if (-1 == matchB[j]) {
+                addToBucket(nameBucketsB, getQualifiedName(elementsB[j]), j);
+            }
+        }
+        for (Map.Entry<String, Deque<Integer>> bucketA : nameBucketsA.entrySet()) {
+            Deque<Integer> bucketB = nameBucketsB.get(bucketA.getKey());
+            if (null != bucketB) {
+                matchSimilarElements(elementsA, bucketA.getValue(), elementsB, bucketB, matchA, matchB);
+            }
+        }
+
+        for (int i = 0, j = 0; i < elementsA.length; i++) {
+            if (-1 == matchA[i]) {
+                while (j < elementsB.length && -1 != matchB[j]) {
+                    j++;
+                }
+                if (j < elementsB.length) {
+                    matchA[i] = j;
+                    matchB[j] = i;
+                }
+            }
+        }
+
+        List<Node> pairedA = new ArrayList<Node>();
+        List<Node> pairedB = new ArrayList<Node>();
+        int lastPairIndex = -1;
+        for (int i = 0; i < elementsA.length; i++) {
+            if (-1 != matchA[i] && false == equalA[i]) {
+                pairedA.add(elementsA[i]);
+                pairedB.add(elementsB[matchA[i]]);
+                lastPairIndex = i;
+            }
+        }
+
+        Boolean lastEquality = comparePairs(pairedA.toArray(new Node[pairedA.size()]),
+                pairedB.toArray(new Node[pairedB.size()]), pairedA.size());
+
+        for (int i = 0; i < elementsA.length; i++) {
+            if (-1 == matchA[i]) {
+                addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, elementsA[i], null));
+            }
+        }
+        for (int j = 0; j < elementsB.length; j++) {
+            if (-1 == matchB[j]) {
+                addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, elementsB[j], null));
+            }
+        }
+        return (lastEqualIndex > lastPairIndex) ? Boolean.TRUE : lastEquality;
+    }
+
+    /**
+     * Pairs elements of the same name by their similarity, the number of
+     * child subtrees of one element with no equal subtree among the children
+     * of the other one, plus one if the elements differ in their attributes
+     * or text. The most similar pairs are taken first, equally similar ones
+     * in document order. Groups with more than MAX_SIMILARITY_PAIRS pairs, or
+     * elements without subtree hashes, are paired in document order.
+     */
+    private void matchSimilarElements(Node[] elementsA, Deque<Integer> indexesA, Node[] elementsB,
+            Deque<Integer> indexesB, int[] matchA, int[] matchB) {
+
+        Integer[] bucketA = indexesA.toArray(new Integer[indexesA.size()]);
+        Integer[] bucketB = indexesB.toArray(new Integer[indexesB.size()]);
+        SubtreeHashes currentHashesA = this.hashesA;
+        SubtreeHashes currentHashesB = this.hashesB;
+
+        if (1 == bucketA.length || 1 == bucketB.length || null == currentHashesA || null == currentHashesB
+                || (long) bucketA.length * bucketB.length > MAX_SIMILARITY_PAIRS) {
+            for (int k = 0; k < bucketA.length && k < bucketB.length; k++) {
+                matchA[bucketA[k]] = bucketB[k];
+                matchB[bucketB[k]] = bucketA[k];
+            }
+            return;
+        }
+
+        long[][] childHashesA = new long[bucketA.length][];
+        long[] elementHashesA = new long[bucketA.length];
+        for (int a = 0; a < bucketA.length; a++) {
+            childHashesA[a] = getChildHashes(currentHashesA, elementsA[bucketA[a]]);
+            elementHashesA[a] = currentHashesA.getElementHash((Element) elementsA[bucketA[a]]);
+        }
+        long[][] childHashesB = new long[bucketB.length][];
+        long[] elementHashesB = new long[bucketB.length];
+        for (int b = 0; b < bucketB.length; b++) {
+            childHashesB[b] = getChildHashes(currentHashesB, elementsB[bucketB[b]]);
+            elementHashesB[b] = currentHashesB.getElementHash((Element) elementsB[bucketB[b]]);
+        }
+
+        // distance and positions of each candidate pair packed in a long,
+        // sorting them orders pairs by distance, then by document order
+        long[] candidates = new long[bucketA.length * bucketB.length];
+        int count = 0;
+        for (int a = 0; a < bucketA.length; a++) {
+            for (int b = 0; b < bucketB.length; b++) {
+                long distance = countUnmatched(childHashesA[a], childHashesB[b])
+                        + ((elementHashesA[a] == elementHashesB[b]) ? 0 : 1);
+                candidates[count++] = (distance << 28) | ((long) a << 14) | b;
+            }
+        }
+        Arrays.sort(candidates);
+
+        int pairs = Math.min(bucketA.length, bucketB.length);
+        for (int k = 0; k < candidates.length && 0 < pairs; k++) {
+            int i = bucketA[(int) (candidates[k] >>> 14) & 0x3fff];
+            int j = bucketB[(int) candidates[k] & 0x3fff];
+            if (-1 == matchA[i] && -1 == matchB[j]) {
+                matchA[i] = j;
+                matchB[j] = i;
+                pairs--;
+            }
+        }
+    }
+
+    /**
+     * Returns sorted subtree hashes of the child elements.
+     */
+    private static long[] getChildHashes(SubtreeHashes hashes, Node element) {
+
+        List<Long> childHashes = new ArrayList<Long>();
+        for (Node child = element.getFirstChild(); null != child; child = child.getNextSibling()) {
+            Long hash = (child.getNodeType() == Node.ELEMENT_NODE) ? hashes.getHash(child) : null;
+            if (null != hash) {
+                childHashes.add(hash);
+            }
+        }
+
+        long[] sorted = new long[childHashes.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = childHashes.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns number of hashes of either sorted array with no equal hash left
+     * in the other one.
+     */
+    private static int countUnmatched(long[] hashesA, long[] hashesB) {
+
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < hashesA.length && j < hashesB.length) {
+            if (hashesA[i] == hashesB[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (hashesA[i] < hashesB[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return hashesA.length + hashesB.length - 2 * common;
+    }
+
+    /**
+     * Compares first length pairs of nodes at the same positions of the
+     * arrays. When parallel comparison is enabled and there are more pairs
+     * than the threshold, the pairs are compared in fork/join tasks.
+     *
+     * @return Result of the last compared pair of elements, null if there was
+     * no such pair.
+     */
+    private Boolean comparePairs(Node[] nodesA, Node[] nodesB, int length) {
+
+        if (null != parallelPool && length > parallelThreshold) {
+            ChildrenComparison task = new ChildrenComparison(nodesA, nodesB, 0, length);
+            Boolean lastEquality = ForkJoinTask.inForkJoinPool() ? task.invoke() : parallelPool.invoke(task);
+            for (XmlDifference difference : task.differences) {
+                collectDifference(difference);
+            }
+            return lastEquality;
+        }
+
+        Boolean lastEquality = null;
+        for (int i = 0; i < length && false == limitReached; i++) {
+            Boolean pairEquality = compareChildPair(nodesA[i], nodesB[i]);
+            if (null != pairEquality) {
+                lastEquality = pairEquality;
+            }
+        }
+        return lastEquality;
+    }
+
+    /**
+     * Reports elements from position from on as missing.
+     */
+    private void reportMissingElements(Node[] children, int from) {
+        for (int i = from; i < children.length; i++) {
+            if (children[i].getNodeType() == Node.ELEMENT_NODE) {
+                addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, children[i], null));
+            }
+        }
+    }
+
+    private static <K> void addToBucket(Map<K, Deque<Integer>> buckets, K key, int index) {
+        if (null == key) {
+            return;
+        }
+        Deque<Integer> bucket = buckets.get(key);
+        if (null == bucket) {
+            bucket = new ArrayDeque<Integer>();
+            buckets.put(key, bucket);
+        }
+        bucket.addLast(index);
+    }
+
+    private static <K> Integer pollBucket(Map<K, Deque<Integer>> buckets, K key) {
+        Deque<Integer> bucket = (null == key) ? null : buckets.get(key);
+        return (null == bucket) ? null : bucket.pollFirst();
+    }
+
+    private static Long getSubtreeHash(SubtreeHashes hashes, Node element) {
+        return (null == hashes) ? null : hashes.getHash(element);
+    }
+
+    private static String getQualifiedName(Node element) {
+        String namespace = element.getNamespaceURI();
+        return "{" + ((null == namespace) ? "" : namespace) + "}" + element.getLocalName();
+    }
+
+    /**
+     * Compares two child nodes found at the same position.
+     *
+     * @return Equality of the nodes if both are elements, null otherwise.
+     */
+    private Boolean compareChildPair(Node nodeA, Node nodeB) {
+
+        if (nodeA.getNodeType() == Node.ELEMENT_NODE) {
+            if (nodeB.getNodeType() == Node.ELEMENT_NODE) {
+                return equalsElements((Element) nodeA, (Element) nodeB, true);
+            }
+            addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, nodeA, null));
+        } else if (nodeB.getNodeType() == Node.ELEMENT_NODE) {
+            addDifference(new XmlDifference(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, nodeB, null));
+        }
+        return null;
+    }
+
+    /**
+     * Returns child nodes of the element. Siblings are walked instead of
+     * using NodeList, whose caches are shared by the whole document and are
+     * not safe to read from several threads.
+     */
+    private static Node[] getChildren(Element element) {
+
+        List<Node> children = new ArrayList<Node>();
+        for (Node child = element.getFirstChild(); null != child; child = child.getNextSibling()) {
+            children.add(child);
+        }
+        return children.toArray(new Node[children.size()]);
+    }
+
+    private static Node[] getElements(Node[] children) {
+
+        List<Node> elements = new ArrayList<Node>();
+        for (Node child : children) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                elements.add(child);
+            }
+        }
+        return elements.toArray(new Node[elements.size()]);
+    }
+
+    /**
+     * Expands all nodes of the document. Parsers may build the nodes lazily
+     * on first access (deferred DOM), which modifies the document and must
+     * not happen from several threads at once.
+     */
+    private static void expandNodes(Document document) {
+
+        Node root = document.getDocumentElement();
+        Node node = root;
+        while (null != node) {
+            node.getNodeValue();
+            NamedNodeMap attributes = node.getAttributes();
+            if (null != attributes) {
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    attributes.item(i).getNodeValue();
+                }
+            }
+
+            Node next = node.getFirstChild();
+            while (null == next && node != root) {
+                next = node.getNextSibling();
+                if (null == next) {
+                    node = node.getParentNode();
+                }
+            }
+            node = next;
+        }
+    }
+
+    /**
+     * Fork/join task comparing the child pairs in range [from, to). Ranges
+     * longer than the parallel threshold are split in halves. Differences
+     * found by the task are collected in its own list, halves are appended
+     * in order, so the differences keep the order of the sequential run.
+     */
+    private class ChildrenComparison extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Node[] childrenA;
+        private final Node[] childrenB;
+        private final int from;
+        private final int to;
+        private final List<XmlDifference> differences = new ArrayList<XmlDifference>();
+
+        ChildrenComparison(Node[] childrenA, Node[] childrenB, int from, int to) {
+            this.childrenA = childrenA;
+            this.childrenB = childrenB;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Boolean compute() {
+
+            if (to - from <= parallelThreshold) {
+                List<XmlDifference> previousBuffer = taskDifferences.get();
+                taskDifferences.set(differences);
+                try {
+                    Boolean lastEquality = null;
+                    for (int i = from; i < to && false == limitReached; i++) {
+                        Boolean pairEquality = compareChildPair(childrenA[i], childrenB[i]);
+                        if (null != pairEquality) {
+                            lastEquality = pairEquality;
+                        }
+                    }
+                    return lastEquality;
+                } finally {
+                    taskDifferences.set(previousBuffer);
+                }
+            }
+
+            int middle = (from + to) >>> 1;
+            ChildrenComparison first = new ChildrenComparison(childrenA, childrenB, from, middle);
+            ChildrenComparison second = new ChildrenComparison(childrenA, childrenB, middle, to);
+            second.fork();
+            Boolean firstEquality = first.compute();
+            Boolean secondEquality = second.join();
+
+            differences.addAll(first.differences);
+            differences.addAll(second.differences);
+            return (null != secondEquality) ? secondEquality : firstEquality;
+        }
+    }
+
     @Override
     public boolean equalsElementNamespace(Element elementA, Element elementB) throws IllegalArgumentException {
 
@@ -413,51 +1136,130 @@ public class XmlComparison implements XmlComparator {
             throw new NullPointerException("EqualsElementAttributes: Attributes of element B is null.");
         }
 
-        Attr currentAttributeA;
-        Attr currentAttributeB;
-
-        for (int i = 0, len = attributesA.getLength(); i < len; i++) {
+        Attr[] comparedAttributesA = getComparedAttributes(attributesA);
+        Attr[] comparedAttributesB = getComparedAttributes(attributesB);
+        if (0 == comparedAttributesA.length && 0 == comparedAttributesB.length) {
+            return true;
+        }
 
-            currentAttributeA = (Attr) attributesA.item(i);
-            if (true == currentAttributeA.getName().startsWith("xmlns")) {
-                continue;
+        // attributes of B are looked up by index only when there are many of them
+        Map<AttributeKey, Integer> indexB = null;
+        if (comparedAttributesB.length > LINEAR_ATTRIBUTE_LOOKUP_LIMIT) {
+            indexB = new HashMap<AttributeKey, Integer>(comparedAttributesB.length * 2);
+            for (int j = 0; j < comparedAttributesB.length; j++) {
+                indexB.put(new AttributeKey(comparedAttributesB[j]), j);
             }
+        }
 
-            currentAttributeB = (null == currentAttributeA.getNamespaceURI())
-                    ? (Attr) attributesB.getNamedItem(currentAttributeA.getName())
-                    : (Attr) attributesB.getNamedItemNS(currentAttributeA.getNamespaceURI(), currentAttributeA.getLocalName());
+        boolean[] matchedB = new boolean[comparedAttributesB.length];
+        int matchedCount = 0;
+        for (Attr currentAttributeA : comparedAttributesA) {
 
-            if (null == currentAttributeB) {
+            int j = findAttribute(currentAttributeA, comparedAttributesB, indexB);
+            if (-1 == j) {
                 addDifference(new XmlDifference(XmlDifferenceType.ATTRIBUTE_MISSING_DIFFERENCE, (Node) currentAttributeA, null));
                 equalsAttributesAtoB = false;
-            } else {
-                if (true == checkAttributeValues()) {
-                    if (false == currentAttributeA.getValue().equals(currentAttributeB.getValue())) {
-                        addDifference(new XmlDifference(XmlDifferenceType.ATTRIBUTE_VALUE_DIFFERENCE, (Node) currentAttributeA, currentAttributeB));
-                        equalsAttributesAtoB = false;
-                    }
+                continue;
+            }
+
+            matchedB[j] = true;
+            matchedCount++;
+            Attr currentAttributeB = comparedAttributesB[j];
+            if (true == checkAttributeValues()) {
+                if (false == currentAttributeA.getValue().equals(currentAttributeB.getValue())) {
+                    addDifference(new XmlDifference(XmlDifferenceType.ATTRIBUTE_VALUE_DIFFERENCE, (Node) currentAttributeA, currentAttributeB));
+                    equalsAttributesAtoB = false;
                 }
             }
         }
 
-        for (int i = 0, len = attributesB.getLength(); i < len; i++) {
+        if (matchedCount < comparedAttributesB.length) {
+            for (int j = 0; j < comparedAttributesB.length; j++) {
+                if (false == matchedB[j]) {
+                    addDifference(new XmlDifference(XmlDifferenceType.ATTRIBUTE_MISSING_DIFFERENCE, (Node) comparedAttributesB[j], null));
+                    equalsAttributesBtoA = false;
+                }
+            }
+        }
 
-            currentAttributeB = (Attr) attributesB.item(i);
-            if (true == currentAttributeB.getName().startsWith("xmlns")) {
-                continue;
+        return equalsAttributesAtoB && equalsAttributesBtoA;
+    }
+
+    /**
+     * Returns attributes of the element except namespace declarations, in
+     * the order of the map.
+     */
+    private static Attr[] getComparedAttributes(NamedNodeMap attributes) {
+
+        int length = attributes.getLength();
+        if (0 == length) {
+            return NO_ATTRIBUTES;
+        }
+
+        Attr[] compared = new Attr[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            if (false == XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                compared[count++] = attribute;
             }
+        }
+        return (count == length) ? compared : Arrays.copyOf(compared, count);
+    }
+
+    /**
+     * Returns position of the attribute with the same name in the array, -1
+     * if there is none. Attributes without namespace are matched by their
+     * name, others by namespace and local name.
+     */
+    private static int findAttribute(Attr attribute, Attr[] attributes, Map<AttributeKey, Integer> index) {
 
-            currentAttributeA = (null == currentAttributeB.getNamespaceURI())
-                    ? (Attr) attributesA.getNamedItem(currentAttributeB.getName())
-                    : (Attr) attributesA.getNamedItemNS(currentAttributeB.getNamespaceURI(), currentAttributeB.getLocalName());
+        if (null != index) {
+            Integer position = index.get(new AttributeKey(attribute));
+            return (null == position) ? -1 : position;
+        }
 
-            if (null == currentAttributeA) {
-                addDifference(new XmlDifference(XmlDifferenceType.ATTRIBUTE_MISSING_DIFFERENCE, (Node) currentAttributeB, null));
-                equalsAttributesBtoA = false;
+        String namespace = attribute.getNamespaceURI();
+        String name = (null == namespace) ? attribute.getName() : attribute.getLocalName();
+        for (int i = 0; i < attributes.length; i++) {
+            String otherNamespace = attributes[i].getNamespaceURI();
+            if (null == namespace) {
+                if (null == otherNamespace && name.equals(attributes[i].getName())) {
+                    return i;
+                }
+            } else if (namespace.equals(otherNamespace) && name.equals(attributes[i].getLocalName())) {
+                return i;
             }
         }
+        return -1;
+    }
 
-        return equalsAttributesAtoB && equalsAttributesBtoA;
+    /**
+     * Name of an attribute as matched by findAttribute().
+     */
+    private static final class AttributeKey {
+
+        private final String namespace;
+        private final String name;
+
+        AttributeKey(Attr attribute) {
+            this.namespace = attribute.getNamespaceURI();
+            this.name = (null == namespace) ? attribute.getName() : attribute.getLocalName();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * ((null == namespace) ? 0 : namespace.hashCode()) + name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (false == obj instanceof AttributeKey) {
+                return false;
+            }
+            AttributeKey other = (AttributeKey) obj;
+            return name.equals(other.name) && ((null == namespace) ? null == other.namespace : namespace.equals(other.namespace));
+        }
     }
 
     @Override
@@ -503,8 +1305,8 @@ public class XmlComparison implements XmlComparator {
             throw new IllegalArgumentException("IsTextElement: Element is null.");
         }
 
-        NodeList childList = element.getChildNodes();
+        Node firstChild = element.getFirstChild();
 
-        return (1 == childList.getLength()) && (childList.item(0).getNodeType() == Node.TEXT_NODE);
+        return (null != firstChild) && (null == firstChild.getNextSibling()) && (firstChild.getNodeType() == Node.TEXT_NODE);
     }
 }
@@ -6,7 +6,9 @@ import org.w3c.dom.Node;
 /**
  * Provides the datatype class for single XML difference as well as all 
  * necessary properties required to specify location of XML elements where the 
- * difference has occured. 
+ * difference has occured. A detached difference (see detach()) holds only its
+ * DifferenceRecord instead of the nodes, so it does not keep the compared
+ * documents in memory.
  * 
  * @author Pástor Lukáš
  * @version 05/6/2013
@@ -16,6 +18,7 @@ public class XmlDifference {
     private Node expectedNode;
     private Node foundNode;
     private XmlDifferenceType type;
+    private DifferenceRecord record;
     
     /**
      * Constructor for class XmlDifference. 
@@ -34,6 +37,48 @@ public class XmlDifference {
         this.type = type;        
     }
 
+    /**
+     * Constructor for detached XmlDifference, expected and found nodes are
+     * null.
+     *
+     * @param record Record describing the difference.
+     * @throws IllegalArgumentException
+     */
+    public XmlDifference(DifferenceRecord record) throws IllegalArgumentException {
+        if ( null == record ) {
+            throw new IllegalArgumentException("XmlDifference: Difference record is null.");
+        }
+        this.type = record.getType();
+        this.record = record;
+    }
+
+    /**
+     * Returns record describing the difference without references to nodes.
+     *
+     * @return Record of difference.
+     */
+    public DifferenceRecord toRecord() {
+        return (null != record) ? record : DifferenceRecord.of(this);
+    }
+
+    /**
+     * Returns detached copy of the difference holding only its record.
+     *
+     * @return Detached difference.
+     */
+    public XmlDifference detach() {
+        return isDetached() ? this : new XmlDifference(toRecord());
+    }
+
+    /**
+     * Returns whether the difference holds only its record, not the nodes.
+     *
+     * @return True if the difference is detached.
+     */
+    public boolean isDetached() {
+        return null != record;
+    }
+
     /**
      * Returns node witch was expected in compared XML document. 
      *
@@ -73,16 +118,16 @@ public class XmlDifference {
 
         switch (getType()) {
             case ATTRIBUTE_MISSING_DIFFERENCE:
-                differenceMessage = "ATTRIBUTE_MISSING_DIFFERENCE" + getExpectedNode().getNodeName();
+                differenceMessage = "ATTRIBUTE_MISSING_DIFFERENCE" + getExpectedName();
                 break;
             case ATTRIBUTE_VALUE_DIFFERENCE:
-                differenceMessage = "ATTRIBUTE_VALUE_DIFFERENCE" + getExpectedNode().getNodeName();
+                differenceMessage = "ATTRIBUTE_VALUE_DIFFERENCE" + getExpectedName();
                 break;
             case TAGNAME_DIFFERENCE:
-                differenceMessage = "TAGNAME_DIFFERENCE " + getExpectedNode().getNodeName();
+                differenceMessage = "TAGNAME_DIFFERENCE " + getExpectedName();
                 break;
             case ELEMENT_MISSING_DIFFERENCE:
-                differenceMessage = "Element '" + getExpectedNode().getNodeName() + "' is missing.";                                   
+                differenceMessage = "Element '" + getExpectedName() + "' is missing.";                                   
                 break;
             case VERSION_DIFFERENCE:
                 differenceMessage = "Documents have different version.";
@@ -91,10 +136,10 @@ public class XmlDifference {
                 differenceMessage = "Documents have different encoding.";
                 break;
             case TEXT_DIFFERENCE:
-                differenceMessage = "Element '" + getExpectedNode().getNodeName() + "has different text than '" + getFoundNode().getNodeName();
+                differenceMessage = "Element '" + getExpectedName() + "has different text than '" + getFoundName();
                 break;
             case NAMESPACE_DIFFERENCE:
-                differenceMessage = "Element " + getExpectedNode().getNodeName() + "has different namespace than" + getFoundNode().getNodeName();
+                differenceMessage = "Element " + getExpectedName() + "has different namespace than" + getFoundName();
             default:
                 differenceMessage = "UNKNOWN DIFFERENCE";
                 break;
@@ -102,12 +147,21 @@ public class XmlDifference {
         return differenceMessage;
     }
     
+    private String getExpectedName() {
+        return isDetached() ? record.getExpectedName() : getExpectedNode().getNodeName();
+    }
+
+    private String getFoundName() {
+        return isDetached() ? record.getFoundName() : getFoundNode().getNodeName();
+    }
+
     @Override
     public int hashCode() {
         int hash = 3;
         hash = 83 * hash + Objects.hashCode(this.expectedNode);
         hash = 83 * hash + Objects.hashCode(this.foundNode);
         hash = 83 * hash + (this.type != null ? this.type.hashCode() : 0);
+        hash = 83 * hash + Objects.hashCode(this.record);
         return hash;
     }
 
@@ -129,6 +183,9 @@ public class XmlDifference {
         if (this.type != other.type) {
             return false;
         }
+        if (!Objects.equals(this.record, other.record)) {
+            return false;
+        }
         return true;
     }        
 }
\ No newline at end of file
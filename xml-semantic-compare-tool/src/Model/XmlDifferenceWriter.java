@@ -0,0 +1,126 @@
+package Model;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Difference listener writing the differences as an XML document in UTF-8:
+ *
+ * <pre>
+ * &lt;differences&gt;
+ *   &lt;difference type="TEXT_DIFFERENCE" line="5" column="20"&gt;
+ *     &lt;expected location="/a[1]/b[1]" name="b"&gt;text&lt;/expected&gt;
+ *     &lt;found location="/a[1]/b[1]" name="b"&gt;other text&lt;/found&gt;
+ *   &lt;/difference&gt;
+ * &lt;/differences&gt;
+ * </pre>
+ *
+ * Unknown values are left out. The document is finished by close(). Thread
+ * safe.
+ */
+public class XmlDifferenceWriter implements DifferenceListener, Flushable, Closeable {
+
+    private final OutputStream output;
+    private final XMLStreamWriter writer;
+
+    /**
+     * Constructor for class XmlDifferenceWriter, writes the start of the
+     * document.
+     *
+     * @param output Stream the differences are written to, closed by close()
+     * @throws IllegalArgumentException
+     */
+    public XmlDifferenceWriter(OutputStream output) throws IllegalArgumentException {
+
+        if (null == output) {
+            throw new IllegalArgumentException("XmlDifferenceWriter: Output stream is null.");
+        }
+
+        this.output = output;
+        try {
+            this.writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+            this.writer.writeStartDocument("UTF-8", "1.0");
+            this.writer.writeCharacters("\n");
+            this.writer.writeStartElement("differences");
+            this.writer.writeCharacters("\n");
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("XmlDifferenceWriter: Error writing document start.", e);
+        }
+    }
+
+    @Override
+    public synchronized void differenceFound(XmlDifference difference) {
+
+        DifferenceRecord record = difference.toRecord();
+        try {
+            writer.writeCharacters("  ");
+            writer.writeStartElement("difference");
+            writer.writeAttribute("type", record.getType().toString());
+            if (-1 != record.getLine()) {
+                writer.writeAttribute("line", String.valueOf(record.getLine()));
+                writer.writeAttribute("column", String.valueOf(record.getColumn()));
+            }
+            writer.writeCharacters("\n");
+            writeNode("expected", record.getExpectedLocation(), record.getExpectedName(), record.getExpectedValue());
+            writeNode("found", record.getFoundLocation(), record.getFoundName(), record.getFoundValue());
+            writer.writeCharacters("  ");
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("DifferenceFound: Error writing difference.", e);
+        }
+    }
+
+    private void writeNode(String element, String location, String name, String value) throws XMLStreamException {
+
+        if (null == location && null == name) {
+            return;
+        }
+
+        writer.writeCharacters("    ");
+        writer.writeStartElement(element);
+        if (null != location) {
+            writer.writeAttribute("location", location);
+        }
+        if (null != name) {
+            writer.writeAttribute("name", name);
+        }
+        if (null != value) {
+            writer.writeCharacters(value);
+        }
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        try {
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes the end of the document and closes the stream.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        output.close();
+    }
+}
@@ -0,0 +1,47 @@
+import Model.*;
+import java.io.ByteArrayInputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+
+/**
+ * Measures the time of parsing a small document with a new factory and
+ * builder for every document and with DocumentParser. Not a part of the test
+ * suite, run as java Benchmark_DocumentParser [documents].
+ */
+public class Benchmark_DocumentParser {
+
+    private static final String SOURCE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<xt:contact xmlns:xt=\"http://www.w3schools.com/people\" id=\"1\">"
+            + "<xt:name>Jan Novák</xt:name><xt:birthday>10/1/1984</xt:birthday></xt:contact>";
+
+    public static void main(String[] args) throws Exception {
+
+        int documents = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+        byte[] source = SOURCE.getBytes("UTF-8");
+
+        for (int round = 0; round < 3; round++) { // the first rounds warm up the JIT
+            long start = System.nanoTime();
+            for (int i = 0; i < documents; i++) {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                check(factory.newDocumentBuilder().parse(new ByteArrayInputStream(source)));
+            }
+            long factoryNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < documents; i++) {
+                check(DocumentParser.parse(new ByteArrayInputStream(source)));
+            }
+            long parserNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: new factory %.1f us/document, DocumentParser %.1f us/document%n",
+                              round, factoryNanos / 1e3 / documents, parserNanos / 1e3 / documents);
+        }
+    }
+
+    private static void check(Document document) {
+        if (false == "contact".equals(document.getDocumentElement().getLocalName())) {
+            throw new IllegalStateException("Document was not parsed.");
+        }
+    }
+}
@@ -13,7 +13,17 @@ import org.junit.runners.Suite;
     Test_XmlDifference_elements.class,
     Test_XmlDifference_text.class,
     Test_XmlDifference_properties.class,
-    Test_XmlComparison.class
+    Test_XmlComparison.class,
+    Test_StreamingXmlComparison.class,
+    Test_XmlComparison_parallel.class,
+    Test_XmlComparison_hashing.class,
+    Test_XmlComparison_unordered.class,
+    Test_DocumentParser.class,
+    Test_XmlComparison_limit.class,
+    Test_DifferenceRecord.class,
+    Test_DifferenceListener.class,
+    Test_XmlComparison_attributes.class,
+    Test_BatchComparison.class
 }) 
 
 public class TestSuite {
@@ -0,0 +1,234 @@
+import Model.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for batch comparison of file pairs.
+ */
+public class Test_BatchComparison {
+
+    private static final String CONTACTS = "test/Samples/contacts.xml";
+    private static final String MISSING_TWO = "test/Samples/contacts-element-missing-two.xml";
+    private static final String ATTRIBUTE_VALUE = "test/Samples/contacts-attribute-value.xml";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public Test_BatchComparison() {
+    }
+
+    @Test
+    public void test_BatchComparison_pairs() {
+
+        XmlComparison single = new XmlComparison(CONTACTS, MISSING_TWO);
+        single.compareXmlDocuments(false, true, true);
+
+        BatchComparison batch = new BatchComparison();
+        batch.setThreads(2);
+        batch.addPair(CONTACTS, CONTACTS);
+        batch.addPair(CONTACTS, MISSING_TWO);
+        batch.addPair(CONTACTS, "test/Samples/not-existing.xml");
+        assertEquals(3, batch.getPairCount());
+
+        BatchSummary summary = batch.compare(false, true, true);
+        List<FileComparisonResult> results = summary.getResults();
+        assertEquals(3, results.size());
+
+        assertTrue(results.get(0).isEqual());
+        assertFalse(results.get(0).isFailed());
+        assertTrue(results.get(0).getDifferences().isEmpty());
+
+        assertFalse(results.get(1).isEqual());
+        assertFalse(results.get(1).isFailed());
+        assertEquals(single.getDifferences().size(), results.get(1).getDifferenceCount());
+        assertEquals(single.getDifferenceRecords(), results.get(1).getDifferences());
+        assertEquals(new File(MISSING_TWO).getPath(), results.get(1).getSecondFile());
+
+        assertTrue(results.get(2).isFailed());
+        assertFalse(results.get(2).isEqual());
+        assertTrue(results.get(2).getError().contains("not-existing.xml"));
+
+        assertEquals(1, summary.getEqualCount());
+        assertEquals(1, summary.getDifferentCount());
+        assertEquals(1, summary.getFailedCount());
+        assertEquals(single.getDifferences().size(), summary.getDifferenceCount());
+        assertFalse(summary.allEqual());
+        assertEquals(2, summary.getThreads());
+        for (FileComparisonResult result : results) {
+            assertTrue(result.getTimeNanos() >= 0);
+        }
+    }
+
+    @Test
+    public void test_BatchComparison_threadsGiveSameResults() {
+
+        BatchComparison batch = new BatchComparison();
+        for (int i = 0; i < 20; i++) {
+            batch.addPair(CONTACTS, (0 == i % 3) ? CONTACTS : (1 == i % 3) ? MISSING_TWO : ATTRIBUTE_VALUE);
+        }
+
+        batch.setThreads(1);
+        BatchSummary sequential = batch.compare(false, true, true);
+        batch.setThreads(4);
+        BatchSummary parallel = batch.compare(false, true, true);
+
+        assertEquals(20, parallel.getPairCount());
+        assertEquals(4, parallel.getThreads());
+        assertEquals(sequential.getDifferenceCounts(), parallel.getDifferenceCounts());
+        for (int i = 0; i < 20; i++) {
+            FileComparisonResult expected = sequential.getResults().get(i);
+            FileComparisonResult found = parallel.getResults().get(i);
+            assertEquals(expected.getSecondFile(), found.getSecondFile());
+            assertEquals(expected.getDifferenceCounts(), found.getDifferenceCounts());
+            assertEquals(expected.getDifferences(), found.getDifferences());
+        }
+    }
+
+    @Test
+    public void test_BatchComparison_keptAndMaxDifferences() {
+
+        BatchComparison batch = new BatchComparison();
+        batch.addPair(CONTACTS, MISSING_TWO);
+        FileComparisonResult all = batch.compare(false, true, true).getResults().get(0);
+        assertTrue(all.getDifferenceCount() > 1);
+
+        batch.setKeptDifferences(1);
+        FileComparisonResult kept = batch.compare(false, true, true).getResults().get(0);
+        assertEquals(all.getDifferenceCount(), kept.getDifferenceCount());
+        assertEquals(all.getDifferences().subList(0, 1), kept.getDifferences());
+
+        batch.setMaxDifferences(1);
+        FileComparisonResult limited = batch.compare(false, true, true).getResults().get(0);
+        assertEquals(1, limited.getDifferenceCount());
+        assertTrue(limited.differenceLimitReached());
+    }
+
+    @Test
+    public void test_BatchComparison_streaming() {
+
+        BatchComparison batch = new BatchComparison();
+        batch.addPair(CONTACTS, MISSING_TWO);
+        batch.addPair(CONTACTS, ATTRIBUTE_VALUE);
+        batch.addPair(CONTACTS, "test/Samples/not-existing.xml");
+        BatchSummary loaded = batch.compare(false, true, true);
+
+        batch.setStreaming(true);
+        assertTrue(batch.streaming());
+        BatchSummary streamed = batch.compare(false, true, true);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(loaded.getResults().get(i).getDifferenceCounts(), streamed.getResults().get(i).getDifferenceCounts());
+        }
+        assertTrue(streamed.getResults().get(2).isFailed());
+    }
+
+    @Test
+    public void test_BatchComparison_directories() throws IOException {
+
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        copy(CONTACTS, new File(first, "a.xml"));
+        copy(CONTACTS, new File(second, "a.xml"));
+        copy(CONTACTS, new File(first, "sub/b.xml"));
+        copy(MISSING_TWO, new File(second, "sub/b.xml"));
+        copy(CONTACTS, new File(first, "only-first.xml"));
+        copy(CONTACTS, new File(second, "notes.txt"));
+
+        BatchComparison batch = new BatchComparison();
+        batch.addDirectories(first, second);
+        assertEquals(3, batch.getPairCount());
+
+        List<FileComparisonResult> results = batch.compare().getResults();
+        assertEquals(new File(first, "a.xml").getPath(), results.get(0).getFirstFile());
+        assertTrue(results.get(0).isEqual());
+        assertEquals(new File(second, "only-first.xml").getPath(), results.get(1).getSecondFile());
+        assertTrue(results.get(1).isFailed());
+        assertEquals(new File(first, "sub/b.xml").getPath(), results.get(2).getFirstFile());
+        assertFalse(results.get(2).isEqual());
+        assertFalse(results.get(2).isFailed());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_BatchComparison_directoryMissing() {
+
+        BatchComparison batch = new BatchComparison();
+        batch.addDirectories(new File("test/Samples"), new File("test/not-existing"));
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test
+    public void test_BatchComparison_manifest() throws IOException {
+
+        File directory = folder.newFolder("manifest");
+        copy(CONTACTS, new File(directory, "expected.xml"));
+        File manifest = new File(directory, "pairs.txt");
+        write(manifest, "# expected\tactual\n"
+                + "\n"
+                + "expected.xml\t" + new File(MISSING_TWO).getAbsolutePath() + "\n"
+                + "expected.xml\texpected.xml\n");
+
+        BatchComparison batch = new BatchComparison();
+        batch.addManifest(manifest);
+        assertEquals(2, batch.getPairCount());
+
+        BatchSummary summary = batch.compare();
+        assertEquals(new File(directory, "expected.xml").getPath(), summary.getResults().get(0).getFirstFile());
+        assertFalse(summary.getResults().get(0).isEqual());
+        assertTrue(summary.getResults().get(1).isEqual());
+    }
+
+    @Test
+    public void test_BatchComparison_manifestMalformed() throws IOException {
+
+        File manifest = folder.newFile("pairs.txt");
+        write(manifest, "first.xml\tsecond.xml\nthird.xml\n");
+
+        BatchComparison batch = new BatchComparison();
+        try {
+            batch.addManifest(manifest);
+            fail("IllegalArgumentException should be thrown.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Line 2"));
+        }
+        assertEquals(0, batch.getPairCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_BatchComparison_threadsNotPositive() {
+
+        BatchComparison batch = new BatchComparison();
+        batch.setThreads(0);
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test
+    public void test_BatchComparison_empty() {
+
+        BatchSummary summary = new BatchComparison().compare();
+        assertEquals(0, summary.getPairCount());
+        assertTrue(summary.allEqual());
+        assertEquals(0, summary.getDifferenceCount());
+    }
+
+    private static void copy(String source, File target) throws IOException {
+        target.getParentFile().mkdirs();
+        Files.copy(new File(source).toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
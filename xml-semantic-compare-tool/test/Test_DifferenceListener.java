@@ -0,0 +1,142 @@
+import Model.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+
+/**
+ * Tests for difference listeners.
+ */
+public class Test_DifferenceListener {
+
+    private static final String SAMPLE = "test/Samples/contacts-element-missing-two.xml";
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    public Test_DifferenceListener() {
+    }
+
+    @Test
+    public void test_DifferenceListener_receivesDifferences() {
+
+        XmlComparison collecting = new XmlComparison("test/Samples/contacts.xml", SAMPLE);
+        assertFalse(collecting.compareXmlDocuments(false, true, true));
+
+        final List<XmlDifference> received = new ArrayList<XmlDifference>();
+        XmlComparison listening = new XmlComparison(collecting.getFirstDocument(), collecting.getSecondDocument());
+        listening.setDifferenceListener(new DifferenceListener() {
+            @Override
+            public void differenceFound(XmlDifference difference) {
+                received.add(difference);
+            }
+        });
+
+        assertFalse(listening.compareXmlDocuments(false, true, true));
+        assertEquals(collecting.getDifferences(), received);
+        assertTrue(listening.getDifferences().isEmpty());
+    }
+
+    @Test
+    public void test_DifferenceListener_counter() {
+
+        XmlComparison collecting = new XmlComparison("test/Samples/contacts.xml", SAMPLE);
+        collecting.compareXmlDocuments(false, true, true);
+
+        DifferenceCounter counter = new DifferenceCounter();
+        for (boolean streaming : new boolean[] { false, true }) {
+            XmlComparison comparison = (true == streaming)
+                    ? new StreamingXmlComparison("test/Samples/contacts.xml", SAMPLE)
+                    : new XmlComparison("test/Samples/contacts.xml", SAMPLE);
+            comparison.setDifferenceListener(counter);
+            assertFalse(comparison.compareXmlDocuments(false, true, true));
+        }
+
+        assertEquals(2 * collecting.getDifferences().size(), counter.getTotal());
+        for (XmlDifferenceType type : XmlDifferenceType.values()) {
+            int count = 0;
+            for (XmlDifference difference : collecting.getDifferences()) {
+                if (difference.getType() == type) {
+                    count++;
+                }
+            }
+            assertEquals(type.toString(), 2 * count, counter.getCount(type));
+        }
+    }
+
+    @Test
+    public void test_DifferenceListener_firstDifferences() {
+
+        XmlComparison collecting = new XmlComparison("test/Samples/contacts.xml", SAMPLE);
+        collecting.compareXmlDocuments(false, true, true);
+        assertTrue(collecting.getDifferences().size() > 1);
+
+        FirstDifferences first = new FirstDifferences(1);
+        XmlComparison listening = new XmlComparison(collecting.getFirstDocument(), collecting.getSecondDocument());
+        listening.setDifferenceListener(first);
+        listening.compareXmlDocuments(false, true, true);
+
+        assertEquals(collecting.getDifferences().subList(0, 1), first.getDifferences());
+        assertEquals(collecting.getDifferences().size(), first.getTotal());
+    }
+
+    @Test
+    public void test_DifferenceListener_maxDifferences() {
+
+        DifferenceCounter counter = new DifferenceCounter();
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml", SAMPLE);
+        comparison.setDifferenceListener(counter);
+        comparison.setFailFast(true);
+
+        assertFalse(comparison.compareXmlDocuments(false, true, true));
+        assertEquals(1, counter.getTotal());
+    }
+
+    @Test
+    public void test_DifferenceListener_jsonLines() throws Exception {
+
+        Document documentA = XmlComparison.createDocumentFormString(
+                HEADER + "<a:x xmlns:a=\"urn:test\"><a:b>say \"hi\"\tnow</a:b><a:c/></a:x>");
+        Document documentB = XmlComparison.createDocumentFormString(
+                HEADER + "<a:x xmlns:a=\"urn:test\"><a:b>line\nbreak \\</a:b></a:x>");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JsonLinesDifferenceWriter writer = new JsonLinesDifferenceWriter(output);
+        XmlComparison comparison = new XmlComparison(documentA, documentB);
+        comparison.setDifferenceListener(writer);
+        comparison.compareXmlDocuments();
+        writer.close();
+
+        String[] lines = output.toString("UTF-8").split("\n");
+        assertEquals("Incorrect number of lines :", 2, lines.length);
+        assertEquals("{\"type\":\"TEXT_DIFFERENCE\",\"expectedLocation\":\"/a:x[1]/a:b[1]\",\"expectedName\":\"a:b\","
+                + "\"expectedValue\":\"say \\\"hi\\\"\\tnow\",\"foundLocation\":\"/a:x[1]/a:b[1]\",\"foundName\":\"a:b\","
+                + "\"foundValue\":\"line\\nbreak \\\\\"}", lines[0]);
+        assertEquals("{\"type\":\"ELEMENT_MISSING_DIFFERENCE\",\"expectedLocation\":\"/a:x[1]/a:c[1]\","
+                + "\"expectedName\":\"a:c\"}", lines[1]);
+    }
+
+    @Test
+    public void test_DifferenceListener_xml() throws Exception {
+
+        XmlComparison collecting = new XmlComparison("test/Samples/contacts.xml", SAMPLE);
+        collecting.compareXmlDocuments(false, true, true);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XmlDifferenceWriter writer = new XmlDifferenceWriter(output);
+        StreamingXmlComparison comparison = new StreamingXmlComparison("test/Samples/contacts.xml", SAMPLE);
+        comparison.setDifferenceListener(writer);
+        comparison.compareXmlDocuments(false, true, true);
+        writer.close();
+
+        Document document = DocumentParser.parse(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals("differences", document.getDocumentElement().getNodeName());
+        assertEquals(collecting.getDifferences().size(), document.getElementsByTagName("difference").getLength());
+
+        DifferenceRecord record = collecting.getDifferenceRecords().get(0);
+        org.w3c.dom.Element expected = (org.w3c.dom.Element) document.getElementsByTagName("expected").item(0);
+        assertEquals(record.getExpectedLocation(), expected.getAttribute("location"));
+        assertFalse(((org.w3c.dom.Element) expected.getParentNode()).getAttribute("line").isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+import Model.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for DifferenceRecord and detached differences.
+ */
+public class Test_DifferenceRecord {
+
+    private static final String[] SAMPLES = {
+        "test/Samples/contacts-attribute-more.xml",
+        "test/Samples/contacts-attribute-value.xml",
+        "test/Samples/contacts-element-missing.xml",
+        "test/Samples/contacts-element-missing-two.xml",
+        "test/Samples/contacts-element-name-different.xml",
+        "test/Samples/contacts-namespace.xml",
+        "test/Samples/contacts-text-different.xml"
+    };
+
+    public Test_DifferenceRecord() {
+    }
+
+    @Test
+    public void test_DifferenceRecord_attributeValue() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml",
+                                                     "test/Samples/contacts-attribute-value.xml");
+        comparison.compareXmlDocuments(false, true, true);
+
+        DifferenceRecord record = comparison.getDifferenceRecords().get(0);
+        assertEquals(XmlDifferenceType.ATTRIBUTE_VALUE_DIFFERENCE, record.getType());
+        assertEquals("/xt:contacts[1]/xt:contact[2]/@id", record.getExpectedLocation());
+        assertEquals("/xt:contacts[1]/xt:contact[2]/@id", record.getFoundLocation());
+        assertEquals("id", record.getExpectedName());
+        assertEquals("2", record.getExpectedValue());
+        assertEquals("3", record.getFoundValue());
+        assertEquals(-1, record.getLine());
+    }
+
+    @Test
+    public void test_DifferenceRecord_detachedDifferences() {
+
+        for (String sample : SAMPLES) {
+            XmlComparison attached = new XmlComparison("test/Samples/contacts.xml", sample);
+            attached.compareXmlDocuments(false, true, true);
+
+            XmlComparison detached = new XmlComparison("test/Samples/contacts.xml", sample);
+            detached.setDetachDifferences(true);
+            detached.compareXmlDocuments(false, true, true);
+
+            assertEquals(sample, attached.getDifferenceRecords(), detached.getDifferenceRecords());
+            for (XmlDifference difference : detached.getDifferences()) {
+                assertTrue(sample, difference.isDetached());
+                assertNull(sample, difference.getExpectedNode());
+                assertNull(sample, difference.getFoundNode());
+                assertNotNull(sample, difference.toString());
+            }
+        }
+    }
+
+    @Test
+    public void test_DifferenceRecord_streaming() {
+
+        for (String sample : SAMPLES) {
+            XmlComparison dom = new XmlComparison("test/Samples/contacts.xml", sample);
+            dom.compareXmlDocuments(false, true, true);
+            List<DifferenceRecord> expected = dom.getDifferenceRecords();
+
+            for (boolean detach : new boolean[] { false, true }) {
+                StreamingXmlComparison streaming = new StreamingXmlComparison("test/Samples/contacts.xml", sample);
+                streaming.setDetachDifferences(detach);
+                streaming.compareXmlDocuments(false, true, true);
+                List<DifferenceRecord> records = streaming.getDifferenceRecords();
+
+                assertEquals(sample, expected.size(), records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    assertEquals(sample, expected.get(i).getExpectedLocation(), records.get(i).getExpectedLocation());
+                    assertEquals(sample, expected.get(i).getExpectedValue(), records.get(i).getExpectedValue());
+                    assertEquals(sample, expected.get(i).getFoundLocation(), records.get(i).getFoundLocation());
+                    assertEquals(sample, expected.get(i).getFoundValue(), records.get(i).getFoundValue());
+                    assertTrue(sample, records.get(i).getLine() > 0);
+                    assertTrue(sample, records.get(i).getColumn() > 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_DifferenceRecord_serializable() throws Exception {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml",
+                                                     "test/Samples/contacts-text-different.xml");
+        comparison.compareXmlDocuments();
+        DifferenceRecord record = comparison.getDifferenceRecords().get(0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(record);
+        }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(record, input.readObject());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_DifferenceRecord_nullType() {
+
+        DifferenceRecord record = new DifferenceRecord(null, null, null, null, null, null, null, -1, -1);
+        fail("IllegalArgumentException should be thrown.");
+    }
+}
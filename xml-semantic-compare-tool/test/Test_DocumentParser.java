@@ -0,0 +1,107 @@
+import Model.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests for DocumentParser.
+ */
+public class Test_DocumentParser {
+
+    public Test_DocumentParser() {
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_DocumentParser_nullInput() throws Exception {
+
+        DocumentParser.parse(null);
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test
+    public void test_DocumentParser_namespaceAware() throws Exception {
+
+        Document document = parse("<a:x xmlns:a=\"urn:test\"><a:y/></a:x>");
+
+        assertEquals("x", document.getDocumentElement().getLocalName());
+        assertEquals("urn:test", document.getDocumentElement().getNamespaceURI());
+    }
+
+    @Test
+    public void test_DocumentParser_reusedAfterError() throws Exception {
+
+        try {
+            parse("<x><y></x>");
+            fail("SAXException should be thrown.");
+        } catch (SAXException e) {
+            // expected, the builder must be usable again
+        }
+
+        Document document = parse("<x><y/></x>");
+        assertEquals("x", document.getDocumentElement().getNodeName());
+        assertNotSame(document, parse("<x><y/></x>"));
+    }
+
+    @Test
+    public void test_DocumentParser_errorsNotPrinted() throws Exception {
+
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream standardError = System.err;
+        System.setErr(new PrintStream(errors, true));
+        try {
+            for (int i = 0; i < 2; i++) { // the second parse runs after reset()
+                try {
+                    parse("<x><y></x>");
+                    fail("SAXException should be thrown.");
+                } catch (SAXException e) {
+                    // expected
+                }
+            }
+        } finally {
+            System.setErr(standardError);
+        }
+
+        assertEquals("", errors.toString());
+    }
+
+    @Test
+    public void test_DocumentParser_concurrentThreads() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 16; i++) {
+            final String name = "element" + i;
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    for (int j = 0; j < 100; j++) {
+                        Document document = parse("<" + name + " id=\"" + j + "\"/>");
+                        if (false == name.equals(document.getDocumentElement().getNodeName())
+                                || false == String.valueOf(j).equals(document.getDocumentElement().getAttribute("id"))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }));
+        }
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get());
+        }
+        executor.shutdown();
+    }
+
+    private static Document parse(String source) throws Exception {
+        return DocumentParser.parse(new ByteArrayInputStream(source.getBytes("UTF-8")));
+    }
+}
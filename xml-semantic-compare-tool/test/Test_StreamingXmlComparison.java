@@ -0,0 +1,123 @@
+import Model.*;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Node;
+
+/**
+ * Tests for StreamingXmlComparison, differences found by streaming must be
+ * the same as the ones found by XmlComparison.
+ */
+public class Test_StreamingXmlComparison {
+
+    private static final String[] SAMPLES = {
+        "test/Samples/contacts.xml",
+        "test/Samples/contacts-attribute-more.xml",
+        "test/Samples/contacts-attribute-order.xml",
+        "test/Samples/contacts-attribute-value.xml",
+        "test/Samples/contacts-element-empty.xml",
+        "test/Samples/contacts-element-missing.xml",
+        "test/Samples/contacts-element-missing-two.xml",
+        "test/Samples/contacts-element-name-different.xml",
+        "test/Samples/contacts-namespace.xml",
+        "test/Samples/contacts-namespace-two-location.xml",
+        "test/Samples/contacts-properties-encoding.xml",
+        "test/Samples/contacts-properties-version.xml",
+        "test/Samples/contacts-text-different.xml",
+        "test/Samples/contacts-text-whitespaces.xml"
+    };
+
+    public Test_StreamingXmlComparison() {
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_StreamingXmlComparison_nullURIdocumentA() {
+
+        StreamingXmlComparison comparison = new StreamingXmlComparison(null, "test/Samples/contacts.xml");
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_StreamingXmlComparison_missingDocument() {
+
+        StreamingXmlComparison comparison = new StreamingXmlComparison("test/Samples/contacts.xml",
+                                                                       "test/Samples/not-existing.xml");
+        comparison.compareXmlDocuments();
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test
+    public void test_StreamingXmlComparison_sameDifferencesAsDom() {
+
+        for (String sample : SAMPLES) {
+            for (boolean trimText : new boolean[] { false, true }) {
+                for (boolean checkAttributeValues : new boolean[] { false, true }) {
+
+                    XmlComparison dom = new XmlComparison("test/Samples/contacts.xml", sample);
+                    StreamingXmlComparison streaming = new StreamingXmlComparison("test/Samples/contacts.xml", sample);
+
+                    String settings = sample + " " + trimText + " " + checkAttributeValues;
+                    assertEquals(settings, dom.compareXmlDocuments(trimText, true, checkAttributeValues),
+                                           streaming.compareXmlDocuments(trimText, true, checkAttributeValues));
+                    assertSameDifferences(settings, dom.getDifferences(), streaming.getDifferences());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_StreamingXmlComparison_missingElementParent() {
+
+        StreamingXmlComparison comparison = new StreamingXmlComparison("test/Samples/contacts.xml",
+                                                                       "test/Samples/contacts-element-missing.xml");
+        assertFalse(comparison.compareXmlDocuments());
+        assertEquals("Incorrect number of differences :", 1, comparison.getDifferences().size());
+
+        XmlDifference difference = comparison.getDifferences().get(0);
+        assertEquals("Missing element should be named :", "xt:hobby", difference.getExpectedNode().getNodeName());
+        assertEquals("Different name of the parent element :", "xt:hobbies", difference.getExpectedNode().getParentNode().getNodeName());
+        assertEquals("Different name of the root element :", "xt:contacts",
+                     difference.getExpectedNode().getParentNode().getParentNode().getParentNode().getNodeName());
+    }
+
+    @Test
+    public void test_StreamingXmlComparison_attributeOwner() {
+
+        StreamingXmlComparison comparison = new StreamingXmlComparison("test/Samples/contacts.xml",
+                                                                       "test/Samples/contacts-attribute-more.xml");
+        assertFalse(comparison.compareXmlDocuments());
+
+        XmlDifference difference = comparison.getDifferences().get(0);
+        assertEquals("Different name of the attribute :", "priority", difference.getExpectedNode().getNodeName());
+        assertEquals("Different element name of the missing attribute :", "xt:email",
+                     ((Attr) difference.getExpectedNode()).getOwnerElement().getNodeName());
+    }
+
+    private static void assertSameDifferences(String message, List<XmlDifference> expected, List<XmlDifference> actual) {
+
+        assertEquals(message + " : incorrect number of differences", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(message, expected.get(i).getType(), actual.get(i).getType());
+            assertSameNode(message, expected.get(i).getExpectedNode(), actual.get(i).getExpectedNode());
+            assertSameNode(message, expected.get(i).getFoundNode(), actual.get(i).getFoundNode());
+        }
+    }
+
+    private static void assertSameNode(String message, Node expected, Node actual) {
+
+        if (null == expected) {
+            assertNull(message, actual);
+            return;
+        }
+        assertEquals(message, expected.getNodeName(), actual.getNodeName());
+        assertEquals(message, expected.getNamespaceURI(), actual.getNamespaceURI());
+        Node expectedParent = expected.getParentNode();
+        Node actualParent = actual.getParentNode();
+        while (null != expectedParent && expectedParent.getNodeType() == Node.ELEMENT_NODE) {
+            assertEquals(message, expectedParent.getNodeName(), actualParent.getNodeName());
+            expectedParent = expectedParent.getParentNode();
+            actualParent = actualParent.getParentNode();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import Model.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+
+/**
+ * Tests for comparison of elements with many attributes.
+ */
+public class Test_XmlComparison_attributes {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    public Test_XmlComparison_attributes() {
+    }
+
+    @Test
+    public void test_XmlComparison_attributes_manyAttributes() {
+
+        StringBuilder sourceA = new StringBuilder(HEADER + "<a:x xmlns:a=\"urn:a\" xmlns:b=\"urn:b\"");
+        StringBuilder sourceB = new StringBuilder(HEADER + "<a:x xmlns:b=\"urn:b\" xmlns:a=\"urn:a\"");
+        for (int i = 99; i >= 0; i--) {
+            String name = (0 == i % 2) ? "b:attr" + i : "attr" + i;
+            sourceA.append(' ').append(name).append("=\"").append(i).append('"');
+            if (5 != i && 50 != i) {
+                sourceB.append(' ').append(name).append("=\"").append(7 == i ? "x" : String.valueOf(i)).append('"');
+            }
+        }
+        sourceA.append("/>");
+        sourceB.append(" extra=\"1\"/>");
+
+        Document documentA = XmlComparison.createDocumentFormString(sourceA.toString());
+        Document documentB = XmlComparison.createDocumentFormString(sourceB.toString());
+
+        XmlComparison comparison = new XmlComparison(documentA, documentB);
+        assertFalse(comparison.compareXmlDocuments(false, true, false));
+        assertEquals("Incorrect number of differences :", 3, comparison.getDifferences().size());
+        assertMissing(comparison.getDifferences().get(0), "attr5");
+        assertMissing(comparison.getDifferences().get(1), "b:attr50");
+        assertMissing(comparison.getDifferences().get(2), "extra");
+
+        comparison = new XmlComparison(documentA, documentB);
+        assertFalse(comparison.compareXmlDocuments(false, true, true));
+        assertEquals("Incorrect number of differences :", 4, comparison.getDifferences().size());
+        XmlDifference difference = comparison.getDifferences().get(1);
+        assertEquals(XmlDifferenceType.ATTRIBUTE_VALUE_DIFFERENCE, difference.getType());
+        assertEquals("attr7", difference.getExpectedNode().getNodeName());
+        assertEquals("x", difference.getFoundNode().getNodeValue());
+    }
+
+    @Test
+    public void test_XmlComparison_attributes_namespaceDeclarations() {
+
+        Document documentA = XmlComparison.createDocumentFormString(
+                HEADER + "<a:x xmlns:a=\"urn:a\" xmlns=\"urn:default\" id=\"1\"/>");
+        Document documentB = XmlComparison.createDocumentFormString(
+                HEADER + "<a:x xmlns:a=\"urn:a\" id=\"1\"/>");
+
+        XmlComparison comparison = new XmlComparison(documentA, documentB);
+        assertTrue(comparison.equalsElementAttributes(documentA.getDocumentElement(), documentB.getDocumentElement()));
+        assertTrue(comparison.getDifferences().isEmpty());
+    }
+
+    private static void assertMissing(XmlDifference difference, String name) {
+        assertEquals(XmlDifferenceType.ATTRIBUTE_MISSING_DIFFERENCE, difference.getType());
+        assertEquals(name, difference.getExpectedNode().getNodeName());
+    }
+}
@@ -0,0 +1,96 @@
+import Model.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests for skipping identical subtrees by their hashes, differences must be
+ * the same as the ones found by the full comparison.
+ */
+public class Test_XmlComparison_hashing {
+
+    private static final String[] SAMPLES = {
+        "test/Samples/contacts.xml",
+        "test/Samples/contacts-attribute-more.xml",
+        "test/Samples/contacts-attribute-order.xml",
+        "test/Samples/contacts-attribute-value.xml",
+        "test/Samples/contacts-element-empty.xml",
+        "test/Samples/contacts-element-missing.xml",
+        "test/Samples/contacts-element-missing-two.xml",
+        "test/Samples/contacts-element-name-different.xml",
+        "test/Samples/contacts-namespace.xml",
+        "test/Samples/contacts-namespace-two-location.xml",
+        "test/Samples/contacts-properties-encoding.xml",
+        "test/Samples/contacts-properties-version.xml",
+        "test/Samples/contacts-text-different.xml",
+        "test/Samples/contacts-text-whitespaces.xml"
+    };
+
+    public Test_XmlComparison_hashing() {
+    }
+
+    @Test
+    public void test_XmlComparison_hashing_settings() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts.xml");
+        assertFalse(comparison.subtreeHashing());
+
+        comparison.setSubtreeHashing(true);
+        assertTrue(comparison.subtreeHashing());
+    }
+
+    @Test
+    public void test_XmlComparison_hashing_sameDifferences() {
+
+        Document documentA = XmlComparison.createDocumentFromURI("test/Samples/contacts.xml");
+        for (String sample : SAMPLES) {
+            Document documentB = XmlComparison.createDocumentFromURI(sample);
+            for (boolean trimText : new boolean[] { false, true }) {
+                for (boolean checkAttributeValues : new boolean[] { false, true }) {
+
+                    XmlComparison full = new XmlComparison(documentA, documentB);
+                    XmlComparison hashing = new XmlComparison(documentA, documentB);
+                    hashing.setSubtreeHashing(true);
+
+                    String settings = sample + " " + trimText + " " + checkAttributeValues;
+                    assertEquals(settings, full.compareXmlDocuments(trimText, true, checkAttributeValues),
+                                           hashing.compareXmlDocuments(trimText, true, checkAttributeValues));
+                    assertEquals(settings, full.getDifferences(), hashing.getDifferences());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_XmlComparison_hashing_skipsEqualDocuments() {
+
+        CountingComparison comparison = new CountingComparison("test/Samples/contacts.xml",
+                                                               "test/Samples/contacts-text-whitespaces.xml");
+        comparison.setSubtreeHashing(true);
+
+        assertTrue(comparison.compareXmlDocuments(true, true, true));
+        assertEquals("Equal documents should not be compared :", 0, comparison.comparedElements);
+
+        assertFalse(comparison.compareXmlDocuments(false, true, true));
+        assertTrue("Different documents should be compared :", comparison.comparedElements > 0);
+    }
+
+    /**
+     * Counts elements compared by name.
+     */
+    private static class CountingComparison extends XmlComparison {
+
+        private int comparedElements;
+
+        CountingComparison(String URIdocumentA, String URIdocumentB) {
+            super(URIdocumentA, URIdocumentB);
+        }
+
+        @Override
+        public boolean equalsElementName(Element elementA, Element elementB) {
+            comparedElements++;
+            return super.equalsElementName(elementA, elementB);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import Model.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests for fail fast comparison and maximal number of differences.
+ */
+public class Test_XmlComparison_limit {
+
+    public Test_XmlComparison_limit() {
+    }
+
+    @Test
+    public void test_XmlComparison_limit_settings() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts.xml");
+        assertEquals(0, comparison.getMaxDifferences());
+        assertFalse(comparison.failFast());
+
+        comparison.setFailFast(true);
+        assertTrue(comparison.failFast());
+        assertEquals(1, comparison.getMaxDifferences());
+
+        comparison.setMaxDifferences(10);
+        assertFalse(comparison.failFast());
+        assertEquals(10, comparison.getMaxDifferences());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_XmlComparison_limit_negative() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts.xml");
+        comparison.setMaxDifferences(-1);
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test
+    public void test_XmlComparison_limit_failFast() {
+
+        Document documentA = XmlComparison.createDocumentFormString(createContacts(1000, 0));
+        Document documentB = XmlComparison.createDocumentFormString(createContacts(1000, 3));
+
+        CountingComparison full = new CountingComparison(documentA, documentB);
+        assertFalse(full.compareXmlDocuments(false, true, true));
+        assertFalse(full.differenceLimitReached());
+
+        CountingComparison failFast = new CountingComparison(documentA, documentB);
+        failFast.setFailFast(true);
+        assertFalse(failFast.compareXmlDocuments(false, true, true));
+        assertTrue(failFast.differenceLimitReached());
+
+        assertEquals("Incorrect number of differences :", 1, failFast.getDifferences().size());
+        assertEquals(full.getDifferences().get(0), failFast.getDifferences().get(0));
+        assertTrue("Comparison should stop early :", failFast.comparedElements * 100 < full.comparedElements);
+    }
+
+    @Test
+    public void test_XmlComparison_limit_maxDifferences() {
+
+        Document documentA = XmlComparison.createDocumentFormString(createContacts(1000, 0));
+        Document documentB = XmlComparison.createDocumentFormString(createContacts(1000, 3));
+
+        XmlComparison full = new XmlComparison(documentA, documentB);
+        full.compareXmlDocuments(false, true, true);
+        int allDifferences = full.getDifferences().size();
+
+        XmlComparison limited = new XmlComparison(documentA, documentB);
+        limited.setMaxDifferences(25);
+        assertFalse(limited.compareXmlDocuments(false, true, true));
+        assertTrue(limited.differenceLimitReached());
+        assertEquals(full.getDifferences().subList(0, 25), limited.getDifferences());
+
+        XmlComparison notReached = new XmlComparison(documentA, documentB);
+        notReached.setMaxDifferences(allDifferences + 1);
+        assertFalse(notReached.compareXmlDocuments(false, true, true));
+        assertFalse(notReached.differenceLimitReached());
+        assertEquals(full.getDifferences(), notReached.getDifferences());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        XmlComparison parallel = new XmlComparison(documentA, documentB);
+        parallel.setParallelComparison(pool, 8);
+        parallel.setMaxDifferences(25);
+        assertFalse(parallel.compareXmlDocuments(false, true, true));
+        assertTrue(parallel.differenceLimitReached());
+        assertEquals("Incorrect number of differences :", 25, parallel.getDifferences().size());
+        pool.shutdown();
+    }
+
+    @Test
+    public void test_XmlComparison_limit_streaming() {
+
+        XmlComparison dom = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts-element-missing-two.xml");
+        dom.compareXmlDocuments();
+
+        StreamingXmlComparison streaming = new StreamingXmlComparison("test/Samples/contacts.xml",
+                                                                      "test/Samples/contacts-element-missing-two.xml");
+        streaming.setFailFast(true);
+        assertFalse(streaming.compareXmlDocuments());
+        assertTrue(streaming.differenceLimitReached());
+        assertEquals("Incorrect number of differences :", 1, streaming.getDifferences().size());
+        assertEquals(dom.getDifferences().get(0).getType(), streaming.getDifferences().get(0).getType());
+        assertEquals(dom.getDifferences().get(0).getExpectedNode().getNodeName(),
+                     streaming.getDifferences().get(0).getExpectedNode().getNodeName());
+    }
+
+    /**
+     * Creates document with given number of contacts, every contact with
+     * number divisible by variant (if not zero) has a different phone.
+     */
+    private static String createContacts(int count, int variant) {
+
+        StringBuilder source = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<contacts xmlns=\"urn:contacts\">\n");
+        for (int i = 0; i < count; i++) {
+            boolean different = (0 != variant) && (0 == i % variant);
+            source.append("  <contact id=\"").append(i).append("\">\n");
+            source.append("    <name>Name ").append(i).append("</name>\n");
+            source.append("    <phone>").append(different ? "+420 " : "").append(i).append("</phone>\n");
+            source.append("  </contact>\n");
+        }
+        return source.append("</contacts>\n").toString();
+    }
+
+    /**
+     * Counts elements compared by name.
+     */
+    private static class CountingComparison extends XmlComparison {
+
+        private int comparedElements;
+
+        CountingComparison(Document documentA, Document documentB) {
+            super(documentA, documentB);
+        }
+
+        @Override
+        public boolean equalsElementName(Element elementA, Element elementB) {
+            comparedElements++;
+            return super.equalsElementName(elementA, elementB);
+        }
+    }
+}
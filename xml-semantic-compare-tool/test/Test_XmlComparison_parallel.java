@@ -0,0 +1,106 @@
+import Model.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+
+/**
+ * Tests for parallel comparison, differences must be the same and in the same
+ * order as the ones found by sequential comparison.
+ */
+public class Test_XmlComparison_parallel {
+
+    private static final String[] SAMPLES = {
+        "test/Samples/contacts.xml",
+        "test/Samples/contacts-attribute-value.xml",
+        "test/Samples/contacts-element-missing-two.xml",
+        "test/Samples/contacts-element-name-different.xml",
+        "test/Samples/contacts-text-different.xml",
+        "test/Samples/contacts-text-whitespaces.xml"
+    };
+
+    public Test_XmlComparison_parallel() {
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_XmlComparison_parallel_invalidThreshold() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts.xml");
+        comparison.setParallelComparison(new ForkJoinPool(), 0);
+        fail("IllegalArgumentException should be thrown.");
+    }
+
+    @Test
+    public void test_XmlComparison_parallel_settings() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts.xml");
+        assertFalse(comparison.parallelComparison());
+
+        comparison.setParallelComparison(true);
+        assertTrue(comparison.parallelComparison());
+        assertEquals(XmlComparison.DEFAULT_PARALLEL_THRESHOLD, comparison.getParallelThreshold());
+
+        comparison.setParallelComparison(false);
+        assertFalse(comparison.parallelComparison());
+    }
+
+    @Test
+    public void test_XmlComparison_parallel_samples() {
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (String sample : SAMPLES) {
+            Document documentA = XmlComparison.createDocumentFromURI("test/Samples/contacts.xml");
+            Document documentB = XmlComparison.createDocumentFromURI(sample);
+            XmlComparison sequential = new XmlComparison(documentA, documentB);
+            XmlComparison parallel = new XmlComparison(documentA, documentB);
+            parallel.setParallelComparison(pool, 1);
+
+            assertEquals(sample, sequential.compareXmlDocuments(true, true, true),
+                                 parallel.compareXmlDocuments(true, true, true));
+            assertEquals(sample, sequential.getDifferences(), parallel.getDifferences());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void test_XmlComparison_parallel_largeDocument() {
+
+        Document documentA = XmlComparison.createDocumentFormString(createContacts(2000, 0));
+        Document documentB = XmlComparison.createDocumentFormString(createContacts(1990, 7));
+
+        XmlComparison sequential = new XmlComparison(documentA, documentB);
+        assertFalse(sequential.compareXmlDocuments(false, true, true));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int threshold : new int[] { 1, 3, 64, 5000 }) {
+            XmlComparison parallel = new XmlComparison(documentA, documentB);
+            parallel.setParallelComparison(pool, threshold);
+
+            assertFalse(parallel.compareXmlDocuments(false, true, true));
+            assertEquals("Threshold " + threshold, sequential.getDifferences(), parallel.getDifferences());
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Creates document with given number of contacts, every contact with
+     * number divisible by variant (if not zero) is slightly different.
+     */
+    private static String createContacts(int count, int variant) {
+
+        StringBuilder source = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<contacts xmlns=\"urn:contacts\">\n");
+        for (int i = 0; i < count; i++) {
+            boolean different = (0 != variant) && (0 == i % variant);
+            source.append("  <contact id=\"").append(different ? i + 1 : i).append("\">\n");
+            source.append("    <name>Name ").append(i).append("</name>\n");
+            if (false == different || 0 != i % 2) {
+                source.append("    <phone>").append(different ? "+420 " : "").append(i).append("</phone>\n");
+            }
+            for (int j = 0; j < i % 5; j++) {
+                source.append("    <note>").append(j).append("</note>\n");
+            }
+            source.append("  </contact>\n");
+        }
+        return source.append("</contacts>\n").toString();
+    }
+}
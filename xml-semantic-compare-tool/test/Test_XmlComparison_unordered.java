@@ -0,0 +1,157 @@
+import Model.*;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.w3c.dom.Document;
+
+/**
+ * Tests for comparison with strictElementOrder off, child elements are
+ * matched regardless of their order.
+ */
+public class Test_XmlComparison_unordered {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+
+    public Test_XmlComparison_unordered() {
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_reorderedElements() {
+
+        XmlComparison comparison = new XmlComparison("test/Samples/contacts.xml",
+                                                     "test/Samples/contacts-element-order.xml");
+
+        assertFalse(comparison.compareXmlDocuments(false, true, true));
+        assertTrue("Incorrect number of differences :", comparison.getDifferences().size() > 0);
+
+        comparison = new XmlComparison("test/Samples/contacts.xml", "test/Samples/contacts-element-order.xml");
+        assertTrue(comparison.compareXmlDocuments(false, false, true));
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_missingElement() {
+
+        XmlComparison comparison = createComparison("<a:x><a:b>1</a:b><a:c>2</a:c><a:d>3</a:d></a:x>",
+                                                    "<a:x><a:d>3</a:d><a:b>1</a:b></a:x>");
+
+        assertFalse(comparison.compareXmlDocuments(false, false, true));
+        assertEquals("Incorrect number of differences :", 1, comparison.getDifferences().size());
+
+        XmlDifference difference = comparison.getDifferences().get(0);
+        assertEquals(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, difference.getType());
+        assertEquals("c", difference.getExpectedNode().getLocalName());
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_changedText() {
+
+        XmlComparison comparison = createComparison("<a:x><a:b>1</a:b><a:c>2</a:c><a:b>3</a:b></a:x>",
+                                                    "<a:x><a:b>3</a:b><a:c>2</a:c><a:b>4</a:b></a:x>");
+
+        assertFalse(comparison.compareXmlDocuments(false, false, true));
+        assertEquals("Incorrect number of differences :", 1, comparison.getDifferences().size());
+
+        XmlDifference difference = comparison.getDifferences().get(0);
+        assertEquals(XmlDifferenceType.TEXT_DIFFERENCE, difference.getType());
+        assertEquals("1", difference.getExpectedNode().getTextContent());
+        assertEquals("4", difference.getFoundNode().getTextContent());
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_renamedElement() {
+
+        XmlComparison comparison = createComparison("<a:x><a:b>1</a:b><a:c>2</a:c></a:x>",
+                                                    "<a:x><a:e>2</a:e><a:b>1</a:b></a:x>");
+
+        assertFalse(comparison.compareXmlDocuments(false, false, true));
+        assertEquals("Incorrect number of differences :", 1, comparison.getDifferences().size());
+        assertEquals(XmlDifferenceType.TAGNAME_DIFFERENCE, comparison.getDifferences().get(0).getType());
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_reorderedGrandchildren() {
+
+        Document documentA = XmlComparison.createDocumentFormString(HEADER
+                + "<r xmlns=\"urn:x\"><a><x/><y/></a><a><x/><z/></a></r>");
+        Document documentB = XmlComparison.createDocumentFormString(HEADER
+                + "<r xmlns=\"urn:x\">\n  <a><z/><x/></a>\n  <a>\n    <y/>\n    <x/>\n  </a>\n</r>");
+
+        XmlComparison comparison = new XmlComparison(documentA, documentB);
+        assertTrue(comparison.compareXmlDocuments(false, false, false));
+        assertEquals("Incorrect number of differences :", 0, comparison.getDifferences().size());
+
+        comparison.setSubtreeHashing(true);
+        assertTrue(comparison.compareXmlDocuments(false, false, false));
+        assertFalse(comparison.compareXmlDocuments(false, true, false));
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_mostSimilarPaired() {
+
+        XmlComparison comparison = createComparison(
+                "<a:x><a:p><a:b>1</a:b><a:c>1</a:c></a:p><a:p><a:b>2</a:b><a:c>2</a:c></a:p></a:x>",
+                "<a:x><a:p><a:c>2</a:c><a:b>2</a:b><a:d/></a:p><a:p><a:b>1</a:b><a:e/><a:c>1</a:c></a:p></a:x>");
+
+        assertFalse(comparison.compareXmlDocuments(false, false, true));
+        assertEquals("Incorrect number of differences :", 2, comparison.getDifferences().size());
+        for (XmlDifference difference : comparison.getDifferences()) {
+            assertEquals(XmlDifferenceType.ELEMENT_MISSING_DIFFERENCE, difference.getType());
+        }
+        assertEquals("e", comparison.getDifferences().get(0).getExpectedNode().getLocalName());
+        assertEquals("d", comparison.getDifferences().get(1).getExpectedNode().getLocalName());
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_wideElement() {
+
+        StringBuilder sourceA = new StringBuilder("<a:x>");
+        StringBuilder sourceB = new StringBuilder("<a:x>");
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            sourceA.append("<a:b id=\"").append(i).append("\">").append(i).append("</a:b>");
+            sourceB.append("<a:b id=\"").append(count - 1 - i).append("\">").append(count - 1 - i).append("</a:b>");
+        }
+        sourceA.append("</a:x>");
+        sourceB.append("<a:b id=\"extra\"/></a:x>");
+
+        XmlComparison sequential = createComparison(sourceA.toString(), sourceB.toString());
+        assertFalse(sequential.compareXmlDocuments(false, false, true));
+        assertEquals("Incorrect number of differences :", 1, sequential.getDifferences().size());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        XmlComparison parallel = new XmlComparison(sequential.getFirstDocument(), sequential.getSecondDocument());
+        parallel.setParallelComparison(pool, 16);
+        assertFalse(parallel.compareXmlDocuments(false, false, true));
+        assertEquals(sequential.getDifferences(), parallel.getDifferences());
+        pool.shutdown();
+    }
+
+    @Test
+    public void test_XmlComparison_unordered_streaming() {
+
+        String[] samples = {
+            "test/Samples/contacts-element-order.xml",
+            "test/Samples/contacts-element-missing-two.xml",
+            "test/Samples/contacts-text-different.xml"
+        };
+        for (String sample : samples) {
+            XmlComparison dom = new XmlComparison("test/Samples/contacts.xml", sample);
+            StreamingXmlComparison streaming = new StreamingXmlComparison("test/Samples/contacts.xml", sample);
+
+            assertEquals(sample, dom.compareXmlDocuments(false, false, true),
+                                 streaming.compareXmlDocuments(false, false, true));
+            assertEquals(sample, dom.getDifferences().size(), streaming.getDifferences().size());
+            for (int i = 0; i < dom.getDifferences().size(); i++) {
+                assertEquals(sample, dom.getDifferences().get(i).getType(), streaming.getDifferences().get(i).getType());
+            }
+        }
+    }
+
+    private static XmlComparison createComparison(String rootA, String rootB) {
+
+        String namespace = " xmlns:a=\"urn:test\"";
+        Document documentA = XmlComparison.createDocumentFormString(HEADER + rootA.replaceFirst(">", namespace + ">"));
+        Document documentB = XmlComparison.createDocumentFormString(HEADER + rootB.replaceFirst(">", namespace + ">"));
+        return new XmlComparison(documentA, documentB);
+    }
+}